@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.marlin.pisces;
+
+import java.awt.Shape;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import sun.java2d.pipe.AATileGenerator;
+import sun.java2d.pipe.Region;
+
+/**
+ * Shared shapes and helpers for the JMH benchmarks
+ * (typical map rendering shapes: polylines, filled polygons)
+ */
+final class BenchShapes {
+
+    // fixed seed to get the same shapes between runs:
+    private static final long SEED = 2015L;
+
+    static {
+        // ensure libawt is loaded (Region native ids):
+        new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics()
+            .dispose();
+    }
+
+    private BenchShapes() {
+        // no-op
+    }
+
+    /**
+     * Return the device clip covering [0; size[ x [0; size[
+     * @param size clip width and height in pixels
+     * @return Region instance
+     */
+    static Region getClip(final int size) {
+        return Region.getInstanceXYWH(0, 0, size, size);
+    }
+
+    /**
+     * Create an open polyline (random walk like a GPS track or a road)
+     * @param points number of points
+     * @param size canvas size in pixels
+     * @return polyline shape
+     */
+    static Shape createPolyline(final int points, final int size) {
+        final Random rnd = new Random(SEED);
+        final Path2D.Float path = new Path2D.Float(Path2D.WIND_NON_ZERO, points);
+
+        // step chosen to cross the canvas whatever the point count:
+        final float step = (1.5f * size) / Math.max(1, points);
+        final float amp  = 0.25f * size;
+
+        float x = 0f;
+        path.moveTo(x, 0.5f * size);
+
+        for (int i = 1; i < points; i++) {
+            x += step;
+            path.lineTo(x % size,
+                        0.5f * size + amp * (float) Math.sin(i * 0.01)
+                        + 4f * (rnd.nextFloat() - 0.5f));
+        }
+        return path;
+    }
+
+    /**
+     * Create a closed polygon (star like land mass with a jagged border)
+     * @param points number of points
+     * @param size canvas size in pixels
+     * @return polygon shape
+     */
+    static Shape createPolygon(final int points, final int size) {
+        final Random rnd = new Random(SEED);
+        final Path2D.Float path = new Path2D.Float(Path2D.WIND_NON_ZERO, points);
+
+        final double cx = 0.5 * size;
+        final double cy = 0.5 * size;
+        final double radius = 0.45 * size;
+        final double angStep = (2.0 * Math.PI) / Math.max(3, points);
+
+        for (int i = 0; i < points; i++) {
+            final double ang = i * angStep;
+            final double r = radius * (0.85 + 0.15 * rnd.nextDouble());
+            final float x = (float) (cx + r * Math.cos(ang));
+            final float y = (float) (cy + r * Math.sin(ang));
+            if (i == 0) {
+                path.moveTo(x, y);
+            } else {
+                path.lineTo(x, y);
+            }
+        }
+        path.closePath();
+        return path;
+    }
+
+    /**
+     * Send the given shape (lines only) to the given renderer
+     * @param r renderer to feed
+     * @param s shape (flattened, no curves expected)
+     */
+    static void feed(final Renderer r, final Shape s) {
+        final float[] coords = new float[6];
+        for (PathIterator pi = s.getPathIterator(null); !pi.isDone(); pi.next()) {
+            switch (pi.currentSegment(coords)) {
+                case PathIterator.SEG_MOVETO:
+                    r.moveTo(coords[0], coords[1]);
+                    break;
+                case PathIterator.SEG_LINETO:
+                    r.lineTo(coords[0], coords[1]);
+                    break;
+                case PathIterator.SEG_CLOSE:
+                    r.closePath();
+                    break;
+                default:
+                    throw new IllegalStateException("unexpected segment");
+            }
+        }
+        r.pathDone();
+    }
+
+    /**
+     * Consume all tiles of the given tile generator as AAShapePipe does
+     * and dispose it.
+     * @param ptg tile generator
+     * @param bbox tile iteration bounds
+     * @param tile alpha tile (TILE_SIZE x TILE_SIZE)
+     * @return checksum of typical alpha values (avoid dead code elimination)
+     */
+    static int consumeTiles(final AATileGenerator ptg, final int[] bbox,
+                            final byte[] tile)
+    {
+        int sum = 0;
+        try {
+            final int tw = ptg.getTileWidth();
+            final int th = ptg.getTileHeight();
+
+            for (int y = bbox[1]; y < bbox[3]; y += th) {
+                for (int x = bbox[0]; x < bbox[2]; x += tw) {
+                    final int a = ptg.getTypicalAlpha();
+                    sum += a;
+                    if (a == 0x00 || a == 0xff) {
+                        ptg.nextTile();
+                    } else {
+                        ptg.getAlpha(tile, 0, tw);
+                    }
+                }
+            }
+        } finally {
+            ptg.dispose();
+        }
+        return sum;
+    }
+}
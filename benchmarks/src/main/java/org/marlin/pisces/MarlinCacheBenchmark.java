@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.marlin.pisces;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * MarlinCache.copyAARow() benchmark: one pixel row made of spans
+ * (sparse or dense coverage) per invocation
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MarlinCacheBenchmark {
+
+    @Param({"256", "2048", "8192"})
+    int width;
+
+    @Param({"1", "16", "256"})
+    int spans;
+
+    RendererContext rdrCtx;
+    MarlinCache cache;
+    int[] alphaLine;
+    int y;
+
+    @Setup
+    public void setup() {
+        rdrCtx = MarlinRenderingEngine.getRendererContext();
+        cache = rdrCtx.cache;
+        cache.init(0, 0, width, MarlinConst.TILE_SIZE);
+        cache.resetTileLine(0);
+        // add 2 like Renderer.endRendering():
+        alphaLine = new int[width + 2];
+        y = 0;
+    }
+
+    @TearDown
+    public void dispose() {
+        cache.dispose();
+        MarlinRenderingEngine.returnRendererContext(rdrCtx);
+    }
+
+    @Benchmark
+    public int copyAARow() {
+        if (y == MarlinConst.TILE_SIZE) {
+            y = 0;
+            cache.resetTileLine(0);
+        }
+        final int[] alpha = alphaLine;
+        final int maxAlpha = MarlinConst.MAX_AA_ALPHA;
+        final int step = width / spans;
+
+        // span edges: full coverage inside, half coverage on both borders
+        for (int x0 = 0; x0 + 2 < width; x0 += step) {
+            final int x1 = x0 + Math.max(1, step >> 1);
+            alpha[x0]     += maxAlpha >> 1;
+            alpha[x0 + 1] += maxAlpha - (maxAlpha >> 1);
+            alpha[x1]     -= maxAlpha >> 1;
+            alpha[x1 + 1] -= maxAlpha - (maxAlpha >> 1);
+        }
+        // copyAARow() clears alpha for the next row:
+        cache.copyAARow(alpha, y, 0, width + 2);
+        return y++;
+    }
+}
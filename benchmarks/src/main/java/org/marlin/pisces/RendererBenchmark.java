@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.marlin.pisces;
+
+import java.awt.Shape;
+import java.awt.geom.PathIterator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Renderer scanline benchmark: edges are added during setup (per invocation
+ * as _endRendering() updates the edge data in place) so only the
+ * _endRendering() loop over all tile lines is measured
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RendererBenchmark {
+
+    @Param({"1000", "100000"})
+    int points;
+
+    @Param({"1024"})
+    int size;
+
+    Shape shape;
+    RendererContext rdrCtx;
+    Renderer r;
+
+    @Setup(Level.Trial)
+    public void setupShape() {
+        shape = BenchShapes.createPolygon(points, size);
+    }
+
+    @Setup(Level.Invocation)
+    public void setupEdges() {
+        rdrCtx = MarlinRenderingEngine.getRendererContext();
+        r = rdrCtx.renderer.init(0, 0, size, size, PathIterator.WIND_NON_ZERO);
+        BenchShapes.feed(r, shape);
+    }
+
+    @TearDown(Level.Invocation)
+    public void dispose() {
+        rdrCtx.cache.dispose();
+        r.dispose();
+        MarlinRenderingEngine.returnRendererContext(rdrCtx);
+    }
+
+    @Benchmark
+    public int endRendering() {
+        final Renderer _r = r;
+        int n = 0;
+        if (_r.endRendering()) {
+            final MarlinCache cache = _r.cache;
+            // process next tile lines:
+            for (int y = cache.bboxY0 + MarlinConst.TILE_SIZE; y < cache.bboxY1;
+                 y += MarlinConst.TILE_SIZE, n++)
+            {
+                _r.endRendering(y);
+            }
+        }
+        return n;
+    }
+}
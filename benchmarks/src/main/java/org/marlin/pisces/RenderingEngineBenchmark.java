@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.marlin.pisces;
+
+import java.awt.BasicStroke;
+import java.awt.Shape;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sun.java2d.pipe.AATileGenerator;
+import sun.java2d.pipe.Region;
+
+/**
+ * Full pipeline benchmarks: MarlinRenderingEngine.getAATileGenerator()
+ * (fill and stroke) then all tiles consumed like AAShapePipe.renderTiles()
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderingEngineBenchmark {
+
+    static final MarlinRenderingEngine ENGINE = new MarlinRenderingEngine();
+
+    @State(Scope.Thread)
+    public static class FillState {
+
+        @Param({"10", "1000", "100000"})
+        int points;
+
+        @Param({"1024"})
+        int size;
+
+        Shape shape;
+        Region clip;
+        final int[] bbox = new int[4];
+        final byte[] tile = new byte[MarlinConst.TILE_SIZE * MarlinConst.TILE_SIZE];
+
+        @Setup
+        public void setup() {
+            shape = BenchShapes.createPolygon(points, size);
+            clip  = BenchShapes.getClip(size);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class StrokeState {
+
+        @Param({"10", "1000", "100000"})
+        int points;
+
+        // 0.1 is below the minimum AA pen size (thin stroke)
+        @Param({"0.1", "1.0", "5.0"})
+        float lineWidth;
+
+        @Param({"false", "true"})
+        boolean dashed;
+
+        @Param({"1024"})
+        int size;
+
+        Shape shape;
+        Region clip;
+        BasicStroke stroke;
+        boolean thin;
+        final int[] bbox = new int[4];
+        final byte[] tile = new byte[MarlinConst.TILE_SIZE * MarlinConst.TILE_SIZE];
+
+        @Setup
+        public void setup() {
+            shape = BenchShapes.createPolyline(points, size);
+            clip  = BenchShapes.getClip(size);
+            stroke = (dashed)
+                     ? new BasicStroke(lineWidth, BasicStroke.CAP_BUTT,
+                                       BasicStroke.JOIN_ROUND, 10f,
+                                       new float[]{8f, 4f}, 0f)
+                     : new BasicStroke(lineWidth, BasicStroke.CAP_ROUND,
+                                       BasicStroke.JOIN_ROUND);
+            thin = (lineWidth <= ENGINE.getMinimumAAPenSize());
+        }
+    }
+
+    @Benchmark
+    public int fill(final FillState s) {
+        final AATileGenerator ptg = ENGINE.getAATileGenerator(s.shape, null,
+                                        s.clip, null, false, false, s.bbox);
+        return (ptg == null) ? 0 : BenchShapes.consumeTiles(ptg, s.bbox, s.tile);
+    }
+
+    @Benchmark
+    public int stroke(final StrokeState s) {
+        final AATileGenerator ptg = ENGINE.getAATileGenerator(s.shape, null,
+                                        s.clip, s.stroke, s.thin, false, s.bbox);
+        return (ptg == null) ? 0 : BenchShapes.consumeTiles(ptg, s.bbox, s.tile);
+    }
+}
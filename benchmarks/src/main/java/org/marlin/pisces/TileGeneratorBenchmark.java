@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.marlin.pisces;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * MarlinTileGenerator benchmark on one tile line (the middle one) of a
+ * large polygon: getAlpha() and getTypicalAlpha() for all tiles except the
+ * last one (to not trigger rendering of the next tile line)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TileGeneratorBenchmark {
+
+    @Param({"100", "10000"})
+    int points;
+
+    @Param({"1024"})
+    int size;
+
+    MarlinTileGenerator ptg;
+    int nTiles;
+    final int[] bbox = new int[4];
+    final byte[] tile = new byte[MarlinConst.TILE_SIZE * MarlinConst.TILE_SIZE];
+
+    @Setup
+    public void setup() {
+        ptg = (MarlinTileGenerator) RenderingEngineBenchmark.ENGINE
+                .getAATileGenerator(BenchShapes.createPolygon(points, size),
+                                    null, BenchShapes.getClip(size), null,
+                                    false, false, bbox);
+
+        final int ts = MarlinConst.TILE_SIZE;
+        nTiles = (bbox[2] - bbox[0] + ts - 1) / ts - 1;
+
+        // move to the middle tile line:
+        final int ymid = (bbox[1] + bbox[3]) / 2;
+        for (int y = bbox[1]; y + ts <= ymid; y += ts) {
+            for (int x = bbox[0]; x < bbox[2]; x += ts) {
+                ptg.nextTile();
+            }
+        }
+    }
+
+    @TearDown
+    public void dispose() {
+        ptg.dispose();
+    }
+
+    @Benchmark
+    public byte getAlpha() {
+        final MarlinTileGenerator _ptg = ptg.init();
+        final byte[] _tile = tile;
+        for (int i = 0; i < nTiles; i++) {
+            _ptg.getAlpha(_tile, 0, MarlinConst.TILE_SIZE);
+        }
+        return _tile[0];
+    }
+
+    @Benchmark
+    public int getTypicalAlpha() {
+        final MarlinTileGenerator _ptg = ptg.init();
+        int sum = 0;
+        for (int i = 0; i < nTiles; i++) {
+            sum += _ptg.getTypicalAlpha();
+            _ptg.nextTile();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.marlin.pisces;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder events emitted by the Marlin renderer (jdk.jfr).
+ * This class is loaded reflectively by MarlinEvents and events are only
+ * allocated while a recording enables them.
+ */
+final class JFRMarlinEvents extends MarlinEvents {
+
+    @Name("org.marlin.pisces.ShapeRendering")
+    @Label("Marlin Shape Rendering")
+    @Category({"Java Application", "Java2D", "Marlin"})
+    @Description("Shape rasterized by the Marlin renderer"
+                 + " (path processing and tile rendering)")
+    @StackTrace(false)
+    static final class ShapeRenderingEvent extends Event {
+
+        @Label("Operation")
+        @Description("fill, fillBatch, stroke, parallelogram, strokeTo or mask")
+        String operation;
+
+        @Label("Dashed")
+        boolean dashed;
+
+        @Label("Winding Rule")
+        String windingRule;
+
+        @Label("Segments")
+        @Description("Number of path segments")
+        int segments;
+
+        @Label("Edges")
+        @Description("Number of edges added to the Renderer")
+        int edges;
+
+        @Label("Bounding Box Width")
+        int bboxWidth;
+
+        @Label("Bounding Box Height")
+        int bboxHeight;
+
+        @Label("Rasterization Duration")
+        @Description("Path processing duration (until the first tile line)")
+        @Timespan(Timespan.NANOSECONDS)
+        long rasterization;
+
+        @Label("Empty Tiles")
+        int emptyTiles;
+
+        @Label("Full Tiles")
+        int fullTiles;
+
+        @Label("Partial Tiles")
+        int partialTiles;
+    }
+
+    // event instance only used to check if the event is enabled
+    // (does not initialize JFR unlike EventType.getEventType())
+    private static final ShapeRenderingEvent PROBE = new ShapeRenderingEvent();
+
+    JFRMarlinEvents() {
+        super();
+    }
+
+    @Override
+    Object beginEvent() {
+        if (!PROBE.isEnabled()) {
+            return null;
+        }
+        final ShapeRenderingEvent evt = new ShapeRenderingEvent();
+        evt.begin();
+        // start timestamp until shapeDone():
+        evt.rasterization = System.nanoTime();
+        return evt;
+    }
+
+    @Override
+    void shapeEventDone(final Object event, final String operation,
+                        final boolean dashed, final int windingRule,
+                        final int segments, final int edges,
+                        final int[] bbox)
+    {
+        final ShapeRenderingEvent evt = (ShapeRenderingEvent) event;
+        evt.rasterization = System.nanoTime() - evt.rasterization;
+        evt.operation = operation;
+        evt.dashed = dashed;
+        evt.windingRule = (windingRule == Renderer.WIND_EVEN_ODD)
+                          ? "even-odd" : "non-zero";
+        evt.segments = segments;
+        evt.edges = edges;
+
+        if (bbox != null) {
+            evt.bboxWidth = bbox[2] - bbox[0];
+            evt.bboxHeight = bbox[3] - bbox[1];
+        } else {
+            evt.commit();
+        }
+    }
+
+    @Override
+    void tilesEventDone(final Object event, final int emptyTiles,
+                        final int fullTiles, final int partialTiles)
+    {
+        final ShapeRenderingEvent evt = (ShapeRenderingEvent) event;
+        evt.emptyTiles = emptyTiles;
+        evt.fullTiles = fullTiles;
+        evt.partialTiles = partialTiles;
+        evt.commit();
+    }
+}
@@ -26,6 +26,7 @@ package org.marlin.pisces;
 
 import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import static org.marlin.pisces.MarlinUtils.logException;
 import static org.marlin.pisces.MarlinUtils.logInfo;
 
@@ -33,6 +34,13 @@ final class ByteArrayCache implements MarlinConst {
 
     private final int arraySize;
     private final ArrayDeque<byte[]> byteArrays;
+    // cached array count (written by the owner thread, read by JMX):
+    private volatile int cachedCount = 0;
+
+    private static final AtomicIntegerFieldUpdater<ByteArrayCache> CACHED_COUNT
+        = AtomicIntegerFieldUpdater.newUpdater(ByteArrayCache.class, "cachedCount");
+    // shared cache bucket (largest buckets) or null
+    private final SharedArrayCache.Bucket shared;
     // stats
     private int getOp = 0;
     private int createOp = 0;
@@ -46,8 +54,33 @@ final class ByteArrayCache implements MarlinConst {
         }
     }
 
-    ByteArrayCache(final int arraySize) {
+    /**
+     * Return the number of cached arrays (safe to call from another thread)
+     * @return cached array count
+     */
+    int size() {
+        return cachedCount;
+    }
+
+    private void updateCount() {
+        // ordered store (cheap): only the owner thread modifies the deque
+        CACHED_COUNT.lazySet(this, byteArrays.size());
+    }
+
+    /**
+     * Drop all cached arrays (memory budget or trim policy)
+     * @return dropped array count
+     */
+    int clear() {
+        final int count = byteArrays.size();
+        byteArrays.clear();
+        updateCount();
+        return count;
+    }
+
+    ByteArrayCache(final int arraySize, final SharedArrayCache.Bucket shared) {
         this.arraySize = arraySize;
+        this.shared = shared;
         // small but enough: almost 1 cache line
         this.byteArrays = new ArrayDeque<byte[]>(6);
     }
@@ -60,12 +93,23 @@ final class ByteArrayCache implements MarlinConst {
         // use cache:
         final byte[] array = byteArrays.pollLast();
         if (array != null) {
+            updateCount();
             return array;
         }
+        // use shared cache:
+        if (shared != null) {
+            final Object sharedArray = shared.poll();
+            if (sharedArray != null) {
+                return (byte[]) sharedArray;
+            }
+        }
 
         if (DO_STATS) {
             createOp++;
         }
+        if (DO_METRICS) {
+            RendererContext.metrics.ctr_cache_misses.increment();
+        }
 
         return new byte[arraySize];
     }
@@ -86,8 +130,11 @@ final class ByteArrayCache implements MarlinConst {
             Arrays.fill(array, 0, array.length, BYTE_0);
         }
 
-        // fill cache:
-        byteArrays.addLast(array);
+        // fill cache (shared cache first):
+        if ((shared == null) || !shared.offer(array)) {
+            byteArrays.addLast(array);
+            updateCount();
+        }
     }
 
     void putArray(final byte[] array, final int length,
@@ -104,8 +151,11 @@ final class ByteArrayCache implements MarlinConst {
         // clean-up array of dirty part[fromIndex; toIndex[
         fill(array, fromIndex, toIndex, BYTE_0);
 
-        // fill cache:
-        byteArrays.addLast(array);
+        // fill cache (shared cache first):
+        if ((shared == null) || !shared.offer(array)) {
+            byteArrays.addLast(array);
+            updateCount();
+        }
     }
 
     static void fill(final byte[] array, final int fromIndex,
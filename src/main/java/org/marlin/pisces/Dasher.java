@@ -61,6 +61,11 @@ final class Dasher implements sun.awt.geom.PathConsumer2D, MarlinConst {
     private float sx, sy;
     private float x0, y0;
 
+    // clip rectangle (ymin, ymax, xmin, xmax) or null if disabled
+    private float[] clipRect;
+    // outcode of the current point
+    private int cOutCode = 0;
+
     // temporary storage for the current curve
     private final float[] curCurvepts;
 
@@ -130,6 +135,8 @@ final class Dasher implements sun.awt.geom.PathConsumer2D, MarlinConst {
 
         this.recycleDashes = recycleDashes;
 
+        this.clipRect = (rdrCtx.doClip) ? rdrCtx.clipRect : null;
+
         return this; // fluent API
     }
 
@@ -168,6 +175,10 @@ final class Dasher implements sun.awt.geom.PathConsumer2D, MarlinConst {
         this.sx = this.x0 = x0;
         this.sy = this.y0 = y0;
         this.starting = true;
+
+        if (clipRect != null) {
+            this.cOutCode = Helpers.outcode(x0, y0, clipRect);
+        }
     }
 
     private void emitSeg(float[] buf, int off, int type) {
@@ -260,11 +271,35 @@ final class Dasher implements sun.awt.geom.PathConsumer2D, MarlinConst {
         final float cx = dx / len;
         final float cy = dy / len;
 
+        if (clipRect != null) {
+            final int outcode0 = cOutCode;
+            final int outcode1 = Helpers.outcode(x1, y1, clipRect);
+            cOutCode = outcode1;
+
+            if ((outcode0 | outcode1) != 0) {
+                // segment partially or fully outside the clip:
+                dashLineTo(x1, y1, cx, cy, len, true, outcode0);
+                return;
+            }
+        }
+        dashLineTo(x1, y1, cx, cy, len, false, 0);
+    }
+
+    // Dashes the line segment from (x0, y0) to (x1, y1) of the given length
+    // and direction (cx, cy). If clipped is true, dashes outside the clip
+    // rectangle (outcode0 is the outcode of (x0, y0)) only advance the dash
+    // phase: the same float steps are done so the dash phase does not
+    // depend on the clip.
+    private void dashLineTo(final float x1, final float y1,
+                            final float cx, final float cy, float len,
+                            final boolean clipped, int outcode0)
+    {
         final float[] _curCurvepts = curCurvepts;
         final float[] _dash = dash;
 
         float leftInThisDashSegment;
         float dashdx, dashdy, p;
+        int outcode1;
 
         while (true) {
             leftInThisDashSegment = _dash[idx] - phase;
@@ -272,7 +307,13 @@ final class Dasher implements sun.awt.geom.PathConsumer2D, MarlinConst {
             if (len <= leftInThisDashSegment) {
                 _curCurvepts[0] = x1;
                 _curCurvepts[1] = y1;
-                goTo(_curCurvepts, 0, 4);
+                if (clipped && ((outcode0 & Helpers.outcode(x1, y1, clipRect))
+                                != 0))
+                {
+                    skipTo(x1, y1);
+                } else {
+                    goTo(_curCurvepts, 0, 4);
+                }
 
                 // Advance phase within current dash segment
                 phase += len;
@@ -297,7 +338,18 @@ final class Dasher implements sun.awt.geom.PathConsumer2D, MarlinConst {
                 _curCurvepts[1] = y0 + p * dashdy;
             }
 
-            goTo(_curCurvepts, 0, 4);
+            if (clipped) {
+                outcode1 = Helpers.outcode(_curCurvepts[0], _curCurvepts[1],
+                                           clipRect);
+                if ((outcode0 & outcode1) != 0) {
+                    skipTo(_curCurvepts[0], _curCurvepts[1]);
+                } else {
+                    goTo(_curCurvepts, 0, 4);
+                }
+                outcode0 = outcode1;
+            } else {
+                goTo(_curCurvepts, 0, 4);
+            }
 
             len -= leftInThisDashSegment;
             // Advance to next dash segment
@@ -307,6 +359,18 @@ final class Dasher implements sun.awt.geom.PathConsumer2D, MarlinConst {
         }
     }
 
+    // Moves to (x, y) along a dash piece outside the clip rectangle without
+    // emitting it: the next visible dash starts with a moveTo
+    private void skipTo(final float x, final float y) {
+        if (DO_STATS && dashOn) {
+            RendererContext.stats.stat_dasher_clip_skip.add(1);
+        }
+        starting = false;
+        needsMoveTo = true;
+        this.x0 = x;
+        this.y0 = y;
+    }
+
     // shared instance in Dasher
     private final LengthIterator li = new LengthIterator();
 
@@ -658,6 +722,10 @@ final class Dasher implements sun.awt.geom.PathConsumer2D, MarlinConst {
         _curCurvepts[4] = x2;        _curCurvepts[5] = y2;
         _curCurvepts[6] = x3;        _curCurvepts[7] = y3;
         somethingTo(8);
+
+        if (clipRect != null) {
+            this.cOutCode = Helpers.outcode(x3, y3, clipRect);
+        }
     }
 
     @Override
@@ -667,6 +735,10 @@ final class Dasher implements sun.awt.geom.PathConsumer2D, MarlinConst {
         _curCurvepts[2] = x1;        _curCurvepts[3] = y1;
         _curCurvepts[4] = x2;        _curCurvepts[5] = y2;
         somethingTo(6);
+
+        if (clipRect != null) {
+            this.cOutCode = Helpers.outcode(x2, y2, clipRect);
+        }
     }
 
     @Override
@@ -26,6 +26,7 @@ package org.marlin.pisces;
 
 import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import static org.marlin.pisces.MarlinUtils.logException;
 import static org.marlin.pisces.MarlinUtils.logInfo;
 
@@ -33,6 +34,13 @@ final class FloatArrayCache implements MarlinConst {
 
     private final int arraySize;
     private final ArrayDeque<float[]> floatArrays;
+    // cached array count (written by the owner thread, read by JMX):
+    private volatile int cachedCount = 0;
+
+    private static final AtomicIntegerFieldUpdater<FloatArrayCache> CACHED_COUNT
+        = AtomicIntegerFieldUpdater.newUpdater(FloatArrayCache.class, "cachedCount");
+    // shared cache bucket (largest buckets) or null
+    private final SharedArrayCache.Bucket shared;
     // stats
     private int getOp = 0;
     private int createOp = 0;
@@ -46,8 +54,33 @@ final class FloatArrayCache implements MarlinConst {
         }
     }
 
-    FloatArrayCache(final int arraySize) {
+    /**
+     * Return the number of cached arrays (safe to call from another thread)
+     * @return cached array count
+     */
+    int size() {
+        return cachedCount;
+    }
+
+    private void updateCount() {
+        // ordered store (cheap): only the owner thread modifies the deque
+        CACHED_COUNT.lazySet(this, floatArrays.size());
+    }
+
+    /**
+     * Drop all cached arrays (memory budget or trim policy)
+     * @return dropped array count
+     */
+    int clear() {
+        final int count = floatArrays.size();
+        floatArrays.clear();
+        updateCount();
+        return count;
+    }
+
+    FloatArrayCache(final int arraySize, final SharedArrayCache.Bucket shared) {
         this.arraySize = arraySize;
+        this.shared = shared;
         // small but enough: almost 1 cache line
         this.floatArrays = new ArrayDeque<float[]>(6);
     }
@@ -61,12 +94,23 @@ final class FloatArrayCache implements MarlinConst {
         final float[] array = floatArrays.pollLast();
 
         if (array != null) {
+            updateCount();
             return array;
         }
+        // use shared cache:
+        if (shared != null) {
+            final Object sharedArray = shared.poll();
+            if (sharedArray != null) {
+                return (float[]) sharedArray;
+            }
+        }
 
         if (DO_STATS) {
             createOp++;
         }
+        if (DO_METRICS) {
+            RendererContext.metrics.ctr_cache_misses.increment();
+        }
 
         return new float[arraySize];
     }
@@ -87,8 +131,11 @@ final class FloatArrayCache implements MarlinConst {
             Arrays.fill(array, 0, array.length, 0f);
         }
 
-        // fill cache:
-        floatArrays.addLast(array);
+        // fill cache (shared cache first):
+        if ((shared == null) || !shared.offer(array)) {
+            floatArrays.addLast(array);
+            updateCount();
+        }
     }
 
     void putArray(final float[] array, final int length,
@@ -105,8 +152,11 @@ final class FloatArrayCache implements MarlinConst {
         // clean-up array of dirty part[fromIndex; toIndex[
         fill(array, fromIndex, toIndex, 0f);
 
-        // fill cache:
-        floatArrays.addLast(array);
+        // fill cache (shared cache first):
+        if ((shared == null) || !shared.offer(array)) {
+            floatArrays.addLast(array);
+            updateCount();
+        }
     }
 
     static void fill(final float[] array, final int fromIndex,
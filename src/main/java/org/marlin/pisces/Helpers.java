@@ -38,6 +38,31 @@ final class Helpers implements MarlinConst {
         throw new Error("This is a non instantiable class");
     }
 
+    // clip outcodes (clip rectangle = [ymin, ymax, xmin, xmax])
+    static final int OUTCODE_TOP    = 1;
+    static final int OUTCODE_BOTTOM = 2;
+    static final int OUTCODE_LEFT   = 4;
+    static final int OUTCODE_RIGHT  = 8;
+
+    static int outcode(final float x, final float y,
+                       final float[] clipRect)
+    {
+        int code;
+        if (y < clipRect[0]) {
+            code = OUTCODE_TOP;
+        } else if (y >= clipRect[1]) {
+            code = OUTCODE_BOTTOM;
+        } else {
+            code = 0;
+        }
+        if (x < clipRect[2]) {
+            code |= OUTCODE_LEFT;
+        } else if (x >= clipRect[3]) {
+            code |= OUTCODE_RIGHT;
+        }
+        return code;
+    }
+
     static boolean within(final float x, final float y, final float err) {
         final float d = y - x;
         return (d <= err && d >= -err);
@@ -26,6 +26,7 @@ package org.marlin.pisces;
 
 import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import static org.marlin.pisces.MarlinUtils.logException;
 import static org.marlin.pisces.MarlinUtils.logInfo;
 
@@ -33,6 +34,13 @@ final class IntArrayCache implements MarlinConst {
 
     private final int arraySize;
     private final ArrayDeque<int[]> intArrays;
+    // cached array count (written by the owner thread, read by JMX):
+    private volatile int cachedCount = 0;
+
+    private static final AtomicIntegerFieldUpdater<IntArrayCache> CACHED_COUNT
+        = AtomicIntegerFieldUpdater.newUpdater(IntArrayCache.class, "cachedCount");
+    // shared cache bucket (largest buckets) or null
+    private final SharedArrayCache.Bucket shared;
     // stats
     private int getOp = 0;
     private int createOp = 0;
@@ -46,8 +54,33 @@ final class IntArrayCache implements MarlinConst {
         }
     }
 
-    IntArrayCache(final int arraySize) {
+    /**
+     * Return the number of cached arrays (safe to call from another thread)
+     * @return cached array count
+     */
+    int size() {
+        return cachedCount;
+    }
+
+    private void updateCount() {
+        // ordered store (cheap): only the owner thread modifies the deque
+        CACHED_COUNT.lazySet(this, intArrays.size());
+    }
+
+    /**
+     * Drop all cached arrays (memory budget or trim policy)
+     * @return dropped array count
+     */
+    int clear() {
+        final int count = intArrays.size();
+        intArrays.clear();
+        updateCount();
+        return count;
+    }
+
+    IntArrayCache(final int arraySize, final SharedArrayCache.Bucket shared) {
         this.arraySize = arraySize;
+        this.shared = shared;
         // small but enough: almost 1 cache line
         this.intArrays = new ArrayDeque<int[]>(6);
     }
@@ -60,12 +93,23 @@ final class IntArrayCache implements MarlinConst {
         // use cache:
         final int[] array = intArrays.pollLast();
         if (array != null) {
+            updateCount();
             return array;
         }
+        // use shared cache:
+        if (shared != null) {
+            final Object sharedArray = shared.poll();
+            if (sharedArray != null) {
+                return (int[]) sharedArray;
+            }
+        }
 
         if (DO_STATS) {
             createOp++;
         }
+        if (DO_METRICS) {
+            RendererContext.metrics.ctr_cache_misses.increment();
+        }
 
         return new int[arraySize];
     }
@@ -86,8 +130,11 @@ final class IntArrayCache implements MarlinConst {
             Arrays.fill(array, 0, array.length, 0);
         }
 
-        // fill cache:
-        intArrays.addLast(array);
+        // fill cache (shared cache first):
+        if ((shared == null) || !shared.offer(array)) {
+            intArrays.addLast(array);
+            updateCount();
+        }
     }
 
     void putArray(final int[] array, final int length,
@@ -104,8 +151,11 @@ final class IntArrayCache implements MarlinConst {
         // clean-up array of dirty part[fromIndex; toIndex[
         fill(array, fromIndex, toIndex, 0);
 
-        // fill cache:
-        intArrays.addLast(array);
+        // fill cache (shared cache first):
+        if ((shared == null) || !shared.offer(array)) {
+            intArrays.addLast(array);
+            updateCount();
+        }
     }
 
     static void fill(final int[] array, final int fromIndex,
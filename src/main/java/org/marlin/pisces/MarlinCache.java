@@ -52,6 +52,10 @@ public final class MarlinCache implements MarlinConst {
     final int[] rowAAx0 = new int[TILE_SIZE];
     // last pixel (exclusive) for each row
     final int[] rowAAx1 = new int[TILE_SIZE];
+    // encoding for each row: 0 = raw bytes in rowAAChunk, 1 = RLE in rowAARLE
+    final int[] rowAAEnc = new int[TILE_SIZE];
+    // RLE decoding cursor (run index in rowAARLE) for each row
+    final int[] rowAACursor = new int[TILE_SIZE];
 
     // 1D dirty array containing pixel coverages for (32) rows (packed)
     // use rowAAx0/rowAAx1 to get row indices within this byte chunk
@@ -59,6 +63,13 @@ public final class MarlinCache implements MarlinConst {
     // current position in rowAAChunk array
     int rowAAChunkPos;
 
+    // 1D dirty array containing RLE encoded rows (packed)
+    // each run is stored as (x1 << 8 | alpha) where x1 is the last pixel
+    // (exclusive) of the run; the first run starts at rowAAx0
+    int[] rowAARLE;
+    // current position in rowAARLE array
+    int rowAARLEPos;
+
     // touchedTile[i] is the sum of all the alphas in the tile with
     // x=j*TILE_SIZE+bboxX0.
     private int[] touchedTile;
@@ -71,6 +82,9 @@ public final class MarlinCache implements MarlinConst {
     final byte[] rowAAChunk_initial = new byte[INITIAL_CHUNK_ARRAY + 1]; // 64K
     // large cached touchedTile (dirty)
     final int[] touchedTile_initial = new int[INITIAL_ARRAY]; // 1 tile line
+    // large cached rowAARLE (dirty)
+    // +1 to avoid recycling in widenDirtyIntArray()
+    final int[] rowAARLE_initial = new int[INITIAL_SMALL_ARRAY + 1]; // 4K
 
     int tileMin, tileMax;
 
@@ -78,6 +92,7 @@ public final class MarlinCache implements MarlinConst {
         this.rdrCtx = rdrCtx;
 
         rowAAChunk  = rowAAChunk_initial;
+        rowAARLE    = rowAARLE_initial;
         touchedTile = touchedTile_initial;
 
         // tile used marks:
@@ -95,7 +110,8 @@ public final class MarlinCache implements MarlinConst {
         // the ceiling of (maxy - miny + 1) / TILE_SIZE;
         final int nxTiles = (maxx - minx + TILE_SIZE) >> TILE_SIZE_LG;
 
-        if (nxTiles > INITIAL_ARRAY) {
+        // note: touchedTile is kept if large enough (parallel band caches)
+        if (nxTiles > touchedTile.length) {
             if (DO_STATS) {
                 RendererContext.stats.stat_array_marlincache_touchedTile
                     .add(nxTiles);
@@ -117,6 +133,10 @@ public final class MarlinCache implements MarlinConst {
             rdrCtx.putDirtyByteArray(rowAAChunk);
             rowAAChunk = rowAAChunk_initial;
         }
+        if (rowAARLE != rowAARLE_initial) {
+            rdrCtx.putDirtyIntArray(rowAARLE);
+            rowAARLE = rowAARLE_initial;
+        }
         if (touchedTile != touchedTile_initial) {
             rdrCtx.putIntArray(touchedTile, 0, 0); // already zero filled
             touchedTile = touchedTile_initial;
@@ -132,6 +152,7 @@ public final class MarlinCache implements MarlinConst {
             RendererContext.stats.stat_cache_rowAAChunk.add(rowAAChunkPos);
         }
         rowAAChunkPos = 0;
+        rowAARLEPos = 0;
 
         // Reset touchedTile:
         if (tileMin != Integer.MAX_VALUE) {
@@ -152,6 +173,7 @@ public final class MarlinCache implements MarlinConst {
         if (DO_CLEAN_DIRTY) {
             // Force zero-fill dirty arrays:
             Arrays.fill(rowAAChunk, BYTE_0);
+            Arrays.fill(rowAARLE, 0);
         }
     }
 
@@ -193,6 +215,7 @@ public final class MarlinCache implements MarlinConst {
         // update pixel range:
         rowAAx0[row] = px0;      // first pixel inclusive
         rowAAx1[row] = px_bbox1; //  last pixel exclusive
+        rowAAEnc[row] = 0;       // raw encoding
 
         final int len = px_bbox1 - px0;
 
@@ -281,6 +304,558 @@ public final class MarlinCache implements MarlinConst {
         }
     }
 
+    /**
+     * Copy the given alpha data into the rowAA cache using block flags:
+     * untouched blocks have a constant coverage (no alpha sum)
+     * @param blkFlags block flags (1 if the alpha block was modified)
+     * @param alphaRow alpha data to copy from
+     * @param y y pixel coordinate
+     * @param px0 first pixel inclusive x0
+     * @param px1 last pixel exclusive x1
+     */
+    void copyAARow_WithBlockFlags(final int[] blkFlags, final int[] alphaRow,
+                                  final int y, final int px0, final int px1)
+    {
+        if (DO_MONITORS) {
+            RendererContext.stats.mon_rdr_copyAARow.start();
+        }
+
+        // skip useless pixels above boundary
+        final int px_bbox1 = Math.min(px1, bboxX1);
+
+        if (DO_LOG_BOUNDS) {
+            MarlinUtils.logInfo("row = [" + px0 + " ... " + px_bbox1
+                                + " (" + px1 + ") [ for y=" + y);
+        }
+
+        final int row = y - bboxY0;
+
+        // update pixel range:
+        rowAAx0[row] = px0;      // first pixel inclusive
+        rowAAx1[row] = px_bbox1; //  last pixel exclusive
+        rowAAEnc[row] = 0;       // raw encoding
+
+        final int len = px_bbox1 - px0;
+
+        // get current position:
+        final int pos = rowAAChunkPos;
+        // update row index to current position:
+        rowAAChunkIndex[row] = pos;
+        // update row data:
+        byte[] _rowAAChunk = rowAAChunk;
+        // ensure rowAAChunk capacity:
+        if (_rowAAChunk.length < pos + len) {
+            if (DO_STATS) {
+                RendererContext.stats.stat_array_marlincache_rowAAChunk
+                    .add(pos + len);
+            }
+            rowAAChunk = _rowAAChunk
+                = rdrCtx.widenDirtyByteArray(_rowAAChunk, pos, pos + len);
+        }
+        if (DO_STATS) {
+            RendererContext.stats.stat_cache_rowAA.add(len);
+        }
+
+        // rowAA contains only alpha values for range[x0; x1[
+
+        final int from = px0      - bboxX0; // first pixel inclusive
+        final int to   = px_bbox1 - bboxX0; //  last pixel exclusive
+
+        final int[] touchedLine = touchedTile;
+        final int _TILE_SIZE_LG = TILE_SIZE_LG;
+        final int _BLK_SIZE_LG  = BLOCK_SIZE_LG;
+        final byte[] _ALPHA_MAP = ALPHA_MAP;
+
+        // fix offset in rowAAChunk:
+        final int off = pos - from;
+
+        int x = from, val = 0, end;
+        byte alpha;
+
+        // walk blocks (block size <= tile size):
+        for (int b = from >> _BLK_SIZE_LG, bmax = (to - 1) >> _BLK_SIZE_LG;
+             b <= bmax; b++)
+        {
+            end = (b + 1) << _BLK_SIZE_LG;
+            if (end > to) {
+                end = to;
+            }
+
+            if (blkFlags[b] != 0) {
+                // compute alpha sum into rowAA:
+                for (; x < end; x++) {
+                    // alphaRow is in [0; MAX_COVERAGE]
+                    val += alphaRow[x]; // [from; to[
+
+                    // store alpha sum (as byte):
+                    _rowAAChunk[x + off] = _ALPHA_MAP[val];
+
+                    if (val != 0) {
+                        // update touchedTile
+                        touchedLine[x >> _TILE_SIZE_LG] += val;
+                    }
+                }
+            } else {
+                // constant coverage in this block:
+                if (val != 0) {
+                    // update touchedTile (block in a single tile)
+                    touchedLine[x >> _TILE_SIZE_LG] += val * (end - x);
+                }
+                alpha = _ALPHA_MAP[val];
+
+                for (; x < end; x++) {
+                    _rowAAChunk[x + off] = alpha;
+                }
+            }
+        }
+
+        // update current position:
+        rowAAChunkPos = pos + len;
+
+        // update tile used marks:
+        int tx = from >> _TILE_SIZE_LG; // inclusive
+        if (tx < tileMin) {
+            tileMin = tx;
+        }
+
+        tx = ((to - 1) >> _TILE_SIZE_LG) + 1; // exclusive (+1 to be sure)
+        if (tx > tileMax) {
+            tileMax = tx;
+        }
+
+        // Clear alpha row (touched blocks only) for reuse:
+        clearAlphaRow(blkFlags, alphaRow, from, px1 - bboxX0);
+
+        if (DO_MONITORS) {
+            RendererContext.stats.mon_rdr_copyAARow.stop();
+        }
+    }
+
+    /**
+     * Copy the given alpha data into the rowAA cache as runs (RLE encoding):
+     * efficient for mostly solid rows (large shapes) as only coverage changes
+     * are stored (each run is a single int)
+     * @param alphaRow alpha data to copy from
+     * @param y y pixel coordinate
+     * @param px0 first pixel inclusive x0
+     * @param px1 last pixel exclusive x1
+     */
+    void copyAARowRLE(final int[] alphaRow, final int y,
+                      final int px0, final int px1)
+    {
+        if (DO_MONITORS) {
+            RendererContext.stats.mon_rdr_copyAARow.start();
+        }
+
+        // skip useless pixels above boundary
+        final int px_bbox1 = Math.min(px1, bboxX1);
+
+        if (DO_LOG_BOUNDS) {
+            MarlinUtils.logInfo("row RLE = [" + px0 + " ... " + px_bbox1
+                                + " (" + px1 + ") [ for y=" + y);
+        }
+
+        final int row = y - bboxY0;
+
+        // update pixel range:
+        rowAAx0[row] = px0;      // first pixel inclusive
+        rowAAx1[row] = px_bbox1; //  last pixel exclusive
+        rowAAEnc[row] = 1;       // RLE encoding
+
+        final int len = px_bbox1 - px0;
+
+        // get current position:
+        final int pos = rowAARLEPos;
+        // update row index and decoding cursor to current position:
+        rowAAChunkIndex[row] = pos;
+        rowAACursor[row] = pos;
+        // update row data:
+        int[] _rowAARLE = rowAARLE;
+        // ensure rowAARLE capacity (worst case: 1 run per pixel):
+        if (_rowAARLE.length < pos + len) {
+            if (DO_STATS) {
+                RendererContext.stats.stat_array_marlincache_rowAARLE
+                    .add(pos + len);
+            }
+            rowAARLE = _rowAARLE
+                = rdrCtx.widenDirtyIntArray(_rowAARLE, pos, pos + len);
+        }
+        if (DO_STATS) {
+            RendererContext.stats.stat_cache_rowAA.add(len);
+        }
+
+        final int from = px0      - bboxX0; // first pixel inclusive
+        final int to   = px_bbox1 - bboxX0; //  last pixel exclusive
+
+        int idx = pos;
+        int runStart = from;
+        int runVal = alphaRow[from];
+        int val = runVal;
+        int x, tx;
+
+        // compute alpha sum and emit a run on every coverage change:
+        for (x = from + 1; ; x++) {
+            if (x < to) {
+                // alphaRow is in [0; MAX_COVERAGE]
+                val += alphaRow[x]; // [from; to[
+
+                if (val == runVal) {
+                    continue;
+                }
+            }
+            // emit run [runStart; x[ with runVal:
+            idx = addRun(_rowAARLE, idx, runStart, x, runVal);
+
+            if (x >= to) {
+                break;
+            }
+            runStart = x;
+            runVal = val;
+        }
+
+        if (DO_STATS) {
+            RendererContext.stats.stat_cache_rowAARLE.add(idx - pos);
+        }
+
+        // update current position:
+        rowAARLEPos = idx;
+
+        // update tile used marks:
+        tx = from >> TILE_SIZE_LG; // inclusive
+        if (tx < tileMin) {
+            tileMin = tx;
+        }
+
+        tx = ((to - 1) >> TILE_SIZE_LG) + 1; // exclusive (+1 to be sure)
+        if (tx > tileMax) {
+            tileMax = tx;
+        }
+
+        if (DO_LOG_BOUNDS) {
+            MarlinUtils.logInfo("clear = [" + from + " ... " + to + "[");
+        }
+
+        // Clear alpha row for reuse:
+        IntArrayCache.fill(alphaRow, from, px1 - bboxX0, 0);
+
+        if (DO_MONITORS) {
+            RendererContext.stats.mon_rdr_copyAARow.stop();
+        }
+    }
+
+    /**
+     * Copy the given alpha data into the rowAA cache as runs (RLE encoding)
+     * built directly from the span boundaries of the pixel row: the alpha
+     * deltas are only non-zero at the given touched positions so the
+     * coverage is constant between them (no per-pixel accumulation)
+     * @param blkFlags block flags (1 if the alpha block was modified)
+     * @param alphaRow alpha data to copy from
+     * @param touched touched positions (relative to bboxX0, unsorted)
+     * @param nTouched number of touched positions
+     * @param y y pixel coordinate
+     * @param px0 first pixel inclusive x0
+     * @param px1 last pixel exclusive x1
+     */
+    void copyAARowRLE_Touched(final int[] blkFlags, final int[] alphaRow,
+                              final int[] touched, final int nTouched,
+                              final int y, final int px0, final int px1)
+    {
+        if (DO_MONITORS) {
+            RendererContext.stats.mon_rdr_copyAARow.start();
+        }
+
+        // skip useless pixels above boundary
+        final int px_bbox1 = Math.min(px1, bboxX1);
+
+        if (DO_LOG_BOUNDS) {
+            MarlinUtils.logInfo("row RLE = [" + px0 + " ... " + px_bbox1
+                                + " (" + px1 + ") [ for y=" + y);
+        }
+
+        final int row = y - bboxY0;
+
+        // update pixel range:
+        rowAAx0[row] = px0;      // first pixel inclusive
+        rowAAx1[row] = px_bbox1; //  last pixel exclusive
+        rowAAEnc[row] = 1;       // RLE encoding
+
+        final int len = px_bbox1 - px0;
+
+        // get current position:
+        final int pos = rowAARLEPos;
+        // update row index and decoding cursor to current position:
+        rowAAChunkIndex[row] = pos;
+        rowAACursor[row] = pos;
+        // update row data:
+        int[] _rowAARLE = rowAARLE;
+        // ensure rowAARLE capacity (at most 1 run per touched position + 2):
+        final int maxRuns = Math.min(len, nTouched + 2);
+        if (_rowAARLE.length < pos + maxRuns) {
+            if (DO_STATS) {
+                RendererContext.stats.stat_array_marlincache_rowAARLE
+                    .add(pos + maxRuns);
+            }
+            rowAARLE = _rowAARLE
+                = rdrCtx.widenDirtyIntArray(_rowAARLE, pos, pos + maxRuns);
+        }
+        if (DO_STATS) {
+            RendererContext.stats.stat_cache_rowAA.add(len);
+        }
+
+        final int from = px0      - bboxX0; // first pixel inclusive
+        final int to   = px_bbox1 - bboxX0; //  last pixel exclusive
+
+        // touched positions in increasing order:
+        Arrays.sort(touched, 0, nTouched);
+
+        int idx = pos;
+        int runStart = from;
+        int runVal = 0;
+        int val = 0, x, i;
+
+        // emit a run on every coverage change at touched positions:
+        for (i = 0; i < nTouched; i++) {
+            x = touched[i];
+            if (x >= to) {
+                break;
+            }
+            // skip duplicates:
+            if ((i != 0) && (x == touched[i - 1])) {
+                continue;
+            }
+            // alphaRow is in [0; MAX_COVERAGE]
+            val += alphaRow[x];
+
+            if (val != runVal) {
+                if (x != runStart) {
+                    // emit run [runStart; x[ with runVal:
+                    idx = addRun(_rowAARLE, idx, runStart, x, runVal);
+                }
+                runStart = x;
+                runVal = val;
+            }
+        }
+        // emit last run [runStart; to[ with runVal:
+        idx = addRun(_rowAARLE, idx, runStart, to, runVal);
+
+        if (DO_STATS) {
+            RendererContext.stats.stat_cache_rowAARLE.add(idx - pos);
+        }
+
+        // update current position:
+        rowAARLEPos = idx;
+
+        // update tile used marks:
+        int tx = from >> TILE_SIZE_LG; // inclusive
+        if (tx < tileMin) {
+            tileMin = tx;
+        }
+
+        tx = ((to - 1) >> TILE_SIZE_LG) + 1; // exclusive (+1 to be sure)
+        if (tx > tileMax) {
+            tileMax = tx;
+        }
+
+        // Clear touched alpha positions (and their blocks) for reuse:
+        if (ENABLE_BLOCK_FLAGS) {
+            final int _BLK_SIZE_LG = BLOCK_SIZE_LG;
+
+            for (i = 0; i < nTouched; i++) {
+                x = touched[i];
+                alphaRow[x] = 0;
+                blkFlags[x >> _BLK_SIZE_LG] = 0;
+            }
+        } else {
+            for (i = 0; i < nTouched; i++) {
+                alphaRow[touched[i]] = 0;
+            }
+        }
+
+        if (DO_MONITORS) {
+            RendererContext.stats.mon_rdr_copyAARow.stop();
+        }
+    }
+
+    /**
+     * Copy the given alpha data into the rowAA cache as runs (RLE encoding)
+     * using block flags: untouched blocks only extend the current run
+     * @param blkFlags block flags (1 if the alpha block was modified)
+     * @param alphaRow alpha data to copy from
+     * @param y y pixel coordinate
+     * @param px0 first pixel inclusive x0
+     * @param px1 last pixel exclusive x1
+     */
+    void copyAARowRLE_WithBlockFlags(final int[] blkFlags,
+                                     final int[] alphaRow, final int y,
+                                     final int px0, final int px1)
+    {
+        if (DO_MONITORS) {
+            RendererContext.stats.mon_rdr_copyAARow.start();
+        }
+
+        // skip useless pixels above boundary
+        final int px_bbox1 = Math.min(px1, bboxX1);
+
+        if (DO_LOG_BOUNDS) {
+            MarlinUtils.logInfo("row RLE = [" + px0 + " ... " + px_bbox1
+                                + " (" + px1 + ") [ for y=" + y);
+        }
+
+        final int row = y - bboxY0;
+
+        // update pixel range:
+        rowAAx0[row] = px0;      // first pixel inclusive
+        rowAAx1[row] = px_bbox1; //  last pixel exclusive
+        rowAAEnc[row] = 1;       // RLE encoding
+
+        final int len = px_bbox1 - px0;
+
+        // get current position:
+        final int pos = rowAARLEPos;
+        // update row index and decoding cursor to current position:
+        rowAAChunkIndex[row] = pos;
+        rowAACursor[row] = pos;
+        // update row data:
+        int[] _rowAARLE = rowAARLE;
+        // ensure rowAARLE capacity (worst case: 1 run per pixel):
+        if (_rowAARLE.length < pos + len) {
+            if (DO_STATS) {
+                RendererContext.stats.stat_array_marlincache_rowAARLE
+                    .add(pos + len);
+            }
+            rowAARLE = _rowAARLE
+                = rdrCtx.widenDirtyIntArray(_rowAARLE, pos, pos + len);
+        }
+        if (DO_STATS) {
+            RendererContext.stats.stat_cache_rowAA.add(len);
+        }
+
+        final int from = px0      - bboxX0; // first pixel inclusive
+        final int to   = px_bbox1 - bboxX0; //  last pixel exclusive
+
+        final int _BLK_SIZE_LG = BLOCK_SIZE_LG;
+
+        int idx = pos;
+        int runStart = from;
+        int runVal = 0;
+        int x = from, val = 0, end;
+
+        // walk touched blocks only and emit a run on every coverage change:
+        for (int b = from >> _BLK_SIZE_LG, bmax = (to - 1) >> _BLK_SIZE_LG;
+             b <= bmax; b++)
+        {
+            end = (b + 1) << _BLK_SIZE_LG;
+            if (end > to) {
+                end = to;
+            }
+
+            if (blkFlags[b] != 0) {
+                for (; x < end; x++) {
+                    // alphaRow is in [0; MAX_COVERAGE]
+                    val += alphaRow[x]; // [from; to[
+
+                    if (val != runVal) {
+                        if (x != runStart) {
+                            // emit run [runStart; x[ with runVal:
+                            idx = addRun(_rowAARLE, idx, runStart, x, runVal);
+                        }
+                        runStart = x;
+                        runVal = val;
+                    }
+                }
+            } else {
+                // constant coverage: extend the current run
+                x = end;
+            }
+        }
+        // emit last run [runStart; to[ with runVal:
+        idx = addRun(_rowAARLE, idx, runStart, to, runVal);
+
+        if (DO_STATS) {
+            RendererContext.stats.stat_cache_rowAARLE.add(idx - pos);
+        }
+
+        // update current position:
+        rowAARLEPos = idx;
+
+        // update tile used marks:
+        int tx = from >> TILE_SIZE_LG; // inclusive
+        if (tx < tileMin) {
+            tileMin = tx;
+        }
+
+        tx = ((to - 1) >> TILE_SIZE_LG) + 1; // exclusive (+1 to be sure)
+        if (tx > tileMax) {
+            tileMax = tx;
+        }
+
+        // Clear alpha row (touched blocks only) for reuse:
+        clearAlphaRow(blkFlags, alphaRow, from, px1 - bboxX0);
+
+        if (DO_MONITORS) {
+            RendererContext.stats.mon_rdr_copyAARow.stop();
+        }
+    }
+
+    /**
+     * Clear the touched blocks of the given alpha row and their flags
+     * @param blkFlags block flags (1 if the alpha block was modified)
+     * @param alphaRow alpha data to clear
+     * @param from first index inclusive
+     * @param to last index exclusive
+     */
+    private static void clearAlphaRow(final int[] blkFlags,
+                                      final int[] alphaRow,
+                                      final int from, final int to)
+    {
+        if (DO_LOG_BOUNDS) {
+            MarlinUtils.logInfo("clear = [" + from + " ... " + to + "[");
+        }
+        final int _BLK_SIZE_LG = BLOCK_SIZE_LG;
+
+        for (int b = from >> _BLK_SIZE_LG, bmax = (to - 1) >> _BLK_SIZE_LG;
+             b <= bmax; b++)
+        {
+            if (blkFlags[b] != 0) {
+                blkFlags[b] = 0;
+
+                IntArrayCache.fill(alphaRow, Math.max(from, b << _BLK_SIZE_LG),
+                                   Math.min(to, (b + 1) << _BLK_SIZE_LG), 0);
+            }
+        }
+    }
+
+    /**
+     * Store the run [x0; x1[ with the given coverage and update touchedTile
+     * @param rle RLE chunk
+     * @param idx position in the RLE chunk
+     * @param x0 first pixel inclusive (relative to bboxX0)
+     * @param x1 last pixel exclusive (relative to bboxX0)
+     * @param val coverage in [0; MAX_AA_ALPHA]
+     * @return next position in the RLE chunk
+     */
+    private int addRun(final int[] rle, final int idx,
+                       int x0, final int x1, final int val)
+    {
+        rle[idx] = ((x1 + bboxX0) << 8) | (ALPHA_MAP[val] & 0xFF);
+
+        if (val != 0) {
+            // update touchedTile (run may span several tiles):
+            final int[] touchedLine = touchedTile;
+            final int _TILE_SIZE_LG = TILE_SIZE_LG;
+
+            int tx = x0 >> _TILE_SIZE_LG;
+            for (int tend = (tx + 1) << _TILE_SIZE_LG; x1 > tend;
+                 tend += TILE_SIZE)
+            {
+                touchedLine[tx++] += val * (tend - x0);
+                x0 = tend;
+            }
+            touchedLine[tx] += val * (x1 - x0);
+        }
+        return idx + 1;
+    }
+
     int alphaSumInTile(final int x) {
         return touchedTile[(x - bboxX0) >> TILE_SIZE_LG];
     }
@@ -39,6 +39,12 @@ interface MarlinConst {
 
     // do statistics
     static final boolean DO_STATS = MarlinProperties.isDoStats();
+    // do production metrics (thread-safe counters and histograms)
+    static final boolean DO_METRICS = MarlinProperties.isDoMetrics();
+    // emit JFR events (if jdk.jfr is available)
+    static final boolean USE_JFR = MarlinProperties.isUseJFR();
+    // register the MarlinRendererMXBean in the platform MBeanServer
+    static final boolean USE_JMX = MarlinProperties.isUseJMX();
     // do monitors
     static final boolean DO_MONITORS = MarlinProperties.isDoMonitors();
     // do checks
@@ -66,6 +72,69 @@ interface MarlinConst {
     // flag to use line simplifier
     static final boolean USE_SIMPLIFIER = MarlinProperties.isUseSimplifier();
 
+    // flag to track touched pixel blocks in the alpha line
+    static final boolean ENABLE_BLOCK_FLAGS = MarlinProperties.isUseBlockFlags();
+
+    // flag to cull path segments outside the clip before Dasher, Stroker
+    // and Renderer
+    static final boolean ENABLE_CLIP = MarlinProperties.isUseClip();
+
+    // flag to flatten curves using a segment count computed up front from
+    // the control polygon (flatness-driven subdivision)
+    static final boolean ENABLE_FLATNESS = MarlinProperties.isUseFlatness();
+
+    // flag to store edges off-heap (Unsafe malloc / realloc) instead of
+    // using int[] arrays
+    static final boolean USE_OFF_HEAP_EDGES = MarlinProperties.isUseOffHeap();
+
+    // flag to share the largest cached arrays between renderer contexts
+    static final boolean USE_SHARED_CACHE = MarlinProperties.isUseSharedCache();
+
+    // array cache budgets in bytes (0 = unlimited):
+    // per renderer context
+    static final long CACHE_CONTEXT_BUDGET
+        = MarlinProperties.getCacheContextBudgetKB() * 1024L;
+    // all renderer contexts
+    static final long CACHE_GLOBAL_BUDGET
+        = ((long) MarlinProperties.getCacheGlobalBudgetMB()) << 20;
+    // trim policy: release array caches not needed during the last N
+    // renderings or T nanoseconds (0 = disabled)
+    static final int CACHE_TRIM_RENDERS = MarlinProperties.getCacheTrimRenders();
+    static final long CACHE_TRIM_IDLE_NS
+        = MarlinProperties.getCacheTrimIdleTimeout() * 1000000L;
+    // flag to apply budgets and trim policy on every context dispose
+    static final boolean USE_CACHE_BUDGET = (CACHE_CONTEXT_BUDGET != 0L)
+        || (CACHE_GLOBAL_BUDGET != 0L) || (CACHE_TRIM_RENDERS != 0)
+        || (CACHE_TRIM_IDLE_NS != 0L);
+
+    // flag to cache stroked outlines (StrokeCache)
+    static final boolean USE_STROKE_CACHE = MarlinProperties.isUseStrokeCache();
+    // minimum number of path segments to cache a stroked path
+    static final int STROKE_CACHE_MIN_SEGMENTS
+        = MarlinProperties.getStrokeCacheMinSegments();
+
+    // flag to blend coverage rows directly into IntArgb, IntRgb or 3ByteBgr
+    // rasters (opaque color, SrcOver) without alpha tiles (AAShapePipe)
+    static final boolean USE_DIRECT_BLEND = MarlinProperties.isUseDirectBlend();
+
+    // flag to store mostly solid coverage rows as runs (RLE)
+    static final boolean ENABLE_RLE = MarlinProperties.isUseRLE();
+    // minimum row width (pixels) to use RLE encoding
+    static final int RLE_MIN_WIDTH = MarlinProperties.getRLEMinWidth();
+
+    // flag to rasterize tile lines in parallel (large shapes)
+    static final boolean ENABLE_PARALLEL = MarlinProperties.isUseParallel();
+    // number of parallel threads (and bands per batch)
+    static final int PARALLEL_THREADS = MarlinProperties.getParallelThreads();
+    // minimum shape height (pixels) to rasterize in parallel
+    static final int PARALLEL_MIN_HEIGHT = MarlinProperties.getParallelMinHeight();
+    // flag to stroke huge open polylines by pieces in parallel
+    static final boolean ENABLE_PARALLEL_STROKE
+        = MarlinProperties.isUseParallelStroke();
+    // minimum number of polyline segments to stroke in parallel
+    static final int PARALLEL_STROKE_MIN_SEGMENTS
+        = MarlinProperties.getParallelStrokeMinSegments();
+
     // flag to enable logs related bounds checks
     static final boolean DO_LOG_BOUNDS = false;
 
@@ -110,4 +179,9 @@ interface MarlinConst {
 
     public static final int TILE_SIZE_LG = MarlinProperties.getTileSize_Log2();
     public static final int TILE_SIZE = 1 << TILE_SIZE_LG; // 32 by default
+
+    // block size (alpha line flags) can not exceed the tile size
+    public static final int BLOCK_SIZE_LG
+        = Math.min(MarlinProperties.getBlockSize_Log2(), TILE_SIZE_LG);
+    public static final int BLOCK_SIZE = 1 << BLOCK_SIZE_LG; // 32 by default
 }
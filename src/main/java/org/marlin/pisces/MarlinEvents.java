@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.marlin.pisces;
+
+import static org.marlin.pisces.MarlinUtils.logInfo;
+
+/**
+ * Java Flight Recorder events emitted by the Marlin renderer.
+ * The event classes (JFRMarlinEvents) are compiled from src/jfr/java when the
+ * build JDK provides jdk.jfr and loaded reflectively: this class does not
+ * depend on jdk.jfr and events are disabled if the implementation is missing.
+ */
+abstract class MarlinEvents {
+
+    static final String OP_FILL = "fill";
+    static final String OP_STROKE = "stroke";
+    static final String OP_PARALLELOGRAM = "parallelogram";
+    static final String OP_STROKE_TO = "strokeTo";
+    static final String OP_FILL_BATCH = "fillBatch";
+    static final String OP_MASK = "mask";
+
+    static final String IMPL_CLASS = "org.marlin.pisces.JFRMarlinEvents";
+
+    // event implementation or null if jdk.jfr is not available
+    private static final MarlinEvents INSTANCE = loadInstance();
+
+    private static MarlinEvents loadInstance() {
+        try {
+            return (MarlinEvents) Class.forName(IMPL_CLASS).newInstance();
+        } catch (ReflectiveOperationException roe) {
+            logInfo("JFR events disabled: " + roe);
+        } catch (LinkageError le) {
+            // jdk.jfr missing:
+            logInfo("JFR events disabled: " + le);
+        } catch (SecurityException se) {
+            logInfo("JFR events disabled: " + se);
+        }
+        return null;
+    }
+
+    /**
+     * @return true if the JFR events are available
+     */
+    static boolean isAvailable() {
+        return (INSTANCE != null);
+    }
+
+    /**
+     * Begin a shape rendering event if enabled by a recording
+     * @return event instance or null if disabled
+     */
+    static Object begin() {
+        return INSTANCE.beginEvent();
+    }
+
+    /**
+     * Set the shape attributes at the end of the path processing:
+     * the event is committed if there is nothing to render (null bbox),
+     * later by tilesDone() otherwise
+     */
+    static void shapeDone(final Object event, final String operation,
+                          final boolean dashed, final int windingRule,
+                          final int segments, final int edges,
+                          final int[] bbox)
+    {
+        INSTANCE.shapeEventDone(event, operation, dashed, windingRule,
+                                segments, edges, bbox);
+    }
+
+    /**
+     * Set the tile counts and commit the event
+     */
+    static void tilesDone(final Object event, final int emptyTiles,
+                          final int fullTiles, final int partialTiles)
+    {
+        INSTANCE.tilesEventDone(event, emptyTiles, fullTiles, partialTiles);
+    }
+
+    abstract Object beginEvent();
+
+    abstract void shapeEventDone(Object event, String operation,
+                                 boolean dashed, int windingRule,
+                                 int segments, int edges, int[] bbox);
+
+    abstract void tilesEventDone(Object event, int emptyTiles,
+                                 int fullTiles, int partialTiles);
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.marlin.pisces;
+
+import java.awt.BasicStroke;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import sun.nio.ch.DirectBuffer;
+
+/**
+ * Rasterizes shapes directly into 8-bit antialiased coverage masks
+ * (byte arrays or byte buffers) without any BufferedImage, Graphics2D or
+ * compositing pipeline (hit testing, collision masks, texture atlases).
+ * <p>
+ * The mask covers the device area [0; width[ x [0; height[: pixel (x, y)
+ * is stored at offset + y * stride + x and holds the coverage in
+ * [0; 255]. All pixels of the mask area are written (0 outside the shape).
+ * The transform maps the shape to this device area (use a translation to
+ * render another region). The Renderer, MarlinCache and tile arrays of
+ * the current thread's RendererContext are reused, so rasterization does
+ * not allocate besides the shape's path iterator.
+ */
+public final class MarlinMask {
+
+    private static final MarlinRenderingEngine ENGINE
+        = new MarlinRenderingEngine();
+
+    private MarlinMask() {
+        // no instance
+    }
+
+    /**
+     * Rasterize the given shape into the given byte array
+     *
+     * @param s the shape to be rendered
+     * @param at the transform to be applied to the shape (and stroke) or
+     *           null for identity
+     * @param bs if non-null, the stroke to draw the shape, otherwise the
+     *           shape is filled
+     * @param mask coverage mask
+     * @param offset offset of pixel (0, 0) in the mask
+     * @param stride number of bytes between two mask rows
+     * @param width mask width in pixels
+     * @param height mask height in pixels
+     * @return true if any pixel is covered
+     * @throws IllegalArgumentException if the mask area does not fit in
+     *         the array
+     */
+    public static boolean render(final Shape s, final AffineTransform at,
+                                 final BasicStroke bs, final byte[] mask,
+                                 final int offset, final int stride,
+                                 final int width, final int height)
+    {
+        if (isEmpty(width, height)) {
+            return false;
+        }
+        checkArea(mask.length, offset, stride, width, height);
+
+        return ENGINE.renderMask(s, at, bs, mask, 0L,
+                                 offset, stride, width, height);
+    }
+
+    /**
+     * Rasterize the given shape into the given byte buffer (absolute
+     * offset, the buffer position and limit are ignored)
+     *
+     * @param s the shape to be rendered
+     * @param at the transform to be applied to the shape (and stroke) or
+     *           null for identity
+     * @param bs if non-null, the stroke to draw the shape, otherwise the
+     *           shape is filled
+     * @param mask coverage mask (direct or array-backed buffer)
+     * @param offset offset of pixel (0, 0) in the buffer
+     * @param stride number of bytes between two mask rows
+     * @param width mask width in pixels
+     * @param height mask height in pixels
+     * @return true if any pixel is covered
+     * @throws IllegalArgumentException if the mask area does not fit in
+     *         the buffer capacity or if the buffer is neither direct nor
+     *         backed by an accessible array
+     * @throws ReadOnlyBufferException if the buffer is read-only
+     */
+    public static boolean render(final Shape s, final AffineTransform at,
+                                 final BasicStroke bs, final ByteBuffer mask,
+                                 final int offset, final int stride,
+                                 final int width, final int height)
+    {
+        if (mask.isReadOnly()) {
+            throw new ReadOnlyBufferException();
+        }
+        if (isEmpty(width, height)) {
+            return false;
+        }
+        checkArea(mask.capacity(), offset, stride, width, height);
+
+        if (mask.hasArray()) {
+            return ENGINE.renderMask(s, at, bs, mask.array(), 0L,
+                                     mask.arrayOffset() + offset, stride,
+                                     width, height);
+        }
+        if (!(mask instanceof DirectBuffer)) {
+            throw new IllegalArgumentException("Unsupported buffer: " + mask);
+        }
+        return ENGINE.renderMask(s, at, bs, null,
+                                 ((DirectBuffer) mask).address(),
+                                 offset, stride, width, height);
+    }
+
+    private static boolean isEmpty(final int width, final int height) {
+        if ((width < 0) || (height < 0)) {
+            throw new IllegalArgumentException("Invalid mask size: "
+                                               + width + " x " + height);
+        }
+        return (width == 0) || (height == 0);
+    }
+
+    private static void checkArea(final int length, final int offset,
+                                  final int stride, final int width,
+                                  final int height)
+    {
+        if ((offset < 0) || (stride < width)
+            || (offset + (height - 1L) * stride + width > length))
+        {
+            throw new IllegalArgumentException("Invalid mask area: offset="
+                + offset + " stride=" + stride + " size=" + width + " x "
+                + height + " length=" + length);
+        }
+    }
+}
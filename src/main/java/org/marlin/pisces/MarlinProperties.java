@@ -41,6 +41,54 @@ public final class MarlinProperties {
         return getBoolean("sun.java2d.renderer.useThreadLocal", "false");
     }
 
+    /**
+     * Return the number of renderings performed by a thread before it gets
+     * its own (thread local) renderer context: previous renderings borrow a
+     * context from the shared pool (ThreadLocal mode). Virtual threads always
+     * borrow a shared context.
+     *
+     * @return 1 (no borrowing by default) <= min uses < 1024
+     */
+    public static int getThreadLocalMinUses() {
+        return getInteger("sun.java2d.renderer.threadLocal.minUses", 1, 1, 1024);
+    }
+
+    public static boolean isUsePool() {
+        return getBoolean("sun.java2d.renderer.usePool", "false");
+    }
+
+    /**
+     * Return the maximum number of pooled renderer contexts (pool mode or
+     * shared pool in ThreadLocal mode)
+     *
+     * @return 1 < max contexts < 1024 (available processors by default)
+     */
+    public static int getPoolMaxContexts() {
+        return getInteger("sun.java2d.renderer.pool.maxContexts",
+                          Runtime.getRuntime().availableProcessors(), 1, 1024);
+    }
+
+    /**
+     * Return the delay (ms) after which idle renderer contexts are trimmed
+     * (pool mode)
+     *
+     * @return 0 (disabled) < idle timeout < 1 day (60s by default)
+     */
+    public static int getPoolIdleTimeout() {
+        return getInteger("sun.java2d.renderer.pool.idleTimeout", 60000,
+                          0, 24 * 3600 * 1000);
+    }
+
+    /**
+     * Return the maximum delay (ms) to wait for a released renderer context
+     * when the pool is full before creating a temporary context (pool mode)
+     *
+     * @return 0 (no wait) < max wait < 10s (10ms by default)
+     */
+    public static int getPoolMaxWait() {
+        return getInteger("sun.java2d.renderer.pool.maxWait", 10, 0, 10000);
+    }
+
     /**
      * Return the initial pixel size used to define initial arrays
      * (tile AA chunk, alpha line, buckets)
@@ -81,18 +129,206 @@ public final class MarlinProperties {
         return getInteger("sun.java2d.renderer.tileSize_log2", 5, 3, 8);
     }
 
+    /**
+     * Return the log(2) corresponding to the block size in pixels
+     * (block flags in the alpha line)
+     *
+     * @return 3 (8 pixels) < block size < 8 (256 pixels)
+     * (5 by default ie 32 pixels)
+     */
+    public static int getBlockSize_Log2() {
+        return getInteger("sun.java2d.renderer.blockSize_log2", 5, 3, 8);
+    }
+
     // optimisation parameters
 
     public static boolean isUseSimplifier() {
         return getBoolean("sun.java2d.renderer.useSimplifier", "false");
     }
 
+    public static boolean isUseBlockFlags() {
+        return getBoolean("sun.java2d.renderer.useBlockFlags", "true");
+    }
+
+    public static boolean isUseClip() {
+        return getBoolean("sun.java2d.renderer.useClip", "true");
+    }
+
+    public static boolean isUseFlatness() {
+        return getBoolean("sun.java2d.renderer.useFlatness", "false");
+    }
+
+    public static boolean isUseOffHeap() {
+        return getBoolean("sun.java2d.renderer.useOffHeap", "false");
+    }
+
+    public static boolean isUseSharedCache() {
+        return getBoolean("sun.java2d.renderer.useSharedCache", "false");
+    }
+
+    /**
+     * Return the byte budget (in megabytes) of the shared array cache
+     *
+     * @return 1 < max size < 4096 (32 by default)
+     */
+    public static int getSharedCacheMaxMB() {
+        return getInteger("sun.java2d.renderer.sharedCache.maxMB", 32, 1, 4096);
+    }
+
+    /**
+     * Return the byte budget (in kilobytes) of the array caches of a
+     * single renderer context
+     *
+     * @return 0 (unlimited) < budget < 1GB (unlimited by default)
+     */
+    public static int getCacheContextBudgetKB() {
+        return getInteger("sun.java2d.renderer.cacheBudget.contextKB", 0,
+                          0, 1024 * 1024);
+    }
+
+    /**
+     * Return the byte budget (in megabytes) of the array caches of all
+     * renderer contexts
+     *
+     * @return 0 (unlimited) < budget < 64GB (unlimited by default)
+     */
+    public static int getCacheGlobalBudgetMB() {
+        return getInteger("sun.java2d.renderer.cacheBudget.globalMB", 0,
+                          0, 64 * 1024);
+    }
+
+    /**
+     * Return the number of renderings without needing cached arrays after
+     * which the array caches of a renderer context are released
+     *
+     * @return 0 (disabled) < renders < 1M (disabled by default)
+     */
+    public static int getCacheTrimRenders() {
+        return getInteger("sun.java2d.renderer.cacheTrim.renders", 0,
+                          0, 1024 * 1024);
+    }
+
+    /**
+     * Return the delay (ms) without needing cached arrays after which the
+     * array caches of a renderer context are released (idle contexts are
+     * swept by the contexts still rendering)
+     *
+     * @return 0 (disabled) < idle timeout < 1 day (disabled by default)
+     */
+    public static int getCacheTrimIdleTimeout() {
+        return getInteger("sun.java2d.renderer.cacheTrim.idleTimeout", 0,
+                          0, 24 * 3600 * 1000);
+    }
+
+    public static boolean isUseStrokeCache() {
+        return getBoolean("sun.java2d.renderer.useStrokeCache", "false");
+    }
+
+    /**
+     * Return the maximum number of cached stroked outlines
+     *
+     * @return 1 < max entries < 65536 (1024 by default)
+     */
+    public static int getStrokeCacheMaxEntries() {
+        return getInteger("sun.java2d.renderer.strokeCache.maxEntries", 1024,
+                          1, 64 * 1024);
+    }
+
+    /**
+     * Return the byte budget (in megabytes) of the stroke cache
+     *
+     * @return 1 < max size < 4096 (16 by default)
+     */
+    public static int getStrokeCacheMaxMB() {
+        return getInteger("sun.java2d.renderer.strokeCache.maxMB", 16, 1, 4096);
+    }
+
+    /**
+     * Return the minimum number of path segments to cache a stroked path
+     *
+     * @return 1 < min segments < 1M (16 by default)
+     */
+    public static int getStrokeCacheMinSegments() {
+        return getInteger("sun.java2d.renderer.strokeCache.minSegments", 16,
+                          1, 1024 * 1024);
+    }
+
+    public static boolean isUseDirectBlend() {
+        return getBoolean("sun.java2d.renderer.useDirectBlend", "true");
+    }
+
+    public static boolean isUseRLE() {
+        return getBoolean("sun.java2d.renderer.useRLE", "true");
+    }
+
+    /**
+     * Return the minimum width (in pixels) of a coverage row to store it
+     * as runs (RLE encoding) in the MarlinCache
+     *
+     * @return 0 < minimum width < 32768 (64 by default)
+     */
+    public static int getRLEMinWidth() {
+        return getInteger("sun.java2d.renderer.rle.minWidth", 64, 0, 32 * 1024);
+    }
+
+    public static boolean isUseParallel() {
+        return getBoolean("sun.java2d.renderer.useParallel", "false");
+    }
+
+    /**
+     * Return the number of threads used to rasterize tile lines in parallel
+     *
+     * @return 1 < threads < 256 (available processors by default)
+     */
+    public static int getParallelThreads() {
+        return getInteger("sun.java2d.renderer.parallel.threads",
+                          Runtime.getRuntime().availableProcessors(), 1, 256);
+    }
+
+    /**
+     * Return the minimum shape height (in pixels) to rasterize its tile lines
+     * in parallel
+     *
+     * @return 64 < minimum height < 1M (2048 by default)
+     */
+    public static int getParallelMinHeight() {
+        return getInteger("sun.java2d.renderer.parallel.minHeight", 2048,
+                          64, 1024 * 1024);
+    }
+
+    public static boolean isUseParallelStroke() {
+        return getBoolean("sun.java2d.renderer.useParallelStroke", "false");
+    }
+
+    /**
+     * Return the minimum number of segments of an open polyline to stroke
+     * it by pieces in parallel
+     *
+     * @return 8192 < minimum segments < 16M (65536 by default)
+     */
+    public static int getParallelStrokeMinSegments() {
+        return getInteger("sun.java2d.renderer.parallelStroke.minSegments",
+                          64 * 1024, 8 * 1024, 16 * 1024 * 1024);
+    }
+
     // debugging parameters
 
     public static boolean isDoStats() {
         return getBoolean("sun.java2d.renderer.doStats", "false");
     }
 
+    public static boolean isDoMetrics() {
+        return getBoolean("sun.java2d.renderer.doMetrics", "false");
+    }
+
+    public static boolean isUseJFR() {
+        return getBoolean("sun.java2d.renderer.useJFR", "false");
+    }
+
+    public static boolean isUseJMX() {
+        return getBoolean("sun.java2d.renderer.useJMX", "false");
+    }
+
     public static boolean isDoMonitors() {
         return getBoolean("sun.java2d.renderer.doMonitors", "false");
     }
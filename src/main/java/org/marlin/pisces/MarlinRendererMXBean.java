@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.marlin.pisces;
+
+import java.util.Map;
+
+/**
+ * Management interface of the Marlin renderer registered in the platform
+ * MBeanServer as "org.marlin.pisces:type=MarlinRenderer"
+ * when enabled (see sun.java2d.renderer.useJMX, false by default)
+ */
+public interface MarlinRendererMXBean {
+
+    /**
+     * Return the renderer counters: production metrics (doMetrics),
+     * debugging statistics (doStats), RendererContext pool metrics and
+     * array cache trimming (cacheBudget / cacheTrim)
+     * @return counters by name
+     */
+    Map<String, Long> getCounters();
+
+    /**
+     * Return true if production metrics are enabled (doMetrics)
+     * @return true if metrics are gathered
+     */
+    boolean isMetricsEnabled();
+
+    /**
+     * Return true if debugging statistics are enabled (doStats)
+     * @return true if statistics are gathered
+     */
+    boolean isStatsEnabled();
+
+    /**
+     * Return the number of RendererContext instances not yet collected
+     * @return live context count
+     */
+    int getLiveContexts();
+
+    /**
+     * Return the number of RendererContext instances created so far
+     * @return created context count
+     */
+    int getCreatedContexts();
+
+    /**
+     * Return the number of cached arrays per array cache bucket over all
+     * live contexts, keyed by cache type and array length
+     * (e.g. "dirtyInt[4096]")
+     * @return cached array count by bucket
+     */
+    Map<String, Long> getArrayCacheOccupancy();
+
+    /**
+     * Return the memory held by array caches over all live contexts
+     * @return cached array size in bytes
+     */
+    long getArrayCacheBytes();
+
+    /**
+     * Return the effective renderer settings (MarlinProperties)
+     * @return setting values by property name
+     */
+    Map<String, String> getProperties();
+
+    /**
+     * Reset all counters (metrics, statistics and pool metrics)
+     */
+    void resetCounters();
+
+    /**
+     * Drop idle pooled contexts, shared cached arrays, cached stroked
+     * outlines and the array caches of every live context
+     * @return number of dropped pooled and band contexts
+     */
+    int trimCaches();
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.marlin.pisces;
+
+import java.lang.management.ManagementFactory;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import static org.marlin.pisces.ArrayCache.ARRAY_SIZES;
+import static org.marlin.pisces.ArrayCache.BUCKETS;
+import static org.marlin.pisces.ArrayCache.DIRTY_BYTE_ARRAY_SIZES;
+import static org.marlin.pisces.MarlinUtils.logInfo;
+import org.marlin.pisces.stats.Monitor;
+import org.marlin.pisces.stats.StatLong;
+import org.marlin.pisces.stats.StripedCounter;
+import org.marlin.pisces.stats.StripedHistogram;
+
+/**
+ * MarlinRendererMXBean implementation registered once in the platform
+ * MBeanServer by MarlinRenderingEngine
+ */
+final class MarlinRendererManagement implements MarlinRendererMXBean {
+
+    static final String OBJECT_NAME = "org.marlin.pisces:type=MarlinRenderer";
+
+    private static boolean registered = false;
+
+    static synchronized void register() {
+        if (registered) {
+            return;
+        }
+        registered = true;
+
+        AccessController.doPrivileged(new PrivilegedAction<Void>() {
+            @Override
+            public Void run() {
+                try {
+                    final MBeanServer server
+                        = ManagementFactory.getPlatformMBeanServer();
+                    final ObjectName name = new ObjectName(OBJECT_NAME);
+
+                    if (!server.isRegistered(name)) {
+                        server.registerMBean(new StandardMBean(
+                            new MarlinRendererManagement(),
+                            MarlinRendererMXBean.class, true), name);
+                    }
+                } catch (JMException jme) {
+                    logInfo("Unable to register " + OBJECT_NAME + ": " + jme);
+                } catch (SecurityException se) {
+                    logInfo("Unable to register " + OBJECT_NAME + ": " + se);
+                }
+                return null;
+            }
+        });
+    }
+
+    private MarlinRendererManagement() {
+        super();
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        final Map<String, Long> counters = new LinkedHashMap<String, Long>(128);
+
+        final RendererMetrics metrics = RendererContext.metrics;
+        if (metrics != null) {
+            for (StripedCounter ctr : metrics.counters) {
+                counters.put(ctr.name, ctr.sum());
+            }
+            for (StripedHistogram hist : metrics.histograms) {
+                counters.put(hist.name + ".count", hist.count());
+                counters.put(hist.name + ".sum", hist.sum());
+                counters.put(hist.name + ".p50", hist.quantile(0.5d));
+                counters.put(hist.name + ".p99", hist.quantile(0.99d));
+            }
+        }
+        final RendererStats stats = RendererContext.stats;
+        if (stats != null) {
+            for (StatLong stat : stats.statistics) {
+                counters.put("stats." + stat.name + ".count", stat.count);
+                counters.put("stats." + stat.name + ".sum", stat.sum);
+            }
+            for (Monitor monitor : stats.monitors) {
+                counters.put("monitor." + monitor.name + ".count",
+                             monitor.count);
+                counters.put("monitor." + monitor.name + ".sum", monitor.sum);
+            }
+        }
+        MarlinRenderingEngine.collectPoolStats(counters);
+
+        counters.put("array.cache.trimmed.bytes",
+                     RendererContext.getTrimmedBytes());
+        counters.put("array.cache.trimmed.arrays",
+                     RendererContext.getTrimmedArrays());
+        if (MarlinConst.CACHE_GLOBAL_BUDGET != 0L) {
+            counters.put("array.cache.budget.bytes",
+                         RendererContext.getCachedBytes());
+        }
+        if (StrokeCache.INSTANCE != null) {
+            StrokeCache.INSTANCE.collectStats(counters);
+        }
+        return counters;
+    }
+
+    @Override
+    public boolean isMetricsEnabled() {
+        return MarlinConst.DO_METRICS;
+    }
+
+    @Override
+    public boolean isStatsEnabled() {
+        return MarlinConst.DO_STATS;
+    }
+
+    @Override
+    public int getLiveContexts() {
+        return RendererContext.getLiveContexts().length;
+    }
+
+    @Override
+    public int getCreatedContexts() {
+        return RendererContext.getCreatedContextCount();
+    }
+
+    /**
+     * Count cached arrays over all live contexts
+     * @return counts for int, dirty int, dirty float and dirty byte caches
+     *         (BUCKETS entries each)
+     */
+    private static long[] countCachedArrays() {
+        final long[] counts = new long[4 * BUCKETS];
+
+        for (RendererContext rdrCtx : RendererContext.getLiveContexts(true)) {
+            final RendererContext.ArrayCachesHolder holder
+                = rdrCtx.peekArrayCachesHolder();
+            if (holder != null) {
+                for (int i = 0; i < BUCKETS; i++) {
+                    counts[i] += holder.intArrayCaches[i].size();
+                    counts[i + BUCKETS]
+                        += holder.dirtyIntArrayCaches[i].size();
+                    counts[i + 2 * BUCKETS]
+                        += holder.dirtyFloatArrayCaches[i].size();
+                    counts[i + 3 * BUCKETS]
+                        += holder.dirtyByteArrayCaches[i].size();
+                }
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Long> getArrayCacheOccupancy() {
+        final long[] counts = countCachedArrays();
+
+        final Map<String, Long> occupancy = new LinkedHashMap<String, Long>(32);
+        for (int i = 0; i < BUCKETS; i++) {
+            occupancy.put("int[" + ARRAY_SIZES[i] + "]", counts[i]);
+        }
+        for (int i = 0; i < BUCKETS; i++) {
+            occupancy.put("dirtyInt[" + ARRAY_SIZES[i] + "]",
+                          counts[i + BUCKETS]);
+        }
+        for (int i = 0; i < BUCKETS; i++) {
+            occupancy.put("dirtyFloat[" + ARRAY_SIZES[i] + "]",
+                          counts[i + 2 * BUCKETS]);
+        }
+        for (int i = 0; i < BUCKETS; i++) {
+            occupancy.put("dirtyByte[" + DIRTY_BYTE_ARRAY_SIZES[i] + "]",
+                          counts[i + 3 * BUCKETS]);
+        }
+        final SharedArrayCache sc = SharedArrayCache.INSTANCE;
+        if (sc != null) {
+            for (int i = SharedArrayCache.MIN_BUCKET; i < BUCKETS; i++) {
+                occupancy.put("shared.int[" + ARRAY_SIZES[i] + "]",
+                              (long) sc.intBuckets[i].size());
+                occupancy.put("shared.dirtyInt[" + ARRAY_SIZES[i] + "]",
+                              (long) sc.dirtyIntBuckets[i].size());
+                occupancy.put("shared.dirtyFloat[" + ARRAY_SIZES[i] + "]",
+                              (long) sc.dirtyFloatBuckets[i].size());
+                occupancy.put("shared.dirtyByte[" + DIRTY_BYTE_ARRAY_SIZES[i]
+                              + "]", (long) sc.dirtyByteBuckets[i].size());
+            }
+        }
+        return occupancy;
+    }
+
+    @Override
+    public long getArrayCacheBytes() {
+        final long[] counts = countCachedArrays();
+
+        long bytes = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            // int and float arrays: 4 bytes per element
+            bytes += 4L * ARRAY_SIZES[i] * (counts[i] + counts[i + BUCKETS]
+                                            + counts[i + 2 * BUCKETS]);
+            bytes += ((long) DIRTY_BYTE_ARRAY_SIZES[i]) * counts[i + 3 * BUCKETS];
+        }
+        if (SharedArrayCache.INSTANCE != null) {
+            bytes += SharedArrayCache.INSTANCE.getUsedBytes();
+        }
+        return bytes;
+    }
+
+    @Override
+    public Map<String, String> getProperties() {
+        return MarlinRenderingEngine.getSettings();
+    }
+
+    @Override
+    public void resetCounters() {
+        final RendererMetrics metrics = RendererContext.metrics;
+        if (metrics != null) {
+            metrics.reset();
+        }
+        final RendererStats stats = RendererContext.stats;
+        if (stats != null) {
+            for (StatLong stat : stats.statistics) {
+                stat.reset();
+            }
+            for (Monitor monitor : stats.monitors) {
+                monitor.reset();
+            }
+        }
+        MarlinRenderingEngine.resetPoolStats();
+        RendererContext.resetTrimStats();
+        if (StrokeCache.INSTANCE != null) {
+            StrokeCache.INSTANCE.resetStats();
+        }
+    }
+
+    @Override
+    public int trimCaches() {
+        // drop array caches now (including idle contexts):
+        RendererContext.dropArrayCaches(Long.MAX_VALUE);
+        if (SharedArrayCache.INSTANCE != null) {
+            SharedArrayCache.INSTANCE.clear();
+        }
+        if (StrokeCache.INSTANCE != null) {
+            StrokeCache.INSTANCE.clear();
+        }
+        int count = MarlinRenderingEngine.trimPools();
+        if (MarlinConst.ENABLE_PARALLEL
+                || MarlinConst.ENABLE_PARALLEL_STROKE)
+        {
+            count += ParallelRenderer.trimBandContexts();
+        }
+
+        if (MarlinConst.LOG_CREATE_CONTEXT) {
+            logInfo("MarlinRenderer: trimCaches: " + count
+                    + " pooled and band contexts dropped");
+        }
+        return count;
+    }
+}
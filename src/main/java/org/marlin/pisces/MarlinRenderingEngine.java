@@ -28,12 +28,21 @@ import java.awt.BasicStroke;
 import java.awt.Shape;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.PathIterator;
+import java.awt.geom.RectangularShape;
+import java.awt.image.Raster;
 import java.lang.ref.Reference;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.security.AccessController;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import org.marlin.geom.Path2D;
 import static org.marlin.pisces.MarlinUtils.logInfo;
 import sun.awt.geom.PathConsumer2D;
+import sun.java2d.loops.SurfaceType;
 import sun.java2d.pipe.AATileGenerator;
 import sun.java2d.pipe.Region;
 import sun.java2d.pipe.RenderingEngine;
@@ -49,12 +58,17 @@ public class MarlinRenderingEngine extends RenderingEngine
 
     private static final float MIN_PEN_SIZE = 1f / NORM_SUBPIXELS;
 
+    private static final float SQRT_2 = (float) Math.sqrt(2d);
+
     /**
      * Public constructor
      */
     public MarlinRenderingEngine() {
         super();
         logSettings(MarlinRenderingEngine.class.getName());
+        if (USE_JMX) {
+            MarlinRendererManagement.register();
+        }
     }
 
     /**
@@ -158,7 +172,16 @@ public class MarlinRenderingEngine extends RenderingEngine
 
         final RendererContext rdrCtx = getRendererContext();
         try {
+            if (USE_JFR_EVENTS) {
+                rdrCtx.jfrEvent = MarlinEvents.begin();
+            }
             strokeTo(rdrCtx, src, at, bs, thin, norm, antialias, consumer);
+
+            if (USE_JFR_EVENTS && (rdrCtx.jfrEvent != null)) {
+                MarlinEvents.shapeDone(rdrCtx.jfrEvent,
+                    MarlinEvents.OP_STROKE_TO, (bs.getDashArray() != null),
+                    PathIterator.WIND_NON_ZERO, rdrCtx.segments, 0, null);
+            }
         } finally {
             // recycle the RendererContext instance
             returnRendererContext(rdrCtx);
@@ -276,6 +299,94 @@ public class MarlinRenderingEngine extends RenderingEngine
                         float[] dashes,
                         float dashphase,
                         PathConsumer2D pc2d)
+    {
+        if (USE_STROKE_CACHE) {
+            final StrokeCache.Key key = rdrCtx.strokeKey;
+            try {
+                if (key.init(src, at, width, normalize.ordinal(), caps, join,
+                             miterlimit, dashes, dashphase))
+                {
+                    strokeCached(rdrCtx, key, src, at, width, normalize, caps,
+                                 join, miterlimit, dashes, dashphase, pc2d);
+                    return;
+                }
+            } finally {
+                key.dispose();
+            }
+        }
+        strokePath(rdrCtx, src, at, width, normalize, caps, join, miterlimit,
+                   dashes, dashphase, pc2d);
+    }
+
+    /**
+     * Replay the cached outline (or stroke the whole path and cache it)
+     * translated by the integer translation of the given transform
+     */
+    private void strokeCached(final RendererContext rdrCtx,
+                              final StrokeCache.Key key,
+                              final Shape src,
+                              final AffineTransform at,
+                              final float width,
+                              final NormMode normalize,
+                              final int caps,
+                              final int join,
+                              final float miterlimit,
+                              final float[] dashes,
+                              final float dashphase,
+                              PathConsumer2D pc2d)
+    {
+        final StrokeCache strokeCache = StrokeCache.INSTANCE;
+        final StrokeCache.Recorder rec = rdrCtx.strokeRecorder;
+        try {
+            StrokeCache.Outline outline = strokeCache.get(key);
+            if (outline == null) {
+                // stroke the whole path (the outline must not depend on clip):
+                final boolean doClip = rdrCtx.doClip;
+                rdrCtx.doClip = false;
+                try {
+                    strokePath(rdrCtx, src, key.getStrokeTransform(at), width,
+                               normalize, caps, join, miterlimit, dashes,
+                               dashphase, rec.init());
+                } finally {
+                    rdrCtx.doClip = doClip;
+                }
+                outline = strokeCache.put(key, rec);
+            }
+            float[] clipRect = null;
+            if (rdrCtx.doClip) {
+                // cull invisible chunks and segments (keeping winding)
+                // before Renderer:
+                clipRect = rdrCtx.clipRect;
+                enlargeClip(clipRect, 1f);
+                pc2d = rdrCtx.transformerPC2D.pathClipper(pc2d, clipRect);
+            }
+            // mark context as DIRTY:
+            rdrCtx.dirty = true;
+
+            outline.replay(pc2d, key.offX, key.offY, clipRect);
+            pc2d.pathDone();
+
+            if (USE_JFR_EVENTS) {
+                rdrCtx.segments = key.numTypes;
+            }
+            // mark context as CLEAN:
+            rdrCtx.dirty = false;
+        } finally {
+            rec.dispose();
+        }
+    }
+
+    private void strokePath(final RendererContext rdrCtx,
+                            Shape src,
+                            AffineTransform at,
+                            float width,
+                            NormMode normalize,
+                            int caps,
+                            int join,
+                            float miterlimit,
+                            float[] dashes,
+                            float dashphase,
+                            PathConsumer2D pc2d)
     {
         // We use strokerat and outat so that in Stroker and Dasher we can work only
         // with the pre-transformation coordinates. This will repeat a lot of
@@ -292,6 +403,9 @@ public class MarlinRenderingEngine extends RenderingEngine
         // transformation after the path processing has been done.
         // We can't do this if normalization is on, because it isn't a good
         // idea to normalize before the transformation is applied.
+        // output consumer (Renderer or not):
+        final PathConsumer2D out = pc2d;
+
         AffineTransform strokerat = null;
         AffineTransform outat = null;
 
@@ -406,6 +520,28 @@ public class MarlinRenderingEngine extends RenderingEngine
 
         pc2d = rdrCtx.stroker.init(pc2d, width, caps, join, miterlimit);
 
+        if (rdrCtx.doClip) {
+            if ((strokerat == null) && (outat == null)) {
+                // Stroker and Dasher work in device space:
+                // enlarge the clip rectangle by the stroke margin
+                // (cap or join extent) + 1 pixel
+                float ext = 1f;
+                if (join == Stroker.JOIN_MITER) {
+                    ext = Math.max(ext, miterlimit);
+                }
+                if (caps == Stroker.CAP_SQUARE) {
+                    ext = Math.max(ext, SQRT_2);
+                }
+                enlargeClip(rdrCtx.clipRect, 0.5f * width * ext + 1f);
+
+                // cull invisible segments before Stroker:
+                pc2d = transformerPC2D.pathClipper(pc2d, rdrCtx.clipRect);
+            } else {
+                // Stroker works in user space:
+                rdrCtx.doClip = false;
+            }
+        }
+
         if (dashes != null) {
             if (!recycleDashes) {
                 dashLen = dashes.length;
@@ -414,7 +550,16 @@ public class MarlinRenderingEngine extends RenderingEngine
                                       recycleDashes);
         }
         pc2d = transformerPC2D.inverseDeltaTransformConsumer(pc2d, strokerat);
-        pathTo(rdrCtx, pi, pc2d);
+
+        if (ENABLE_PARALLEL_STROKE && (dashes == null) && (strokerat == null)
+                && (outat == null) && (out == rdrCtx.renderer))
+        {
+            // stroke huge open polylines by pieces in parallel:
+            rdrCtx.parallelStroker.strokeTo(pi, pc2d, rdrCtx.renderer, width,
+                                            caps, join, miterlimit);
+        } else {
+            pathTo(rdrCtx, pi, pc2d);
+        }
 
         /*
          * Pipeline seems to be:
@@ -431,6 +576,32 @@ public class MarlinRenderingEngine extends RenderingEngine
          */
     }
 
+    private static void enlargeClip(final float[] clipRect, final float margin) {
+        clipRect[0] -= margin;
+        clipRect[1] += margin;
+        clipRect[2] -= margin;
+        clipRect[3] += margin;
+    }
+
+    private static void setClip(final RendererContext rdrCtx,
+                                final Region clip)
+    {
+        setClip(rdrCtx, clip.getLoX(), clip.getLoY(),
+                clip.getWidth(), clip.getHeight());
+    }
+
+    private static void setClip(final RendererContext rdrCtx,
+                                final int x, final int y,
+                                final int width, final int height)
+    {
+        final float[] clipRect = rdrCtx.clipRect;
+        clipRect[0] = y;
+        clipRect[1] = y + height;
+        clipRect[2] = x;
+        clipRect[3] = x + width;
+        rdrCtx.doClip = true;
+    }
+
     private static boolean nearZero(final double num) {
         return Math.abs(num) < 2.0 * Math.ulp(num);
     }
@@ -622,15 +793,16 @@ public class MarlinRenderingEngine extends RenderingEngine
         }
     }
 
-    private static void pathTo(final RendererContext rdrCtx, final PathIterator pi,
-                               final PathConsumer2D pc2d)
+    static void pathTo(final RendererContext rdrCtx, final PathIterator pi,
+                       final PathConsumer2D pc2d)
     {
         // mark context as DIRTY:
         rdrCtx.dirty = true;
 
         final float[] coords = rdrCtx.float6;
+        int segments = 0;
 
-        for (; !pi.isDone(); pi.next()) {
+        for (; !pi.isDone(); pi.next(), segments++) {
             switch (pi.currentSegment(coords)) {
                 case PathIterator.SEG_MOVETO:
                     pc2d.moveTo(coords[0], coords[1]);
@@ -655,6 +827,9 @@ public class MarlinRenderingEngine extends RenderingEngine
         }
         pc2d.pathDone();
 
+        if (USE_JFR_EVENTS) {
+            rdrCtx.segments = segments;
+        }
         // mark context as CLEAN:
         rdrCtx.dirty = false;
     }
@@ -715,17 +890,26 @@ public class MarlinRenderingEngine extends RenderingEngine
                                               boolean normalize,
                                               int[] bbox)
     {
+        final long start = (DO_METRICS) ? System.nanoTime() : 0L;
+
         MarlinTileGenerator ptg = null;
         Renderer r = null;
 
         final RendererContext rdrCtx = getRendererContext();
         try {
+            if (USE_JFR_EVENTS) {
+                rdrCtx.jfrEvent = MarlinEvents.begin();
+            }
             // Test if at is identity:
             final AffineTransform _at = (at != null && !at.isIdentity()) ? at
                                         : null;
 
             final NormMode norm = (normalize) ? NormMode.ON_WITH_AA : NormMode.OFF;
 
+            if (ENABLE_CLIP) {
+                setClip(rdrCtx, clip);
+            }
+
             if (bs == null) {
                 // fill shape:
                 final PathIterator pi = getNormalizingPathIterator(rdrCtx, norm,
@@ -735,8 +919,15 @@ public class MarlinRenderingEngine extends RenderingEngine
                                          clip.getWidth(), clip.getHeight(),
                                          pi.getWindingRule());
 
+                PathConsumer2D pc2d = r;
+                if (ENABLE_CLIP) {
+                    // cull invisible segments (keeping winding) before Renderer:
+                    enlargeClip(rdrCtx.clipRect, 1f);
+                    pc2d = rdrCtx.transformerPC2D.pathClipper(r, rdrCtx.clipRect);
+                }
+
                 // TODO: subdivide quad/cubic curves into monotonic curves ?
-                pathTo(rdrCtx, pi, r);
+                pathTo(rdrCtx, pi, pc2d);
             } else {
                 // draw shape with given stroke:
                 r = rdrCtx.renderer.init(clip.getLoX(), clip.getLoY(),
@@ -748,6 +939,217 @@ public class MarlinRenderingEngine extends RenderingEngine
             if (r.endRendering()) {
                 ptg = rdrCtx.ptg.init();
                 ptg.getBbox(bbox);
+            }
+            if (USE_JFR_EVENTS && (rdrCtx.jfrEvent != null)) {
+                MarlinEvents.shapeDone(rdrCtx.jfrEvent,
+                    (bs == null) ? MarlinEvents.OP_FILL : MarlinEvents.OP_STROKE,
+                    (bs != null) && (bs.getDashArray() != null),
+                    r.getWindingRule(), rdrCtx.segments, r.getEdgesAdded(),
+                    (ptg != null) ? bbox : null);
+            }
+            if (ptg != null) {
+                // note: do not returnRendererContext(rdrCtx)
+                // as it will be called later by MarlinTileGenerator.dispose()
+                r = null;
+            }
+        } finally {
+            if (r != null) {
+                // dispose renderer:
+                r.dispose();
+                // recycle the RendererContext instance
+                MarlinRenderingEngine.returnRendererContext(rdrCtx);
+            }
+        }
+
+        if (DO_METRICS) {
+            RendererContext.metrics.shapeDone(ptg == null,
+                                              System.nanoTime() - start);
+        }
+        // Return null to cancel AA tile generation (nothing to render)
+        return ptg;
+    }
+
+    /**
+     * Return true if the given shape can be filled as is in a batch fill:
+     * its winding rule is non-zero and all its (implicitly closed) subpaths
+     * have the same orientation, so flipping the whole shape according to
+     * its signed area gives winding numbers of the same sign. Other shapes
+     * (even-odd or with opposite subpath orientations) must be filled one
+     * by one.
+     * @param s shape to test
+     * @return true if the shape is safe to fill in a batch fill
+     */
+    public static boolean isUnionSafe(final Shape s) {
+        if (s instanceof RectangularShape) {
+            // rectangles, ellipses, round rectangles and arcs:
+            // single simple contour
+            return true;
+        }
+        final PathIterator pi = s.getPathIterator(null);
+        if (pi.getWindingRule() != PathIterator.WIND_NON_ZERO) {
+            return false;
+        }
+        final float[] coords = new float[6];
+        // twice the signed area of the current subpath:
+        double area = 0.0;
+        int sign = 0;
+        float sx = 0f, sy = 0f, cx = 0f, cy = 0f;
+
+        for (; !pi.isDone(); pi.next()) {
+            final int type = pi.currentSegment(coords);
+
+            if (type == PathIterator.SEG_MOVETO
+                    || type == PathIterator.SEG_CLOSE)
+            {
+                // close the current subpath:
+                area += cross(cx, cy, sx, sy);
+                if (area != 0.0) {
+                    if (sign == 0) {
+                        sign = (area > 0.0) ? 1 : -1;
+                    } else if ((area > 0.0) != (sign > 0)) {
+                        return false;
+                    }
+                }
+                area = 0.0;
+                if (type == PathIterator.SEG_MOVETO) {
+                    sx = coords[0];
+                    sy = coords[1];
+                }
+                cx = sx;
+                cy = sy;
+                continue;
+            }
+            // exact area of the segment (Green's theorem):
+            switch (type) {
+                case PathIterator.SEG_LINETO:
+                    area += cross(cx, cy, coords[0], coords[1]);
+                    cx = coords[0];
+                    cy = coords[1];
+                    break;
+                case PathIterator.SEG_QUADTO:
+                    area += (2.0 * (cross(cx, cy, coords[0], coords[1])
+                                    + cross(coords[0], coords[1],
+                                            coords[2], coords[3]))
+                             + cross(cx, cy, coords[2], coords[3])) / 3.0;
+                    cx = coords[2];
+                    cy = coords[3];
+                    break;
+                case PathIterator.SEG_CUBICTO:
+                    area += (6.0 * (cross(cx, cy, coords[0], coords[1])
+                                    + cross(coords[2], coords[3],
+                                            coords[4], coords[5]))
+                             + 3.0 * (cross(cx, cy, coords[2], coords[3])
+                                      + cross(coords[0], coords[1],
+                                              coords[2], coords[3])
+                                      + cross(coords[0], coords[1],
+                                              coords[4], coords[5]))
+                             + cross(cx, cy, coords[4], coords[5])) / 10.0;
+                    cx = coords[4];
+                    cy = coords[5];
+                    break;
+                default:
+            }
+        }
+        // last subpath:
+        area += cross(cx, cy, sx, sy);
+        return (area == 0.0) || (sign == 0) || ((area > 0.0) == (sign > 0));
+    }
+
+    private static double cross(final float x0, final float y0,
+                                final float x1, final float y1)
+    {
+        return (double) x0 * y1 - (double) x1 * y0;
+    }
+
+    /**
+     * Construct an antialiased tile generator filling the union of the
+     * given shapes in a single Renderer pass and store the bounds of the
+     * tile iteration in the bbox parameter.
+     * Renderer setup, edge bucketing and tile iteration are then done once
+     * per batch instead of once per shape (many small shapes with the same
+     * paint like map markers or scatter plots).
+     * <p>
+     * Every shape is oriented according to its signed area and the batch
+     * is rendered with the non-zero winding rule so overlapping shapes do
+     * not cancel each other. All shapes must be union-safe (see
+     * isUnionSafe()): it gives the exact union for shapes whose contours do
+     * not self-intersect (holes remain holes).
+     *
+     * @param shapes the union-safe shapes to be filled
+     * @param at the transform to be applied to the shapes
+     * @param clip the current clip in effect in device coordinates
+     * @param normalize true if the {@code VALUE_STROKE_NORMALIZE}
+     *                  {@code RenderingHint} is in effect
+     * @param bbox returns the bounds of the iteration
+     * @return the {@code AATileGenerator} instance to be consulted
+     *         for tile coverages, or null if there is no output to render
+     */
+    public AATileGenerator getAATileGenerator(final Shape[] shapes,
+                                              final AffineTransform at,
+                                              final Region clip,
+                                              final boolean normalize,
+                                              final int[] bbox)
+    {
+        final long start = (DO_METRICS) ? System.nanoTime() : 0L;
+
+        MarlinTileGenerator ptg = null;
+        Renderer r = null;
+
+        final RendererContext rdrCtx = getRendererContext();
+        try {
+            if (USE_JFR_EVENTS) {
+                rdrCtx.jfrEvent = MarlinEvents.begin();
+            }
+            // Test if at is identity:
+            final AffineTransform _at = (at != null && !at.isIdentity()) ? at
+                                        : null;
+
+            final NormMode norm = (normalize) ? NormMode.ON_WITH_AA : NormMode.OFF;
+
+            if (ENABLE_CLIP) {
+                setClip(rdrCtx, clip);
+                enlargeClip(rdrCtx.clipRect, 1f);
+            }
+
+            r = rdrCtx.renderer.init(clip.getLoX(), clip.getLoY(),
+                                     clip.getWidth(), clip.getHeight(),
+                                     PathIterator.WIND_NON_ZERO);
+            int segments = 0;
+
+            for (int i = 0; i < shapes.length; i++) {
+                final Shape s = shapes[i];
+                if (DO_CHECKS && !isUnionSafe(s)) {
+                    throw new IllegalArgumentException(
+                        "shape not union-safe: " + s);
+                }
+                final PathIterator pi = getNormalizingPathIterator(rdrCtx, norm,
+                                            s.getPathIterator(_at));
+
+                PathConsumer2D pc2d = r;
+                if (ENABLE_CLIP) {
+                    // cull invisible segments (keeping winding) before Renderer:
+                    pc2d = rdrCtx.transformerPC2D.pathClipper(r, rdrCtx.clipRect);
+                }
+
+                r.beginShape();
+                pathTo(rdrCtx, pi, pc2d);
+                r.endShape();
+
+                if (USE_JFR_EVENTS) {
+                    segments += rdrCtx.segments;
+                }
+            }
+
+            if (r.endRendering()) {
+                ptg = rdrCtx.ptg.init();
+                ptg.getBbox(bbox);
+            }
+            if (USE_JFR_EVENTS && (rdrCtx.jfrEvent != null)) {
+                MarlinEvents.shapeDone(rdrCtx.jfrEvent,
+                    MarlinEvents.OP_FILL_BATCH, false, r.getWindingRule(),
+                    segments, r.getEdgesAdded(), (ptg != null) ? bbox : null);
+            }
+            if (ptg != null) {
                 // note: do not returnRendererContext(rdrCtx)
                 // as it will be called later by MarlinTileGenerator.dispose()
                 r = null;
@@ -761,10 +1163,206 @@ public class MarlinRenderingEngine extends RenderingEngine
             }
         }
 
+        if (DO_METRICS) {
+            RendererContext.metrics.shapeDone(ptg == null,
+                                              System.nanoTime() - start);
+        }
         // Return null to cancel AA tile generation (nothing to render)
         return ptg;
     }
 
+    /**
+     * Rasterize the given shape (fill or draw) into the given 8-bit coverage
+     * mask [0; width[ x [0; height[ in device space (see MarlinMask).
+     * The mask is either the byte array (offset relative to its start) or
+     * the native memory at the given address (offset relative to address)
+     * @return true if any pixel is covered
+     */
+    boolean renderMask(final Shape s, final AffineTransform at,
+                       final BasicStroke bs,
+                       final byte[] mask, final long address,
+                       final int offset, final int stride,
+                       final int width, final int height)
+    {
+        final long start = (DO_METRICS) ? System.nanoTime() : 0L;
+
+        // clear mask:
+        for (int j = 0, idx = offset; j < height; j++, idx += stride) {
+            fillMask(mask, address, idx, width, (byte) 0);
+        }
+
+        boolean covered = false;
+        MarlinTileGenerator ptg = null;
+        Renderer r = null;
+
+        final RendererContext rdrCtx = getRendererContext();
+        try {
+            if (USE_JFR_EVENTS) {
+                rdrCtx.jfrEvent = MarlinEvents.begin();
+            }
+            // Test if at is identity:
+            final AffineTransform _at = (at != null && !at.isIdentity()) ? at
+                                        : null;
+
+            if (ENABLE_CLIP) {
+                setClip(rdrCtx, 0, 0, width, height);
+            }
+
+            if (bs == null) {
+                // fill shape:
+                final PathIterator pi = s.getPathIterator(_at);
+
+                r = rdrCtx.renderer.init(0, 0, width, height,
+                                         pi.getWindingRule());
+
+                PathConsumer2D pc2d = r;
+                if (ENABLE_CLIP) {
+                    // cull invisible segments (keeping winding) before Renderer:
+                    enlargeClip(rdrCtx.clipRect, 1f);
+                    pc2d = rdrCtx.transformerPC2D.pathClipper(r, rdrCtx.clipRect);
+                }
+                pathTo(rdrCtx, pi, pc2d);
+            } else {
+                // draw shape with given stroke:
+                r = rdrCtx.renderer.init(0, 0, width, height,
+                                         PathIterator.WIND_NON_ZERO);
+
+                // thin if the transformed stroke is smaller than the pen:
+                final boolean thin
+                    = (bs.getLineWidth() < userSpaceLineWidth(_at, MIN_PEN_SIZE));
+
+                strokeTo(rdrCtx, s, _at, bs, thin, NormMode.OFF, true, r);
+            }
+            final int[] bbox = rdrCtx.maskBbox;
+            if (r.endRendering()) {
+                ptg = rdrCtx.ptg.init();
+                ptg.getBbox(bbox);
+                covered = true;
+            }
+            if (USE_JFR_EVENTS && (rdrCtx.jfrEvent != null)) {
+                MarlinEvents.shapeDone(rdrCtx.jfrEvent, MarlinEvents.OP_MASK,
+                    (bs != null) && (bs.getDashArray() != null),
+                    r.getWindingRule(), rdrCtx.segments, r.getEdgesAdded(),
+                    (covered) ? bbox : null);
+            }
+            if (ptg != null) {
+                // note: ptg.dispose() recycles the RendererContext
+                r = null;
+
+                final int tw = ptg.getTileWidth();
+                final int th = ptg.getTileHeight();
+                final byte[] tile = (mask != null) ? mask : rdrCtx.getMaskTile();
+
+                for (int y = bbox[1]; y < bbox[3]; y += th) {
+                    final int h = Math.min(th, bbox[3] - y);
+
+                    for (int x = bbox[0]; x < bbox[2]; x += tw) {
+                        final int w = Math.min(tw, bbox[2] - x);
+                        final int idx = offset + y * stride + x;
+
+                        final int a = ptg.getTypicalAlpha();
+                        if (a == 0x00) {
+                            ptg.nextTile();
+                        } else if (a == 0xff) {
+                            ptg.nextTile();
+                            for (int j = 0; j < h; j++) {
+                                fillMask(mask, address, idx + j * stride, w,
+                                         (byte) 0xff);
+                            }
+                        } else if (mask != null) {
+                            ptg.getAlpha(mask, idx, stride);
+                        } else {
+                            ptg.getAlpha(tile, 0, tw);
+                            for (int j = 0; j < h; j++) {
+                                OffHeapArray.UNSAFE.copyMemory(tile,
+                                    OffHeapArray.OFF_BYTE_ARRAY + j * tw,
+                                    null, address + idx + j * stride, w);
+                            }
+                        }
+                    }
+                }
+            }
+        } finally {
+            if (ptg != null) {
+                // dispose cache and renderer, recycle the RendererContext:
+                ptg.dispose();
+            } else if (r != null) {
+                // dispose renderer:
+                r.dispose();
+                // recycle the RendererContext instance
+                MarlinRenderingEngine.returnRendererContext(rdrCtx);
+            }
+        }
+
+        if (DO_METRICS) {
+            RendererContext.metrics.shapeDone(!covered,
+                                              System.nanoTime() - start);
+        }
+        return covered;
+    }
+
+    private static void fillMask(final byte[] mask, final long address,
+                                 final int idx, final int len,
+                                 final byte value)
+    {
+        if (mask != null) {
+            Arrays.fill(mask, idx, idx + len, value);
+        } else {
+            OffHeapArray.UNSAFE.setMemory(address + idx, len, value);
+        }
+    }
+
+    /**
+     * Return true if coverage may be blended directly into rasters
+     * (see blendOpaqueColor)
+     * @return sun.java2d.renderer.useDirectBlend
+     */
+    public static boolean isDirectBlendEnabled() {
+        return USE_DIRECT_BLEND;
+    }
+
+    /**
+     * Blend the coverage of the given tile generator with the given opaque
+     * color (SrcOver) directly into the destination raster, row by row,
+     * instead of iterating alpha tiles. The tile generator is disposed if
+     * the destination is supported (IntArgb, IntRgb or 3ByteBgr).
+     * The caller must ensure that the clip is rectangular and mark the
+     * raster as modified.
+     *
+     * @param aatg tile generator returned by getAATileGenerator()
+     * @param dstType destination surface type
+     * @param raster destination raster
+     * @param argb opaque color
+     * @return false if the destination is not supported (the tile
+     *         generator is left unchanged)
+     */
+    public static boolean blendOpaqueColor(final AATileGenerator aatg,
+                                           final SurfaceType dstType,
+                                           final Raster raster,
+                                           final int argb)
+    {
+        if (!USE_DIRECT_BLEND || !(aatg instanceof MarlinTileGenerator)) {
+            return false;
+        }
+        final int type = RasterBlender.getType(dstType);
+        if (type == RasterBlender.TYPE_NONE) {
+            return false;
+        }
+        final MarlinTileGenerator ptg = (MarlinTileGenerator) aatg;
+        final RasterBlender blender = ptg.getRendererContext().blender;
+
+        if (!blender.init(type, raster, argb)) {
+            return false;
+        }
+        try {
+            ptg.blendRows(blender);
+        } finally {
+            blender.dispose();
+            ptg.dispose();
+        }
+        return true;
+    }
+
     @Override
     public final AATileGenerator getAATileGenerator(double x, double y,
                                                     double dx1, double dy1,
@@ -796,11 +1394,16 @@ public class MarlinRenderingEngine extends RenderingEngine
             ldx1 = ldy1 = ldx2 = ldy2 = 0.0;
         }
 
+        final long start = (DO_METRICS) ? System.nanoTime() : 0L;
+
         MarlinTileGenerator ptg = null;
         Renderer r = null;
 
         final RendererContext rdrCtx = getRendererContext();
         try {
+            if (USE_JFR_EVENTS) {
+                rdrCtx.jfrEvent = MarlinEvents.begin();
+            }
             r = rdrCtx.renderer.init(clip.getLoX(), clip.getLoY(),
                                          clip.getWidth(), clip.getHeight(),
                                          Renderer.WIND_EVEN_ODD);
@@ -829,6 +1432,14 @@ public class MarlinRenderingEngine extends RenderingEngine
             if (r.endRendering()) {
                 ptg = rdrCtx.ptg.init();
                 ptg.getBbox(bbox);
+            }
+            if (USE_JFR_EVENTS && (rdrCtx.jfrEvent != null)) {
+                MarlinEvents.shapeDone(rdrCtx.jfrEvent,
+                    MarlinEvents.OP_PARALLELOGRAM, false, Renderer.WIND_EVEN_ODD,
+                    (innerpgram) ? 10 : 5, r.getEdgesAdded(),
+                    (ptg != null) ? bbox : null);
+            }
+            if (ptg != null) {
                 // note: do not returnRendererContext(rdrCtx)
                 // as it will be called later by MarlinTileGenerator.dispose()
                 r = null;
@@ -842,6 +1453,10 @@ public class MarlinRenderingEngine extends RenderingEngine
             }
         }
 
+        if (DO_METRICS) {
+            RendererContext.metrics.shapeDone(ptg == null,
+                                              System.nanoTime() - start);
+        }
         // Return null to cancel AA tile generation (nothing to render)
         return ptg;
     }
@@ -872,6 +1487,8 @@ public class MarlinRenderingEngine extends RenderingEngine
 
     // --- RendererContext handling ---
     // use ThreadLocal or ConcurrentLinkedQueue to get one RendererContext
+    // (ThreadLocal mode: short-lived or virtual threads borrow contexts from
+    // a shared bounded pool)
     private static final boolean USE_THREAD_LOCAL;
 
     // hard reference
@@ -888,15 +1505,65 @@ public class MarlinRenderingEngine extends RenderingEngine
     private static final ThreadLocal<Object> rdrCtxThreadLocal;
     // RendererContext queue when ThreadLocal is disabled
     private static final ConcurrentLinkedQueue<Object> rdrCtxQueue;
+    // use the bounded striped RendererContext pool
+    private static final boolean USE_POOL;
+    // bounded striped RendererContext pool (pool mode)
+    private static final RendererContextPool rdrCtxPool;
+    // renderings performed by a thread before it gets its own context
+    // (ThreadLocal mode): previous renderings borrow a shared context
+    private static final int TL_MIN_USES;
+    // shared RendererContext pool for short-lived or virtual threads
+    // (ThreadLocal mode)
+    private static final RendererContextPool rdrCtxSharedPool;
+    // Thread.isVirtual() method handle (JDK 21+) or null if unavailable
+    private static final MethodHandle THREAD_IS_VIRTUAL;
+    // thread local marker for virtual threads (checked once per thread)
+    private static final Object VIRTUAL_THREAD = new Object();
+    // emit JFR events (jdk.jfr available and not disabled)
+    static final boolean USE_JFR_EVENTS = USE_JFR && MarlinEvents.isAvailable();
 
     // Static initializer to use TL or CLQ mode
     static {
         // CLQ mode by default:
-        USE_THREAD_LOCAL = MarlinProperties.isUseThreadLocal();
+        // pool mode overrides TL and CLQ modes:
+        USE_POOL = MarlinProperties.isUsePool();
+        USE_THREAD_LOCAL = !USE_POOL && MarlinProperties.isUseThreadLocal();
         rdrCtxThreadLocal = (USE_THREAD_LOCAL) ? new ThreadLocal<Object>()
                                              : null;
-        rdrCtxQueue = (!USE_THREAD_LOCAL) ? new ConcurrentLinkedQueue<Object>()
-                                        : null;
+        rdrCtxQueue = (!USE_THREAD_LOCAL && !USE_POOL)
+                      ? new ConcurrentLinkedQueue<Object>() : null;
+        rdrCtxPool = (USE_POOL) ? new RendererContextPool(
+                                      MarlinProperties.getPoolMaxContexts(),
+                                      MarlinProperties.getPoolIdleTimeout(),
+                                      MarlinProperties.getPoolMaxWait())
+                                : null;
+
+        TL_MIN_USES = (USE_THREAD_LOCAL)
+                      ? MarlinProperties.getThreadLocalMinUses() : 1;
+
+        MethodHandle isVirtual = null;
+        if (USE_THREAD_LOCAL) {
+            try {
+                isVirtual = MethodHandles.publicLookup().findVirtual(
+                                Thread.class, "isVirtual",
+                                MethodType.methodType(boolean.class));
+            } catch (NoSuchMethodException nsme) {
+                // no virtual threads (JDK < 21)
+            } catch (IllegalAccessException iae) {
+                logInfo("Unable to check virtual threads: " + iae);
+            } catch (SecurityException se) {
+                logInfo("Unable to check virtual threads: " + se);
+            }
+        }
+        THREAD_IS_VIRTUAL = isVirtual;
+
+        rdrCtxSharedPool = (USE_THREAD_LOCAL
+                            && ((TL_MIN_USES > 1) || (isVirtual != null)))
+                           ? new RendererContextPool(
+                                 MarlinProperties.getPoolMaxContexts(),
+                                 MarlinProperties.getPoolIdleTimeout(),
+                                 MarlinProperties.getPoolMaxWait())
+                           : null;
 
         // Soft reference by default:
         String refType = AccessController.doPrivileged(
@@ -918,6 +1585,107 @@ public class MarlinRenderingEngine extends RenderingEngine
 
     private static boolean settingsLogged = false;
 
+    /**
+     * Return the effective renderer settings
+     * @return setting values by property name
+     */
+    static Map<String, String> getSettings() {
+        final Map<String, String> settings
+            = new LinkedHashMap<String, String>(64);
+
+        settings.put("sun.java2d.renderer.useThreadLocal",
+                     String.valueOf(USE_THREAD_LOCAL));
+        settings.put("sun.java2d.renderer.threadLocal.minUses",
+                     String.valueOf(TL_MIN_USES));
+        settings.put("sun.java2d.renderer.usePool", String.valueOf(USE_POOL));
+        settings.put("sun.java2d.renderer.pool.maxContexts",
+                     String.valueOf(MarlinProperties.getPoolMaxContexts()));
+        settings.put("sun.java2d.renderer.pool.idleTimeout",
+                     String.valueOf(MarlinProperties.getPoolIdleTimeout()));
+        settings.put("sun.java2d.renderer.pool.maxWait",
+                     String.valueOf(MarlinProperties.getPoolMaxWait()));
+        settings.put("sun.java2d.renderer.useRef",
+                     (REF_TYPE == REF_HARD) ? "hard"
+                     : (REF_TYPE == REF_WEAK) ? "weak" : "soft");
+
+        settings.put("sun.java2d.renderer.pixelsize",
+                     String.valueOf(INITIAL_PIXEL_DIM));
+        settings.put("sun.java2d.renderer.subPixel_log2_X",
+                     String.valueOf(SUBPIXEL_LG_POSITIONS_X));
+        settings.put("sun.java2d.renderer.subPixel_log2_Y",
+                     String.valueOf(SUBPIXEL_LG_POSITIONS_Y));
+        settings.put("sun.java2d.renderer.tileSize_log2",
+                     String.valueOf(TILE_SIZE_LG));
+        settings.put("sun.java2d.renderer.blockSize_log2",
+                     String.valueOf(BLOCK_SIZE_LG));
+
+        settings.put("sun.java2d.renderer.useSimplifier",
+                     String.valueOf(USE_SIMPLIFIER));
+        settings.put("sun.java2d.renderer.useBlockFlags",
+                     String.valueOf(ENABLE_BLOCK_FLAGS));
+        settings.put("sun.java2d.renderer.useClip",
+                     String.valueOf(ENABLE_CLIP));
+        settings.put("sun.java2d.renderer.useFlatness",
+                     String.valueOf(ENABLE_FLATNESS));
+        settings.put("sun.java2d.renderer.useOffHeap",
+                     String.valueOf(USE_OFF_HEAP_EDGES));
+        settings.put("sun.java2d.renderer.useSharedCache",
+                     String.valueOf(USE_SHARED_CACHE));
+        settings.put("sun.java2d.renderer.sharedCache.maxMB",
+                     String.valueOf(MarlinProperties.getSharedCacheMaxMB()));
+        settings.put("sun.java2d.renderer.cacheBudget.contextKB",
+                     String.valueOf(MarlinProperties.getCacheContextBudgetKB()));
+        settings.put("sun.java2d.renderer.cacheBudget.globalMB",
+                     String.valueOf(MarlinProperties.getCacheGlobalBudgetMB()));
+        settings.put("sun.java2d.renderer.cacheTrim.renders",
+                     String.valueOf(CACHE_TRIM_RENDERS));
+        settings.put("sun.java2d.renderer.cacheTrim.idleTimeout",
+                     String.valueOf(MarlinProperties.getCacheTrimIdleTimeout()));
+        settings.put("sun.java2d.renderer.useStrokeCache",
+                     String.valueOf(USE_STROKE_CACHE));
+        settings.put("sun.java2d.renderer.strokeCache.maxEntries",
+                     String.valueOf(MarlinProperties.getStrokeCacheMaxEntries()));
+        settings.put("sun.java2d.renderer.strokeCache.maxMB",
+                     String.valueOf(MarlinProperties.getStrokeCacheMaxMB()));
+        settings.put("sun.java2d.renderer.strokeCache.minSegments",
+                     String.valueOf(STROKE_CACHE_MIN_SEGMENTS));
+        settings.put("sun.java2d.renderer.useDirectBlend",
+                     String.valueOf(USE_DIRECT_BLEND));
+        settings.put("sun.java2d.renderer.useRLE",
+                     String.valueOf(ENABLE_RLE));
+        settings.put("sun.java2d.renderer.rle.minWidth",
+                     String.valueOf(RLE_MIN_WIDTH));
+        settings.put("sun.java2d.renderer.useParallel",
+                     String.valueOf(ENABLE_PARALLEL));
+        settings.put("sun.java2d.renderer.parallel.threads",
+                     String.valueOf(PARALLEL_THREADS));
+        settings.put("sun.java2d.renderer.parallel.minHeight",
+                     String.valueOf(PARALLEL_MIN_HEIGHT));
+        settings.put("sun.java2d.renderer.useParallelStroke",
+                     String.valueOf(ENABLE_PARALLEL_STROKE));
+        settings.put("sun.java2d.renderer.parallelStroke.minSegments",
+                     String.valueOf(PARALLEL_STROKE_MIN_SEGMENTS));
+
+        settings.put("sun.java2d.renderer.doStats", String.valueOf(DO_STATS));
+        settings.put("sun.java2d.renderer.doMetrics",
+                     String.valueOf(DO_METRICS));
+        settings.put("sun.java2d.renderer.doMonitors",
+                     String.valueOf(DO_MONITORS));
+        settings.put("sun.java2d.renderer.doChecks", String.valueOf(DO_CHECKS));
+        settings.put("sun.java2d.renderer.useLogger",
+                     String.valueOf(USE_LOGGER));
+        settings.put("sun.java2d.renderer.logCreateContext",
+                     String.valueOf(LOG_CREATE_CONTEXT));
+        settings.put("sun.java2d.renderer.logUnsafeMalloc",
+                     String.valueOf(LOG_UNSAFE_MALLOC));
+        settings.put("sun.java2d.renderer.useJFR",
+                     String.valueOf(USE_JFR_EVENTS));
+        settings.put("sun.java2d.renderer.useJMX", String.valueOf(USE_JMX));
+        settings.put("sun.java2d.renderer.gamma",
+                     String.valueOf(MarlinProperties.getGamma()));
+        return settings;
+    }
+
     private static void logSettings(final String reClass) {
         // log information at startup
         if (settingsLogged) {
@@ -949,6 +1717,22 @@ public class MarlinRenderingEngine extends RenderingEngine
                 + reClass);
         logInfo("sun.java2d.renderer.useThreadLocal   = "
                 + USE_THREAD_LOCAL);
+        if (USE_THREAD_LOCAL) {
+            logInfo("sun.java2d.renderer.threadLocal.minUses = "
+                    + TL_MIN_USES);
+            logInfo("virtual threads detection            = "
+                    + (THREAD_IS_VIRTUAL != null));
+        }
+        logInfo("sun.java2d.renderer.usePool          = "
+                + USE_POOL);
+        if ((rdrCtxPool != null) || (rdrCtxSharedPool != null)) {
+            logInfo("sun.java2d.renderer.pool.maxContexts = "
+                    + MarlinProperties.getPoolMaxContexts());
+            logInfo("sun.java2d.renderer.pool.idleTimeout = "
+                    + MarlinProperties.getPoolIdleTimeout());
+            logInfo("sun.java2d.renderer.pool.maxWait     = "
+                    + MarlinProperties.getPoolMaxWait());
+        }
         logInfo("sun.java2d.renderer.useRef           = "
                 + refType);
 
@@ -960,14 +1744,70 @@ public class MarlinRenderingEngine extends RenderingEngine
                 + MarlinConst.SUBPIXEL_LG_POSITIONS_Y);
         logInfo("sun.java2d.renderer.tileSize_log2    = "
                 + MarlinConst.TILE_SIZE_LG);
+        logInfo("sun.java2d.renderer.blockSize_log2   = "
+                + MarlinConst.BLOCK_SIZE_LG);
 
         // optimisation parameters
         logInfo("sun.java2d.renderer.useSimplifier    = "
                 + MarlinConst.USE_SIMPLIFIER);
+        logInfo("sun.java2d.renderer.useBlockFlags    = "
+                + MarlinConst.ENABLE_BLOCK_FLAGS);
+        logInfo("sun.java2d.renderer.useClip          = "
+                + MarlinConst.ENABLE_CLIP);
+        logInfo("sun.java2d.renderer.useFlatness      = "
+                + MarlinConst.ENABLE_FLATNESS);
+        logInfo("sun.java2d.renderer.useOffHeap       = "
+                + MarlinConst.USE_OFF_HEAP_EDGES);
+        logInfo("sun.java2d.renderer.useSharedCache   = "
+                + MarlinConst.USE_SHARED_CACHE);
+        if (MarlinConst.USE_SHARED_CACHE) {
+            logInfo("sun.java2d.renderer.sharedCache.maxMB = "
+                    + MarlinProperties.getSharedCacheMaxMB());
+        }
+        if (MarlinConst.USE_CACHE_BUDGET) {
+            logInfo("sun.java2d.renderer.cacheBudget.contextKB = "
+                    + MarlinProperties.getCacheContextBudgetKB());
+            logInfo("sun.java2d.renderer.cacheBudget.globalMB  = "
+                    + MarlinProperties.getCacheGlobalBudgetMB());
+            logInfo("sun.java2d.renderer.cacheTrim.renders     = "
+                    + MarlinConst.CACHE_TRIM_RENDERS);
+            logInfo("sun.java2d.renderer.cacheTrim.idleTimeout = "
+                    + MarlinProperties.getCacheTrimIdleTimeout());
+        }
+        logInfo("sun.java2d.renderer.useStrokeCache   = "
+                + MarlinConst.USE_STROKE_CACHE);
+        if (MarlinConst.USE_STROKE_CACHE) {
+            logInfo("sun.java2d.renderer.strokeCache.maxEntries  = "
+                    + MarlinProperties.getStrokeCacheMaxEntries());
+            logInfo("sun.java2d.renderer.strokeCache.maxMB       = "
+                    + MarlinProperties.getStrokeCacheMaxMB());
+            logInfo("sun.java2d.renderer.strokeCache.minSegments = "
+                    + MarlinConst.STROKE_CACHE_MIN_SEGMENTS);
+        }
+        logInfo("sun.java2d.renderer.useDirectBlend  = "
+                + MarlinConst.USE_DIRECT_BLEND);
+        logInfo("sun.java2d.renderer.useRLE           = "
+                + MarlinConst.ENABLE_RLE);
+        logInfo("sun.java2d.renderer.rle.minWidth     = "
+                + MarlinConst.RLE_MIN_WIDTH);
+        logInfo("sun.java2d.renderer.useParallel      = "
+                + MarlinConst.ENABLE_PARALLEL);
+        logInfo("sun.java2d.renderer.parallel.threads = "
+                + MarlinConst.PARALLEL_THREADS);
+        logInfo("sun.java2d.renderer.parallel.minHeight = "
+                + MarlinConst.PARALLEL_MIN_HEIGHT);
+        logInfo("sun.java2d.renderer.useParallelStroke = "
+                + MarlinConst.ENABLE_PARALLEL_STROKE);
+        if (MarlinConst.ENABLE_PARALLEL_STROKE) {
+            logInfo("sun.java2d.renderer.parallelStroke.minSegments = "
+                    + MarlinConst.PARALLEL_STROKE_MIN_SEGMENTS);
+        }
 
         // debugging parameters
         logInfo("sun.java2d.renderer.doStats          = "
                 + MarlinConst.DO_STATS);
+        logInfo("sun.java2d.renderer.doMetrics        = "
+                + MarlinConst.DO_METRICS);
         logInfo("sun.java2d.renderer.doMonitors       = "
                 + MarlinConst.DO_MONITORS);
         logInfo("sun.java2d.renderer.doChecks         = "
@@ -980,6 +1820,10 @@ public class MarlinRenderingEngine extends RenderingEngine
                 + MarlinConst.LOG_CREATE_CONTEXT);
         logInfo("sun.java2d.renderer.logUnsafeMalloc  = "
                 + MarlinConst.LOG_UNSAFE_MALLOC);
+        logInfo("sun.java2d.renderer.useJFR           = "
+                + MarlinConst.USE_JFR + " (events: " + USE_JFR_EVENTS + ")");
+        logInfo("sun.java2d.renderer.useJMX           = "
+                + MarlinConst.USE_JMX);
 
         // quality settings
         logInfo("Renderer settings:");
@@ -1001,9 +1845,51 @@ public class MarlinRenderingEngine extends RenderingEngine
      */
     @SuppressWarnings({"unchecked"})
     static RendererContext getRendererContext() {
+        if (USE_POOL) {
+            final RendererContext rdrCtx = rdrCtxPool.acquire();
+            if (DO_MONITORS) {
+                RendererContext.stats.mon_pre_getAATileGenerator.start();
+            }
+            return rdrCtx;
+        }
         RendererContext rdrCtx = null;
-        final Object ref = (USE_THREAD_LOCAL) ? rdrCtxThreadLocal.get()
-                           : rdrCtxQueue.poll();
+        Object ref = (USE_THREAD_LOCAL) ? rdrCtxThreadLocal.get()
+                     : rdrCtxQueue.poll();
+
+        if ((rdrCtxSharedPool != null)
+                && ((ref == null) || (ref instanceof Integer)
+                    || (ref == VIRTUAL_THREAD)))
+        {
+            // no context held by this thread: short-lived or virtual thread ?
+            final boolean virtual;
+            if (ref == VIRTUAL_THREAD) {
+                virtual = true;
+            } else if (ref == null && isVirtualThread()) {
+                // remember it to avoid checking again:
+                rdrCtxThreadLocal.set(VIRTUAL_THREAD);
+                virtual = true;
+            } else {
+                virtual = false;
+            }
+            final int uses = (ref instanceof Integer) ? ((Integer) ref) + 1 : 1;
+            final boolean shortLived = !virtual && (uses < TL_MIN_USES);
+
+            if (shortLived || virtual) {
+                if (shortLived) {
+                    // count renderings (small integers are cached):
+                    rdrCtxThreadLocal.set(Integer.valueOf(uses));
+                }
+                // borrow a context from the shared pool:
+                rdrCtx = rdrCtxSharedPool.acquire();
+                rdrCtx.borrowed = true;
+
+                if (DO_MONITORS) {
+                    RendererContext.stats.mon_pre_getAATileGenerator.start();
+                }
+                return rdrCtx;
+            }
+            ref = null;
+        }
         if (ref != null) {
             // resolve reference:
             rdrCtx = (REF_TYPE == REF_HARD) ? ((RendererContext) ref)
@@ -1023,6 +1909,77 @@ public class MarlinRenderingEngine extends RenderingEngine
         return rdrCtx;
     }
 
+    private static boolean isVirtualThread() {
+        if (THREAD_IS_VIRTUAL != null) {
+            try {
+                return (boolean) THREAD_IS_VIRTUAL.invokeExact(Thread.currentThread());
+            } catch (Throwable th) {
+                // ignore
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Log the RendererContext pool metrics (pool waits, temporary contexts)
+     */
+    static void dumpPoolStats() {
+        if (rdrCtxPool != null) {
+            rdrCtxPool.dumpStats("RendererContextPool");
+        }
+        if (rdrCtxSharedPool != null) {
+            rdrCtxSharedPool.dumpStats("RendererContextPool (shared)");
+        }
+    }
+
+    /**
+     * Collect the RendererContext pool metrics into the given map
+     * @param counters map to fill
+     */
+    static void collectPoolStats(final Map<String, Long> counters) {
+        collectPoolStats(counters, "pool", rdrCtxPool);
+        collectPoolStats(counters, "pool.shared", rdrCtxSharedPool);
+    }
+
+    private static void collectPoolStats(final Map<String, Long> counters,
+                                         final String name,
+                                         final RendererContextPool pool)
+    {
+        if (pool != null) {
+            counters.put(name + ".contexts", (long) pool.getPooledCount());
+            counters.put(name + ".waitCount", pool.getWaitCount());
+            counters.put(name + ".waitTime.ns", pool.getWaitTime());
+            counters.put(name + ".temporary", pool.getTemporaryCount());
+        }
+    }
+
+    /**
+     * Reset the RendererContext pool metrics
+     */
+    static void resetPoolStats() {
+        if (rdrCtxPool != null) {
+            rdrCtxPool.resetStats();
+        }
+        if (rdrCtxSharedPool != null) {
+            rdrCtxSharedPool.resetStats();
+        }
+    }
+
+    /**
+     * Drop all idle pooled RendererContext instances
+     * @return number of dropped contexts
+     */
+    static int trimPools() {
+        int count = 0;
+        if (rdrCtxPool != null) {
+            count += rdrCtxPool.trim(System.nanoTime());
+        }
+        if (rdrCtxSharedPool != null) {
+            count += rdrCtxSharedPool.trim(System.nanoTime());
+        }
+        return count;
+    }
+
     /**
      * Reset and return the given RendererContext instance for reuse
      * @param rdrCtx RendererContext instance
@@ -1033,7 +1990,12 @@ public class MarlinRenderingEngine extends RenderingEngine
         if (DO_MONITORS) {
             RendererContext.stats.mon_pre_getAATileGenerator.stop();
         }
-        if (!USE_THREAD_LOCAL) {
+        if (USE_POOL) {
+            rdrCtxPool.release(rdrCtx);
+        } else if (rdrCtx.borrowed) {
+            rdrCtx.borrowed = false;
+            rdrCtxSharedPool.release(rdrCtx);
+        } else if (!USE_THREAD_LOCAL) {
             rdrCtxQueue.offer(rdrCtx.reference);
         }
     }
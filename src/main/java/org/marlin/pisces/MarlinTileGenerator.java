@@ -32,8 +32,12 @@ final class MarlinTileGenerator implements AATileGenerator, MarlinConst {
                                                       * MAX_AA_ALPHA;
 
     private final Renderer rdr;
-    private final MarlinCache cache;
+    // cache of the current tile line
+    private MarlinCache cache;
     private int x, y;
+    // tile counters and tile stage start (metrics and JFR events)
+    private int tilesEmpty, tilesFull, tilesPartial;
+    private long tilesStart;
 
     MarlinTileGenerator(Renderer r) {
         this.rdr = r;
@@ -41,9 +45,14 @@ final class MarlinTileGenerator implements AATileGenerator, MarlinConst {
     }
 
     MarlinTileGenerator init() {
+        this.cache = rdr.lineCache;
         this.x = cache.bboxX0;
         this.y = cache.bboxY0;
 
+        if (DO_METRICS || MarlinRenderingEngine.USE_JFR_EVENTS) {
+            tilesEmpty = tilesFull = tilesPartial = 0;
+            tilesStart = System.nanoTime();
+        }
         return this; // fluent API
     }
 
@@ -57,14 +66,28 @@ final class MarlinTileGenerator implements AATileGenerator, MarlinConst {
             // called from AAShapePipe.renderTiles() (render tiles end):
             RendererContext.stats.mon_pipe_renderTiles.stop();
         }
+        if (DO_METRICS) {
+            RendererContext.metrics.tilesDone(tilesEmpty, tilesFull,
+                tilesPartial, System.nanoTime() - tilesStart);
+        }
+        if (MarlinRenderingEngine.USE_JFR_EVENTS
+                && (rdr.rdrCtx.jfrEvent != null))
+        {
+            MarlinEvents.tilesDone(rdr.rdrCtx.jfrEvent, tilesEmpty, tilesFull,
+                                   tilesPartial);
+        }
         // dispose cache:
-        cache.dispose();
+        rdr.cache.dispose();
         // dispose renderer:
         rdr.dispose();
         // recycle the RendererContext instance
         MarlinRenderingEngine.returnRendererContext(rdr.rdrCtx);
     }
 
+    RendererContext getRendererContext() {
+        return rdr.rdrCtx;
+    }
+
     void getBbox(int[] bbox) {
         bbox[0] = cache.bboxX0;
         bbox[1] = cache.bboxY0;
@@ -106,30 +129,51 @@ final class MarlinTileGenerator implements AATileGenerator, MarlinConst {
      */
     @Override
     public int getTypicalAlpha() {
-        int al = cache.alphaSumInTile(x);
-        // Note: if we have a filled rectangle that doesn't end on a tile
-        // border, we could still return 0xff, even though al!=maxTileAlphaSum
-        // This is because if we return 0xff, our users will fill a rectangle
-        // starting at x,y that has width = Math.min(TILE_SIZE, bboxX1-x),
-        // and height min(TILE_SIZE,bboxY1-y), which is what should happen.
-        // However, to support this, we would have to use 2 Math.min's
-        // and 2 multiplications per tile, instead of just 2 multiplications
-        // to compute maxTileAlphaSum. The savings offered would probably
-        // not be worth it, considering how rare this case is.
-        // Note: I have not tested this, so in the future if it is determined
-        // that it is worth it, it should be implemented. Perhaps this method's
-        // interface should be changed to take arguments the width and height
-        // of the current tile. This would eliminate the 2 Math.min calls that
-        // would be needed here, since our caller needs to compute these 2
-        // values anyway.
-        final int alpha = (al == 0x00 ? 0x00
-                              : (al == MAX_TILE_ALPHA_SUM ? 0xff : 0x80));
+        final int alpha = typicalAlpha(x, y);
+
         if (DO_STATS) {
             RendererContext.stats.hist_tile_generator_alpha.add(alpha);
         }
+        if (DO_METRICS || MarlinRenderingEngine.USE_JFR_EVENTS) {
+            countTile(alpha);
+        }
+        return alpha;
+    }
+
+    /**
+     * Classify the tile at (x, y) of the current tile line
+     * @return 0x00 (empty), 0xff (full) or 0x80 (partial)
+     */
+    private int typicalAlpha(final int x, final int y) {
+        final int al = cache.alphaSumInTile(x);
+        // Note: partial tiles on the bbox border (or clipped) are also fully
+        // covered if the alpha sum equals their real area:
+        // our users will fill a rectangle starting at x,y that has
+        // width = min(TILE_SIZE, bboxX1-x) and height = min(TILE_SIZE, bboxY1-y)
+        final int alpha;
+        if (al == 0x00) {
+            alpha = 0x00;
+        } else if (al == MAX_TILE_ALPHA_SUM) {
+            alpha = 0xff;
+        } else {
+            final int tw = Math.min(TILE_SIZE, cache.bboxX1 - x);
+            final int th = Math.min(TILE_SIZE, cache.bboxY1 - y);
+
+            alpha = (al == (tw * th * MAX_AA_ALPHA)) ? 0xff : 0x80;
+        }
         return alpha;
     }
 
+    private void countTile(final int alpha) {
+        if (alpha == 0x00) {
+            tilesEmpty++;
+        } else if (alpha == 0xff) {
+            tilesFull++;
+        } else {
+            tilesPartial++;
+        }
+    }
+
     /**
      * Skips the current tile and moves on to the next tile.
      * Either this method, or the getAlpha() method should be called
@@ -145,6 +189,7 @@ final class MarlinTileGenerator implements AATileGenerator, MarlinConst {
                 // compute for the tile line
                 // [ y; max(y + TILE_SIZE, bboxY1) ]
                 this.rdr.endRendering(y);
+                this.cache = rdr.lineCache;
             }
         }
     }
@@ -166,7 +211,10 @@ final class MarlinTileGenerator implements AATileGenerator, MarlinConst {
         final int[] rowAAChunkIndex = cache.rowAAChunkIndex;
         final int[] rowAAx0 = cache.rowAAx0;
         final int[] rowAAx1 = cache.rowAAx1;
+        final int[] rowAAEnc = cache.rowAAEnc;
+        final int[] rowAACursor = cache.rowAACursor;
         final byte[] rowAAChunk = cache.rowAAChunk;
+        final int[] rowAARLE = cache.rowAARLE;
 
         int x0 = this.x;
         int x1 = x0 + TILE_SIZE;
@@ -223,13 +271,45 @@ final class MarlinTileGenerator implements AATileGenerator, MarlinConst {
                     // get row index:
                     final int pos = rowAAChunkIndex[cy];
 
-                    // Copy AA data (sum alpha data):
-                    final int off = pos - aax0;
+                    final int end = Math.min(aax1, x1);
+
+                    if (rowAAEnc[cy] == 0) {
+                        // Copy AA data (sum alpha data):
+                        final int off = pos - aax0;
+
+                        // note: System.arrayCopy is slower than copy loop
+                        for (; cx < end; cx++, idx++) {
+                            // cx inside tile[x0; x1[ :
+                            tile[idx] = rowAAChunk[cx + off];
+                        }
+                    } else {
+                        // Expand runs (RLE):
+                        int ri = rowAACursor[cy];
+
+                        // restart decoding if the cursor is beyond x0:
+                        if ((ri != pos) && ((rowAARLE[ri - 1] >> 8) > cx)) {
+                            ri = pos;
+                        }
+                        // skip runs ending before cx:
+                        while ((rowAARLE[ri] >> 8) <= cx) {
+                            ri++;
+                        }
 
-                    // note: System.arrayCopy is slower than copy loop
-                    for (int end = Math.min(aax1, x1); cx < end; cx++, idx++) {
-                        // cx inside tile[x0; x1[ :
-                        tile[idx] = rowAAChunk[cx + off];
+                        while (cx < end) {
+                            final int run = rowAARLE[ri];
+                            final int runEnd = run >> 8;
+                            final byte val = (byte) run;
+
+                            final int last = (runEnd < end) ? runEnd : end;
+                            for (; cx < last; cx++, idx++) {
+                                tile[idx] = val;
+                            }
+                            if (last == runEnd) {
+                                ri++;
+                            }
+                        }
+                        // update cursor for the next tile:
+                        rowAACursor[cy] = ri;
                     }
                 }
             }
@@ -256,6 +336,76 @@ final class MarlinTileGenerator implements AATileGenerator, MarlinConst {
         }
     }
 
+    /**
+     * Blends the coverage of all remaining tile lines into the destination
+     * raster row by row (no intermediate tile).
+     * It replaces the getTypicalAlpha() / getAlpha() / nextTile() loop.
+     * @param blender blender initialized with the destination raster
+     */
+    void blendRows(final RasterBlender blender) {
+        if (DO_MONITORS) {
+            RendererContext.stats.mon_ptg_getAlpha.start();
+        }
+        final int bboxX1 = cache.bboxX1;
+        final int bboxY1 = cache.bboxY1;
+
+        for (int y0 = this.y; y0 < bboxY1; y0 += TILE_SIZE) {
+            if (y0 != this.y) {
+                // compute for the tile line [y0; max(y0 + TILE_SIZE, bboxY1)]
+                this.rdr.endRendering(y0);
+                this.cache = rdr.lineCache;
+            }
+            final MarlinCache _cache = cache;
+
+            if (DO_METRICS || MarlinRenderingEngine.USE_JFR_EVENTS) {
+                // classify tiles as getTypicalAlpha() does:
+                for (int x0 = _cache.bboxX0; x0 < bboxX1; x0 += TILE_SIZE) {
+                    countTile(typicalAlpha(x0, y0));
+                }
+            }
+            final int[] rowAAChunkIndex = _cache.rowAAChunkIndex;
+            final int[] rowAAx0 = _cache.rowAAx0;
+            final int[] rowAAx1 = _cache.rowAAx1;
+            final int[] rowAAEnc = _cache.rowAAEnc;
+            final byte[] rowAAChunk = _cache.rowAAChunk;
+            final int[] rowAARLE = _cache.rowAARLE;
+
+            final int rows = Math.min(TILE_SIZE, bboxY1 - y0);
+
+            for (int cy = 0; cy < rows; cy++) {
+                final int aax0 = rowAAx0[cy]; // inclusive
+                final int aax1 = Math.min(rowAAx1[cy], bboxX1); // exclusive
+
+                if (aax0 >= aax1) {
+                    continue;
+                }
+                final int pos = rowAAChunkIndex[cy];
+
+                if (rowAAEnc[cy] == 0) {
+                    // raw coverage:
+                    blender.blendSpan(aax0, y0 + cy, rowAAChunk, pos,
+                                      aax1 - aax0);
+                } else {
+                    // runs (RLE):
+                    int cx = aax0;
+                    for (int ri = pos; cx < aax1; ri++) {
+                        final int run = rowAARLE[ri];
+                        final int runEnd = Math.min(run >> 8, aax1);
+
+                        blender.fillSpan(cx, y0 + cy, run & 0xff, runEnd - cx);
+                        cx = runEnd;
+                    }
+                }
+            }
+        }
+        // mark all tiles as processed:
+        this.y = bboxY1;
+
+        if (DO_MONITORS) {
+            RendererContext.stats.mon_ptg_getAlpha.stop();
+        }
+    }
+
     static String hex(int v, int d) {
         String s = Integer.toHexString(v);
         while (s.length() < d) {
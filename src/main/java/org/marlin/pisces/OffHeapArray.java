@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.marlin.pisces;
+
+import java.lang.reflect.Field;
+import static org.marlin.pisces.MarlinUtils.logInfo;
+import sun.misc.Cleaner;
+import sun.misc.Unsafe;
+
+/**
+ * Off-heap int array allocated using Unsafe (malloc / realloc / free):
+ * its memory is freed when its parent (RendererContext) is collected.
+ */
+final class OffHeapArray {
+
+    // unsafe reference
+    static final Unsafe UNSAFE;
+    // size of int in bytes
+    static final int SIZE_INT;
+    // offset of the first element of a byte array
+    static final long OFF_BYTE_ARRAY;
+
+    static {
+        try {
+            final Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            UNSAFE = (Unsafe) field.get(null);
+        } catch (Exception e) {
+            throw new InternalError("Unable to get sun.misc.Unsafe instance", e);
+        }
+        SIZE_INT = Unsafe.ARRAY_INT_INDEX_SCALE;
+        OFF_BYTE_ARRAY = Unsafe.ARRAY_BYTE_BASE_OFFSET;
+    }
+
+    /* members */
+    long address;
+    long length;
+
+    OffHeapArray(final Object parent, final long len) {
+        // note: may throw OOME:
+        this.address = UNSAFE.allocateMemory(len);
+        this.length  = len;
+
+        if (MarlinConst.LOG_UNSAFE_MALLOC) {
+            logInfo(System.currentTimeMillis()
+                    + ": OffHeapArray.allocateMemory = "
+                    + len + " to addr = " + this.address);
+        }
+
+        // free the off-heap memory when the parent is collected
+        // (the cleaner does not refer to the parent):
+        Cleaner.create(parent, new OffHeapDisposer(this));
+    }
+
+    /*
+     * As realloc may change the address, updating address is MANDATORY
+     * @param len new array length
+     * @throws OutOfMemoryError if the allocation is refused by the system
+     */
+    void resize(final long len) {
+        // note: may throw OOME:
+        this.address = UNSAFE.reallocateMemory(address, len);
+        this.length  = len;
+
+        if (MarlinConst.LOG_UNSAFE_MALLOC) {
+            logInfo(System.currentTimeMillis()
+                    + ": OffHeapArray.reallocateMemory = "
+                    + len + " to addr = " + this.address);
+        }
+    }
+
+    void free() {
+        if (address != 0L) {
+            UNSAFE.freeMemory(this.address);
+
+            if (MarlinConst.LOG_UNSAFE_MALLOC) {
+                logInfo(System.currentTimeMillis()
+                        + ": OffHeapArray.freeMemory =       "
+                        + this.length
+                        + " at addr = " + this.address);
+            }
+            this.address = 0L;
+        }
+    }
+
+    private static final class OffHeapDisposer implements Runnable {
+        private final OffHeapArray array;
+
+        OffHeapDisposer(final OffHeapArray array) {
+            this.array = array;
+        }
+
+        @Override
+        public void run() {
+            array.free();
+        }
+    }
+}
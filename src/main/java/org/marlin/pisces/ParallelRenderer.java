@@ -0,0 +1,356 @@
+/*
+ * Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.marlin.pisces;
+
+import java.lang.ref.Reference;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parallel tile line rasterization (opt-in): once the edge list is built,
+ * the renderer's edges are read-only so tile lines are rasterized by
+ * batches of bands on a ForkJoinPool. Each band uses its own RendererContext
+ * (crossings, alpha line and MarlinCache) and the tile generator reads the
+ * band caches in order.
+ */
+final class ParallelRenderer implements MarlinConst {
+
+    // shared pool (daemon worker threads), also used by ParallelStroker
+    static final ForkJoinPool POOL = new ForkJoinPool(PARALLEL_THREADS);
+
+    // max band contexts kept in the queue (2 concurrent batches)
+    private static final int BAND_CTX_MAX = 2 * PARALLEL_THREADS;
+
+    // band RendererContext queue (shared by all renderers, bounded)
+    private static final ConcurrentLinkedQueue<Object> bandCtxQueue
+        = new ConcurrentLinkedQueue<Object>();
+    // number of band contexts in the queue
+    private static final AtomicInteger bandCtxCount = new AtomicInteger();
+
+    // owner context
+    private final RendererContext rdrCtx;
+    // renderer (edge list) to rasterize
+    private Renderer rdr;
+
+    // band contexts used by the current batch
+    private final RendererContext[] bandCtxs
+        = new RendererContext[PARALLEL_THREADS];
+    // active edges at each band start as (edge pointer, first crossing) pairs
+    private final int[][] bandActives = new int[PARALLEL_THREADS][];
+    private final int[] bandActiveLens = new int[PARALLEL_THREADS];
+    // band tasks (reused)
+    private final BandTask[] bandTasks = new BandTask[PARALLEL_THREADS];
+    // batch task running band tasks (reused)
+    private final BatchTask batchTask = new BatchTask(bandTasks);
+
+    // tile line range [batchY0; batchY1[ of the current batch
+    private int batchY0, batchY1;
+
+    // active edge tracker: (edge pointer, first crossing) pairs
+    private int[] active;
+    private int activeLen;
+    // next scanline to track
+    private int trackY;
+
+    // +1 to avoid recycling in widenDirtyIntArray()
+    private final int[] active_initial = new int[INITIAL_SMALL_ARRAY + 1]; // 4K
+
+    ParallelRenderer(final RendererContext rdrCtx) {
+        this.rdrCtx = rdrCtx;
+        this.active = active_initial;
+
+        for (int i = 0; i < PARALLEL_THREADS; i++) {
+            bandTasks[i] = new BandTask();
+        }
+    }
+
+    ParallelRenderer init(final Renderer r) {
+        this.rdr = r;
+        this.trackY = r.bbox_spminY;
+        this.activeLen = 0;
+        this.batchY0 = this.batchY1 = Integer.MIN_VALUE;
+
+        if (DO_STATS) {
+            RendererContext.stats.stat_rdr_parallel.add(1);
+        }
+        return this; // fluent API
+    }
+
+    /**
+     * Disposes this parallel renderer:
+     * clean up band contexts before reusing this instance
+     */
+    void dispose() {
+        for (int i = 0; i < PARALLEL_THREADS; i++) {
+            final RendererContext bandCtx = bandCtxs[i];
+            if (bandCtx != null) {
+                bandCtx.cache.dispose();
+                bandCtx.renderer.dispose();
+
+                if (bandActives[i] != null) {
+                    bandCtx.putDirtyIntArray(bandActives[i]);
+                    bandActives[i] = null;
+                }
+                bandCtxs[i] = null;
+                putBandContext(bandCtx);
+            }
+        }
+        if (active != active_initial) {
+            rdrCtx.putDirtyIntArray(active);
+            active = active_initial;
+        }
+        this.rdr = null;
+    }
+
+    /**
+     * Return the cache of the given tile line: rasterize the next batch of
+     * tile lines in parallel if needed
+     * @param pminY first pixel row of the tile line
+     * @return band cache
+     */
+    MarlinCache endRendering(final int pminY) {
+        if (pminY < batchY0 || pminY >= batchY1) {
+            final Renderer _rdr = rdr;
+            final int pmaxY = _rdr.cache.bboxY1;
+
+            int n = 0;
+            int y = pminY;
+
+            for (; (n < PARALLEL_THREADS) && (y < pmaxY); n++, y += TILE_SIZE) {
+                if (bandCtxs[n] == null) {
+                    bandCtxs[n] = getBandContext();
+                }
+                snapshotActiveEdges(n, Math.max(_rdr.bbox_spminY,
+                                                y << SUBPIXEL_LG_POSITIONS_Y));
+            }
+            batchY0 = pminY;
+            batchY1 = y;
+
+            if (DO_STATS) {
+                RendererContext.stats.hist_rdr_parallel_bands.add(n);
+            }
+
+            final BandTask[] tasks = bandTasks;
+            for (int i = 0; i < n; i++) {
+                tasks[i].init(_rdr, bandCtxs[i], bandActives[i],
+                              bandActiveLens[i], pminY + (i << TILE_SIZE_LG));
+            }
+            final BatchTask batch = batchTask;
+            batch.reinitialize();
+            batch.count = n;
+            try {
+                POOL.invoke(batch);
+            } finally {
+                for (int i = 0; i < n; i++) {
+                    tasks[i].init(null, null, null, 0, 0);
+                }
+            }
+        }
+        return bandCtxs[(pminY - batchY0) >> TILE_SIZE_LG].cache;
+    }
+
+    /**
+     * Track active edges up to the given scanline (sequential scan of the
+     * renderer buckets) and store the edges crossing it into the given band
+     * @param band band index
+     * @param spY first scanline of the band
+     */
+    private void snapshotActiveEdges(final int band, final int spY) {
+        // local vars (performance):
+        final Renderer _rdr = rdr;
+        final int[] _edges = _rdr.edges;
+        final long _edgesAddr = _rdr.edgesAddr;
+        final int[] _edgeBuckets = _rdr.edgeBuckets;
+        final int[] _edgeBucketCounts = _rdr.edgeBucketCounts;
+
+        int[] _active = active;
+        int len = activeLen;
+        int i, n, ecur, bucketcount;
+
+        for (int y = trackY, b = y - _rdr.boundsMinY; y < spY; y++, b++) {
+            bucketcount = _edgeBucketCounts[b];
+
+            if (bucketcount != 0) {
+                // last bit set to 1 means that edges ends
+                if ((bucketcount & 0x1) != 0) {
+                    // evict edges ending before y (included):
+                    for (i = 0, n = 0; i < len; i += 2) {
+                        if ((Renderer.getEdge(_edges, _edgesAddr,
+                                _active[i] + Renderer.OFF_YMAX_OR) >> 1) > y)
+                        {
+                            _active[n++] = _active[i];
+                            _active[n++] = _active[i + 1];
+                        }
+                    }
+                    len = n;
+                }
+
+                n = bucketcount >> 1; // number of new edge
+
+                if (n != 0) {
+                    if (_active.length < len + (n << 1)) {
+                        active = _active = rdrCtx.widenDirtyIntArray(_active,
+                                               len, len + (n << 1));
+                    }
+                    for (ecur = _edgeBuckets[b]; n > 0; n--) {
+                        _active[len++] = ecur;
+                        _active[len++] = y;
+                        ecur = Renderer.getEdge(_edges, _edgesAddr,
+                                                ecur + Renderer.OFF_NEXT);
+                    }
+                }
+            }
+        }
+        trackY = spY;
+        activeLen = len;
+
+        // copy edges crossing the scanline spY:
+        final RendererContext bandCtx = bandCtxs[band];
+        int[] bandActive = bandActives[band];
+
+        if (bandActive == null) {
+            bandActive = bandCtx.getDirtyIntArray(Math.max(len, INITIAL_ARRAY));
+        } else if (bandActive.length < len) {
+            bandActive = bandCtx.widenDirtyIntArray(bandActive, 0, len);
+        }
+        for (i = 0, n = 0; i < len; i += 2) {
+            if ((Renderer.getEdge(_edges, _edgesAddr,
+                    _active[i] + Renderer.OFF_YMAX_OR) >> 1) > spY)
+            {
+                bandActive[n++] = _active[i];
+                bandActive[n++] = _active[i + 1];
+            }
+        }
+        bandActives[band] = bandActive;
+        bandActiveLens[band] = n;
+    }
+
+    @SuppressWarnings({"unchecked"})
+    static RendererContext getBandContext() {
+        RendererContext bandCtx = null;
+        Object ref;
+        while ((bandCtx == null) && ((ref = bandCtxQueue.poll()) != null)) {
+            bandCtxCount.decrementAndGet();
+            // resolve reference:
+            bandCtx = (MarlinRenderingEngine.REF_TYPE
+                       == MarlinRenderingEngine.REF_HARD)
+                      ? ((RendererContext) ref)
+                      : ((Reference<RendererContext>) ref).get();
+        }
+        // create a new RendererContext if none is available
+        if (bandCtx == null) {
+            bandCtx = RendererContext.createContext(true);
+        }
+        return bandCtx;
+    }
+
+    static void putBandContext(final RendererContext bandCtx) {
+        // apply cache budgets:
+        bandCtx.dispose();
+
+        // keep at most BAND_CTX_MAX contexts (others are garbage collected):
+        if (bandCtxCount.incrementAndGet() <= BAND_CTX_MAX) {
+            bandCtxQueue.offer(bandCtx.reference);
+        } else {
+            bandCtxCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Drop all band contexts in the queue
+     * @return number of dropped contexts
+     */
+    static int trimBandContexts() {
+        int n = 0;
+        while (bandCtxQueue.poll() != null) {
+            bandCtxCount.decrementAndGet();
+            n++;
+        }
+        return n;
+    }
+
+    static final class BandTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private Renderer src;
+        private RendererContext bandCtx;
+        private int[] active;
+        private int activeLen;
+        private int pminY;
+
+        void init(final Renderer src, final RendererContext bandCtx,
+                  final int[] active, final int activeLen, final int pminY)
+        {
+            this.src = src;
+            this.bandCtx = bandCtx;
+            this.active = active;
+            this.activeLen = activeLen;
+            this.pminY = pminY;
+        }
+
+        @Override
+        protected void compute() {
+            bandCtx.renderer.endRenderingBand(src, active, activeLen, pminY);
+        }
+    }
+
+    // runs the first count band tasks (forks all but the first one)
+    static final class BatchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final BandTask[] tasks;
+        int count;
+
+        BatchTask(final BandTask[] tasks) {
+            this.tasks = tasks;
+        }
+
+        @Override
+        protected void compute() {
+            final BandTask[] _tasks = tasks;
+            final int n = count;
+
+            for (int i = n - 1; i > 0; i--) {
+                _tasks[i].reinitialize();
+                _tasks[i].fork();
+            }
+            _tasks[0].reinitialize();
+            try {
+                _tasks[0].invoke();
+            } finally {
+                // wait for all bands before the tasks are reset:
+                for (int i = 1; i < n; i++) {
+                    _tasks[i].quietlyJoin();
+                }
+            }
+            for (int i = 1; i < n; i++) {
+                // rethrow band exception if any:
+                _tasks[i].join();
+            }
+        }
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.marlin.pisces;
+
+import java.awt.geom.PathIterator;
+import java.util.concurrent.RecursiveAction;
+import sun.awt.geom.PathConsumer2D;
+
+/**
+ * Parallel stroking of huge open polylines (opt-in): the polyline is split
+ * into pieces at join boundaries and each piece is stroked by its own
+ * RendererContext (Stroker and Renderer edge list) on the ParallelRenderer
+ * pool, then the piece edges are appended to the owner Renderer.
+ * Consecutive pieces share one segment with butt caps at the seam: the joins
+ * at both ends of the shared segment are drawn once (as in the sequential
+ * outline) and the overlap is filled once by the non-zero winding rule.
+ */
+final class ParallelStroker implements MarlinConst {
+
+    // minimum number of segments per piece
+    private static final int MIN_PIECE_SEGMENTS = 4096;
+
+    // owner context
+    private final RendererContext rdrCtx;
+
+    // polyline points (x, y)
+    private float[] points;
+
+    // +1 to avoid recycling in widenDirtyFloatArray()
+    private final float[] points_initial = new float[INITIAL_ARRAY + 1]; // 4K
+
+    // stroke attributes of the current polyline
+    private float width;
+    private int join;
+    private float miterlimit;
+
+    ParallelStroker(final RendererContext rdrCtx) {
+        this.rdrCtx = rdrCtx;
+        this.points = points_initial;
+    }
+
+    /**
+     * Stroke the path of the given iterator (device space, no dashes) into
+     * the given Renderer: a single open polyline of at least
+     * PARALLEL_STROKE_MIN_SEGMENTS segments is stroked by pieces in parallel,
+     * any other path is sent to the given sequential stroking pipeline.
+     * @param pi path iterator
+     * @param pc2d sequential stroking pipeline (Stroker to Renderer)
+     * @param r Renderer (end of the pipeline)
+     */
+    void strokeTo(final PathIterator pi, final PathConsumer2D pc2d,
+                  final Renderer r, final float width, final int caps,
+                  final int join, final float miterlimit)
+    {
+        // mark context as DIRTY:
+        rdrCtx.dirty = true;
+
+        try {
+            final float[] coords = rdrCtx.float6;
+            float[] pts = points;
+            int len = 0;
+            boolean polyline = true;
+            int type = PathIterator.SEG_CLOSE;
+
+            // collect the leading moveTo and lineTo points:
+            for (; !pi.isDone(); pi.next()) {
+                type = pi.currentSegment(coords);
+
+                if ((len == 0) ? (type != PathIterator.SEG_MOVETO)
+                               : (type != PathIterator.SEG_LINETO))
+                {
+                    polyline = false;
+                    break;
+                }
+                if (pts.length < len + 2) {
+                    points = pts = rdrCtx.widenDirtyFloatArray(pts, len,
+                                                               len + 2);
+                }
+                pts[len++] = coords[0];
+                pts[len++] = coords[1];
+            }
+            final int nSegs = (len >> 1) - 1;
+
+            if (polyline && (nSegs >= PARALLEL_STROKE_MIN_SEGMENTS)
+                    && (nSegs >= (MIN_PIECE_SEGMENTS << 1)))
+            {
+                this.width = width;
+                this.join = join;
+                this.miterlimit = miterlimit;
+
+                strokePieces(r, pts, len >> 1, caps);
+
+                if (MarlinRenderingEngine.USE_JFR_EVENTS) {
+                    rdrCtx.segments = len >> 1;
+                }
+                // mark context as CLEAN:
+                rdrCtx.dirty = false;
+            } else {
+                // replay the collected points then the rest of the path:
+                if (len != 0) {
+                    pc2d.moveTo(pts[0], pts[1]);
+                    for (int i = 2; i < len; i += 2) {
+                        pc2d.lineTo(pts[i], pts[i + 1]);
+                    }
+                }
+                if (polyline) {
+                    // note: the path iterator is done (and disposed)
+                    pc2d.pathDone();
+
+                    if (MarlinRenderingEngine.USE_JFR_EVENTS) {
+                        rdrCtx.segments = len >> 1;
+                    }
+                    // mark context as CLEAN:
+                    rdrCtx.dirty = false;
+                } else {
+                    // current segment (already normalized):
+                    switch (type) {
+                        case PathIterator.SEG_MOVETO:
+                            pc2d.moveTo(coords[0], coords[1]);
+                            break;
+                        case PathIterator.SEG_LINETO:
+                            pc2d.lineTo(coords[0], coords[1]);
+                            break;
+                        case PathIterator.SEG_QUADTO:
+                            pc2d.quadTo(coords[0], coords[1],
+                                        coords[2], coords[3]);
+                            break;
+                        case PathIterator.SEG_CUBICTO:
+                            pc2d.curveTo(coords[0], coords[1],
+                                         coords[2], coords[3],
+                                         coords[4], coords[5]);
+                            break;
+                        case PathIterator.SEG_CLOSE:
+                            pc2d.closePath();
+                            break;
+                        default:
+                    }
+                    pi.next();
+                    MarlinRenderingEngine.pathTo(rdrCtx, pi, pc2d);
+                }
+            }
+        } finally {
+            if (points != points_initial) {
+                rdrCtx.putDirtyFloatArray(points);
+                points = points_initial;
+            }
+        }
+    }
+
+    /**
+     * Stroke the given polyline by pieces: the first piece is stroked into
+     * the given Renderer by the owner context, the other pieces by band
+     * contexts whose edges are then appended to the given Renderer
+     */
+    private void strokePieces(final Renderer r, final float[] pts,
+                              final int nPts, final int caps)
+    {
+        final int nSegs = nPts - 1;
+        final int nPieces = Math.max(1, Math.min(PARALLEL_THREADS,
+                                                 nSegs / MIN_PIECE_SEGMENTS));
+
+        final PieceTask[] tasks = new PieceTask[nPieces];
+        int n = 0;
+
+        // piece n strokes points [start; end]:
+        for (int start = 0, end = 0; end < nPts - 1; n++) {
+            if (n == nPieces - 1) {
+                end = nPts - 1;
+            } else {
+                end = Math.max(start + 2,
+                               (int) (((long) nSegs * (n + 1)) / nPieces));
+                // the seam segment [end - 1; end] gives the direction
+                // of the joins at both ends (not degenerate):
+                while ((end < nPts - 1)
+                        && (pts[2 * end - 2] == pts[2 * end])
+                        && (pts[2 * end - 1] == pts[2 * end + 1]))
+                {
+                    end++;
+                }
+                end = Math.min(end, nPts - 1);
+            }
+            final RendererContext ctx;
+            final Renderer pr;
+            if (n == 0) {
+                ctx = rdrCtx;
+                pr = r;
+            } else {
+                ctx = ParallelRenderer.getBandContext();
+                pr = ctx.renderer.init(
+                         r.boundsMinX >> SUBPIXEL_LG_POSITIONS_X,
+                         r.boundsMinY >> SUBPIXEL_LG_POSITIONS_Y,
+                         (r.boundsMaxX - r.boundsMinX) >> SUBPIXEL_LG_POSITIONS_X,
+                         (r.boundsMaxY - r.boundsMinY) >> SUBPIXEL_LG_POSITIONS_Y,
+                         PathIterator.WIND_NON_ZERO);
+            }
+            tasks[n] = new PieceTask(ctx, pr, pts, start, end,
+                                     (n == 0) ? caps : Stroker.CAP_BUTT,
+                                     (end == nPts - 1) ? caps
+                                                       : Stroker.CAP_BUTT);
+            // next piece shares the seam segment:
+            start = end - 1;
+        }
+        final int nTasks = n;
+
+        if (DO_STATS) {
+            RendererContext.stats.hist_str_parallel_pieces.add(nTasks);
+        }
+
+        // note: band contexts are dropped if a piece fails
+        ParallelRenderer.POOL.invoke(new RecursiveAction() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void compute() {
+                for (int i = 1; i < nTasks; i++) {
+                    tasks[i].fork();
+                }
+                tasks[0].invoke();
+                for (int i = nTasks - 1; i >= 1; i--) {
+                    tasks[i].join();
+                }
+            }
+        });
+
+        // append piece edges (sequential):
+        for (int i = 1; i < nTasks; i++) {
+            final RendererContext ctx = tasks[i].ctx;
+            r.addEdges(ctx.renderer);
+
+            ctx.renderer.dispose();
+            ParallelRenderer.putBandContext(ctx);
+        }
+    }
+
+    final class PieceTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final RendererContext ctx;
+        private final Renderer out;
+        private final float[] pts;
+        private final int start, end;
+        private final int startCap, endCap;
+
+        PieceTask(final RendererContext ctx, final Renderer out,
+                  final float[] pts, final int start, final int end,
+                  final int startCap, final int endCap)
+        {
+            this.ctx = ctx;
+            this.out = out;
+            this.pts = pts;
+            this.start = start;
+            this.end = end;
+            this.startCap = startCap;
+            this.endCap = endCap;
+        }
+
+        @Override
+        protected void compute() {
+            final RendererContext _ctx = ctx;
+
+            PathConsumer2D pc2d = out;
+            if (USE_SIMPLIFIER) {
+                pc2d = _ctx.simplifier.init(pc2d);
+            }
+            pc2d = _ctx.stroker.init(pc2d, width, endCap, join, miterlimit)
+                               .caps(startCap, endCap);
+
+            if (rdrCtx.doClip) {
+                // cull invisible segments before Stroker (same clip):
+                if (_ctx != rdrCtx) {
+                    System.arraycopy(rdrCtx.clipRect, 0, _ctx.clipRect, 0, 4);
+                    _ctx.doClip = true;
+                }
+                pc2d = _ctx.transformerPC2D.pathClipper(pc2d, _ctx.clipRect);
+            }
+
+            final float[] _pts = pts;
+            pc2d.moveTo(_pts[2 * start], _pts[2 * start + 1]);
+            for (int i = 2 * (start + 1), e = 2 * end; i <= e; i += 2) {
+                pc2d.lineTo(_pts[i], _pts[i + 1]);
+            }
+            pc2d.pathDone();
+
+            if (_ctx != rdrCtx) {
+                _ctx.doClip = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.marlin.pisces;
+
+/**
+ * LSD radix sort (8 bits per pass) to sort two arrays at the same time
+ * (x & y) by x values using external auxiliary storage. It is stable
+ * (like MergeSort) and its cost is linear: it is faster than MergeSort or
+ * insertion sort when many crossings are (re)ordered on every scanline.
+ */
+final class RadixSort {
+
+    // radix bits per pass
+    static final int RADIX_LG = 8;
+    // radix (number of buckets per pass)
+    static final int RADIX = 1 << RADIX_LG;
+    private static final int RADIX_MASK = RADIX - 1;
+
+    private RadixSort() {
+        // no-op
+    }
+
+    /**
+     * Sort x/y arrays [0; toIndex[ by x values in [minX; maxX]
+     * Outputs are stored in x/y arrays
+     * @param x keys
+     * @param y values
+     * @param auxX auxiliary storage for keys
+     * @param auxY auxiliary storage for values
+     * @param toIndex end index (exclusive)
+     * @param minX minimum key
+     * @param maxX maximum key
+     * @param counts bucket counts (RADIX length)
+     */
+    static void sort(final int[] x, final int[] y,
+                     final int[] auxX, final int[] auxY,
+                     final int toIndex, final int minX, final int maxX,
+                     final int[] counts)
+    {
+        if ((toIndex > x.length) || (toIndex > y.length)
+                || (toIndex > auxX.length) || (toIndex > auxY.length)
+                || (counts.length != RADIX)) {
+            // explicit check to avoid bound checks within hot loops (below):
+            throw new ArrayIndexOutOfBoundsException("bad arguments: toIndex="
+                                                     + toIndex);
+        }
+        // keys relative to minX (unsigned range):
+        final int range = maxX - minX;
+
+        int[] srcX = x, srcY = y, dstX = auxX, dstY = auxY, tmp;
+        int i, k, sum, c;
+
+        for (int shift = 0; (shift < 32) && ((range >>> shift) != 0);
+                shift += RADIX_LG)
+        {
+            // histogram:
+            for (i = 0; i < RADIX; i++) {
+                counts[i] = 0;
+            }
+            for (i = 0; i < toIndex; i++) {
+                counts[((srcX[i] - minX) >>> shift) & RADIX_MASK]++;
+            }
+            // exclusive prefix sum (bucket start indices):
+            for (i = 0, sum = 0; i < RADIX; i++) {
+                c = counts[i];
+                counts[i] = sum;
+                sum += c;
+            }
+            // stable scatter:
+            for (i = 0; i < toIndex; i++) {
+                k = counts[((srcX[i] - minX) >>> shift) & RADIX_MASK]++;
+                dstX[k] = srcX[i];
+                dstY[k] = srcY[i];
+            }
+            // swap buffers:
+            tmp = srcX; srcX = dstX; dstX = tmp;
+            tmp = srcY; srcY = dstY; dstY = tmp;
+        }
+
+        if (srcX != x) {
+            // odd number of passes: copy back data into (x, y):
+            System.arraycopy(srcX, 0, x, 0, toIndex);
+            System.arraycopy(srcY, 0, y, 0, toIndex);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.marlin.pisces;
+
+import java.awt.image.Raster;
+import sun.awt.image.ByteComponentRaster;
+import sun.awt.image.IntegerComponentRaster;
+import sun.java2d.loops.SurfaceType;
+
+/**
+ * Blends coverage spans with an opaque color (SrcOver) directly into
+ * IntArgb, IntRgb or 3ByteBgr rasters (fused tile generation and
+ * compositing). Blending uses the same 8-bit arithmetic as the native
+ * SrcOver MaskFill loops (mul8table / div8table) to produce identical
+ * pixels.
+ */
+final class RasterBlender {
+
+    static final int TYPE_NONE = 0;
+    static final int TYPE_INT_ARGB = 1;
+    static final int TYPE_INT_RGB = 2;
+    static final int TYPE_3BYTE_BGR = 3;
+
+    // div8table increments: div8(v, a) = (2^23 + v * inc) >> 24 (v < a)
+    private static final long[] DIV8_INC = new long[256];
+
+    static {
+        for (int a = 1; a < 256; a++) {
+            DIV8_INC[a] = (0xff000000L + (a >> 1)) / a;
+        }
+    }
+
+    // destination type
+    private int type = TYPE_NONE;
+    // destination data (dirty)
+    private int[] ints;
+    private byte[] bytes;
+    // offset of pixel (0, 0), scanline and pixel strides
+    private int offset, scanStride, pixelStride;
+    // band offsets (3ByteBgr)
+    private int offR, offG, offB;
+    // color components and pixel value (full coverage)
+    private int srcR, srcG, srcB, pixel;
+
+    RasterBlender() {
+        // only instance in RendererContext
+    }
+
+    /**
+     * Return the blending type for the given destination surface type
+     * @param st surface type
+     * @return TYPE_INT_ARGB, TYPE_INT_RGB, TYPE_3BYTE_BGR or TYPE_NONE if
+     *         not supported
+     */
+    static int getType(final SurfaceType st) {
+        if (st == SurfaceType.IntArgb) {
+            return TYPE_INT_ARGB;
+        }
+        if (st == SurfaceType.IntRgb) {
+            return TYPE_INT_RGB;
+        }
+        if (st == SurfaceType.ThreeByteBgr) {
+            return TYPE_3BYTE_BGR;
+        }
+        return TYPE_NONE;
+    }
+
+    /**
+     * Prepare blending into the given raster
+     * @param dstType blending type (getType())
+     * @param raster destination raster
+     * @param argb opaque color
+     * @return false if the raster layout is not supported
+     */
+    boolean init(final int dstType, final Raster raster, final int argb) {
+        switch (dstType) {
+            case TYPE_INT_ARGB:
+            case TYPE_INT_RGB:
+                if (!(raster instanceof IntegerComponentRaster)) {
+                    return false;
+                }
+                final IntegerComponentRaster icr
+                    = (IntegerComponentRaster) raster;
+                ints = icr.getDataStorage();
+                scanStride = icr.getScanlineStride();
+                pixelStride = icr.getPixelStride();
+                offset = icr.getDataOffset(0);
+                break;
+            case TYPE_3BYTE_BGR:
+                if (!(raster instanceof ByteComponentRaster)) {
+                    return false;
+                }
+                final ByteComponentRaster bcr = (ByteComponentRaster) raster;
+                bytes = bcr.getDataStorage();
+                scanStride = bcr.getScanlineStride();
+                pixelStride = bcr.getPixelStride();
+                offset = 0;
+                offR = bcr.getDataOffset(0);
+                offG = bcr.getDataOffset(1);
+                offB = bcr.getDataOffset(2);
+                break;
+            default:
+                return false;
+        }
+        // raster origin:
+        offset -= raster.getMinY() * scanStride
+                  + raster.getMinX() * pixelStride;
+
+        type = dstType;
+        srcR = (argb >> 16) & 0xff;
+        srcG = (argb >>  8) & 0xff;
+        srcB =  argb        & 0xff;
+        pixel = (dstType == TYPE_INT_ARGB) ? (argb | 0xff000000)
+                : (argb & 0x00ffffff);
+        return true;
+    }
+
+    /**
+     * Disposes this blender: release the destination data
+     */
+    void dispose() {
+        type = TYPE_NONE;
+        ints = null;
+        bytes = null;
+    }
+
+    static int mul8(final int a, final int b) {
+        return (a * b * 0x10101 + 0x800000) >>> 24;
+    }
+
+    static int div8(final int v, final int a) {
+        return (v >= a) ? 0xff : (int) (((1L << 23) + v * DIV8_INC[a]) >>> 24);
+    }
+
+    /**
+     * Blend the given coverage values into the pixel span [x; x + len[
+     * of row y
+     */
+    void blendSpan(final int x, final int y, final byte[] alpha, int off,
+                   final int len)
+    {
+        int idx = offset + y * scanStride + x * pixelStride;
+
+        for (final int end = off + len; off < end; off++, idx += pixelStride) {
+            final int a = alpha[off] & 0xff;
+            if (a == 0xff) {
+                store(idx);
+            } else if (a != 0) {
+                blend(idx, a);
+            }
+        }
+    }
+
+    /**
+     * Blend the given constant coverage into the pixel span [x; x + len[
+     * of row y
+     */
+    void fillSpan(final int x, final int y, final int alpha, final int len) {
+        if (alpha == 0) {
+            return;
+        }
+        int idx = offset + y * scanStride + x * pixelStride;
+
+        if (alpha == 0xff) {
+            if (type != TYPE_3BYTE_BGR) {
+                final int[] _ints = ints;
+                final int _pixel = pixel;
+                for (int i = 0; i < len; i++, idx += pixelStride) {
+                    _ints[idx] = _pixel;
+                }
+            } else {
+                for (int i = 0; i < len; i++, idx += pixelStride) {
+                    store(idx);
+                }
+            }
+        } else {
+            for (int i = 0; i < len; i++, idx += pixelStride) {
+                blend(idx, alpha);
+            }
+        }
+    }
+
+    private void store(final int idx) {
+        if (type != TYPE_3BYTE_BGR) {
+            ints[idx] = pixel;
+        } else {
+            final byte[] _bytes = bytes;
+            _bytes[idx + offR] = (byte) srcR;
+            _bytes[idx + offG] = (byte) srcG;
+            _bytes[idx + offB] = (byte) srcB;
+        }
+    }
+
+    // SrcOver MaskFill with an opaque color (pathA in ]0; 255[):
+    private void blend(final int idx, final int pathA) {
+        final int dstF = 0xff - pathA;
+
+        switch (type) {
+            case TYPE_INT_ARGB: {
+                final int d = ints[idx];
+                final int dstA = mul8(dstF, d >>> 24);
+                final int resA = pathA + dstA;
+                int r = mul8(pathA, srcR) + mul8(dstA, (d >> 16) & 0xff);
+                int g = mul8(pathA, srcG) + mul8(dstA, (d >>  8) & 0xff);
+                int b = mul8(pathA, srcB) + mul8(dstA,  d        & 0xff);
+                if (resA < 0xff) {
+                    r = div8(r, resA);
+                    g = div8(g, resA);
+                    b = div8(b, resA);
+                }
+                ints[idx] = (resA << 24) | (r << 16) | (g << 8) | b;
+                break;
+            }
+            case TYPE_INT_RGB: {
+                final int d = ints[idx];
+                ints[idx] = ((mul8(pathA, srcR) + mul8(dstF, (d >> 16) & 0xff))
+                             << 16)
+                          | ((mul8(pathA, srcG) + mul8(dstF, (d >>  8) & 0xff))
+                             << 8)
+                          |  (mul8(pathA, srcB) + mul8(dstF,  d        & 0xff));
+                break;
+            }
+            default: {
+                final byte[] _bytes = bytes;
+                _bytes[idx + offR] = (byte) (mul8(pathA, srcR)
+                                     + mul8(dstF, _bytes[idx + offR] & 0xff));
+                _bytes[idx + offG] = (byte) (mul8(pathA, srcG)
+                                     + mul8(dstF, _bytes[idx + offG] & 0xff));
+                _bytes[idx + offB] = (byte) (mul8(pathA, srcB)
+                                     + mul8(dstF, _bytes[idx + offB] & 0xff));
+            }
+        }
+    }
+}
@@ -112,11 +112,33 @@ final class Renderer implements PathConsumer2D, MarlinConst {
     public static final float QUAD_DEC_BND
         = 8f * QUAD_DEC_ERR_SUBPIX; // 8f means 1 subpixel error
 
+    // flatness-driven subdivision (Wang's formula): the segment count n
+    // ensures flattening error <= err given the control polygon second
+    // differences dd: n^2 = d(d-1)/8 * max(|dd|) / err for a degree d curve
+    // cubic factor (same error bound as CUB_DEC_BND):
+    private static final float CUB_FLAT_FACTOR
+        = (3f * 2f / 8f) / CUB_DEC_ERR_SUBPIX;
+    // quadratic factor (same error bound as QUAD_DEC_BND):
+    private static final float QUAD_FLAT_FACTOR
+        = (2f / 8f) / QUAD_DEC_ERR_SUBPIX;
+    // maximum segment count per curve
+    private static final int FLAT_MAX_COUNT = 1 << 16;
+    private static final float FLAT_MAX_COUNT_2
+        = (float) FLAT_MAX_COUNT * FLAT_MAX_COUNT;
+
 //////////////////////////////////////////////////////////////////////////////
 //  SCAN LINE
 //////////////////////////////////////////////////////////////////////////////
+    // radix sort threshold (active edges)
+    private static final int RADIX_SORT_THRESHOLD = 256;
+    // radix sort if more than (1 / 2^lg) active edges were added
+    // (merge sort is faster on almost sorted crossings)
+    private static final int RADIX_SORT_ADDS_LG = 2;
+
     // crossings ie subpixel edge x coordinates
     private int[] crossings;
+    // radix sort bucket counts
+    private final int[] radixCounts = new int[RadixSort.RADIX];
     // auxiliary storage for crossings (merge sort)
     private int[] aux_crossings;
 
@@ -130,6 +152,8 @@ final class Renderer implements PathConsumer2D, MarlinConst {
 
     // max used for both edgePtrs and crossings (stats only)
     private int activeEdgeMaxUsed;
+    // crossing count since the last dispose (metrics)
+    private long crossingCount;
 
     // per-thread initial arrays (large enough to satisfy most usages) (1024)
     private final int[] crossings_initial = new int[INITIAL_SMALL_ARRAY]; // 4K
@@ -139,6 +163,8 @@ final class Renderer implements PathConsumer2D, MarlinConst {
     private final int[] aux_crossings_initial = new int[INITIAL_SMALL_ARRAY]; // 4K
     // +1 to avoid recycling in Helpers.widenArray()
     private final int[] aux_edgePtrs_initial  = new int[INITIAL_SMALL_ARRAY + 1]; // 4K
+    // touched alpha positions of the current pixel row (RLE encoding)
+    private final int[] rowTouched = new int[INITIAL_SMALL_ARRAY]; // 4K
 
 //////////////////////////////////////////////////////////////////////////////
 //  EDGE LIST
@@ -150,17 +176,30 @@ final class Renderer implements PathConsumer2D, MarlinConst {
 
     /** current position in edge arrays (last used mark) */
     private int edgesPos;
+    /** first edge of the current shape (batch fill) */
+    private int shapeEdgesPos;
+    /** twice the signed area of the current shape (batch fill) */
+    private double shapeArea;
+    /** true during a batch fill (shape area accumulated by addLine) */
+    private boolean batch;
 
     // edges [ints] (dirty)
     /** edges (dirty) */
-    private int[] edges;
+    int[] edges;
+    /** edges address (off-heap only) */
+    long edgesAddr;
+    /** edges capacity [ints] */
+    int edgesLen;
 
     /* LBO: very large initial edges array = 96K */
     // +1 to avoid recycling in Helpers.widenArray()
-    private final int[] edges_initial  = new int[INITIAL_EDGES_CAPACITY + 1]; // 96K
+    private final int[] edges_initial
+        = (USE_OFF_HEAP_EDGES) ? null : new int[INITIAL_EDGES_CAPACITY + 1]; // 96K
+    // off-heap edges reused by this renderer (realloc semantics)
+    private final OffHeapArray edges_offHeap;
 
-    private int[] edgeBuckets;
-    private int[] edgeBucketCounts; // 2*newedges + (1 if pruning needed)
+    int[] edgeBuckets;
+    int[] edgeBucketCounts; // 2*newedges + (1 if pruning needed)
     // used range for edgeBuckets / edgeBucketCounts
     private int buckets_minY;
     private int buckets_maxY;
@@ -316,6 +355,114 @@ final class Renderer implements PathConsumer2D, MarlinConst {
         }
     }
 
+    // Flattens the quadratic curve using a segment count computed up front
+    // (flatness-driven subdivision) and plain forward differencing.
+    private void quadFlattenAndAdd(float x0, float y0,
+                                   final Curve c,
+                                   final float x2, final float y2)
+    {
+        // control polygon second difference = (bx, by):
+        final int count = flatCount(QUAD_FLAT_FACTOR
+                                    * norm(Math.abs(c.bx), Math.abs(c.by)));
+
+        if (count > 1) {
+            final float icount = 1f / count; // dt
+            final float icount2 = icount * icount; // dt^2
+
+            final float ddx = c.dbx * icount2;
+            final float ddy = c.dby * icount2;
+            float dx = c.bx * icount2 + c.cx * icount;
+            float dy = c.by * icount2 + c.cy * icount;
+
+            float x1, y1;
+
+            for (int i = count; --i > 0; ) {
+                x1 = x0 + dx;
+                dx += ddx;
+                y1 = y0 + dy;
+                dy += ddy;
+
+                addLine(x0, y0, x1, y1);
+
+                x0 = x1;
+                y0 = y1;
+            }
+        }
+        addLine(x0, y0, x2, y2);
+
+        if (DO_STATS) {
+            RendererContext.stats.stat_rdr_quadBreak.add(count);
+        }
+    }
+
+    // Flattens the cubic curve using a segment count computed up front
+    // (flatness-driven subdivision) and plain forward differencing.
+    private void curveFlattenAndAdd(float x0, float y0,
+                                    final Curve c,
+                                    final float x3, final float y3)
+    {
+        // control polygon second differences:
+        // dd1 = p0 - 2 p1 + p2 = b / 3
+        // dd2 = p1 - 2 p2 + p3 = a + b / 3
+        final float dd1x = c.bx / 3f;
+        final float dd1y = c.by / 3f;
+        final int count = flatCount(CUB_FLAT_FACTOR
+                                    * norm(Math.max(Math.abs(dd1x),
+                                                    Math.abs(c.ax + dd1x)),
+                                           Math.max(Math.abs(dd1y),
+                                                    Math.abs(c.ay + dd1y))));
+
+        if (count > 1) {
+            final float icount  = 1f / count;       // dt
+            final float icount2 = icount * icount;  // dt^2
+            final float icount3 = icount2 * icount; // dt^3
+
+            final float dddx = 2f * c.dax * icount3;
+            final float dddy = 2f * c.day * icount3;
+            float ddx = dddx + c.dbx * icount2;
+            float ddy = dddy + c.dby * icount2;
+            float dx = c.ax * icount3 + c.bx * icount2 + c.cx * icount;
+            float dy = c.ay * icount3 + c.by * icount2 + c.cy * icount;
+
+            float x1, y1;
+
+            for (int i = count; --i > 0; ) {
+                x1 = x0 + dx;
+                dx += ddx;
+                ddx += dddx;
+                y1 = y0 + dy;
+                dy += ddy;
+                ddy += dddy;
+
+                addLine(x0, y0, x1, y1);
+
+                x0 = x1;
+                y0 = y1;
+            }
+        }
+        addLine(x0, y0, x3, y3);
+
+        if (DO_STATS) {
+            RendererContext.stats.stat_rdr_curveBreak.add(count);
+        }
+    }
+
+    private static float norm(final float x, final float y) {
+        return (float) Math.sqrt(x * x + y * y);
+    }
+
+    // segment count = ceil(sqrt(n2)) in [1; FLAT_MAX_COUNT]
+    private static int flatCount(final float n2) {
+        if (!(n2 > 1f)) {
+            // flat or NaN:
+            return 1;
+        }
+        if (n2 >= FLAT_MAX_COUNT_2) {
+            return FLAT_MAX_COUNT;
+        }
+        return (int) Math.ceil(Math.sqrt(n2));
+    }
+
     private void addLine(float x1, float y1, float x2, float y2) {
         if (DO_MONITORS) {
             RendererContext.stats.mon_rdr_addLine.start();
@@ -323,6 +470,11 @@ final class Renderer implements PathConsumer2D, MarlinConst {
         if (DO_STATS) {
             RendererContext.stats.stat_rdr_addLine.add(1);
         }
+        if (batch) {
+            // accumulate the signed area (trapezoid) of the current shape:
+            shapeArea += ((double) x2 - x1) * ((double) y1 + y2);
+        }
+
         int or = 1; // orientation of the line. 1 if y increases, 0 otherwise.
         if (y2 < y1) {
             or = 0;
@@ -393,18 +545,13 @@ final class Renderer implements PathConsumer2D, MarlinConst {
         // local variables for performance:
         final int _SIZEOF_EDGE = SIZEOF_EDGE;
 
-        int[] _edges = edges;
-
-        if (_edges.length < ptr + _SIZEOF_EDGE) {
-            // suppose _edges.length > _SIZEOF_EDGE
+        if (edgesLen < ptr + _SIZEOF_EDGE) {
+            // suppose edgesLen > _SIZEOF_EDGE
             // so doubling size is enough to add needed bytes
-            // double size:
-            final int edgeNewSize = _edges.length << 1;
-            if (DO_STATS) {
-                RendererContext.stats.stat_rdr_edges_resizes.add(edgeNewSize);
-            }
-            edges = _edges = rdrCtx.widenDirtyIntArray(_edges, ptr, edgeNewSize);
+            growEdges(ptr);
         }
+        final int[] _edges = edges;
+        final long _edgesAddr = edgesAddr;
 
 
         // The x value must be bumped up to its position at the next HPC we will evaluate.
@@ -434,14 +581,18 @@ final class Renderer implements PathConsumer2D, MarlinConst {
         final long x1_fixed_biased = (long) (POWER_2_TO_32 * x1_intercept)
                                      + 0x7fffffffL;
         // curx:
-        _edges[ptr /* + OFF_CURX */]  = (int) (x1_fixed_biased >> 32L);
-        _edges[ptr + OFF_ERROR]       = ((int)  x1_fixed_biased) >>> 1;
+        setEdge(_edges, _edgesAddr, ptr /* + OFF_CURX */,
+                (int) (x1_fixed_biased >> 32L));
+        setEdge(_edges, _edgesAddr, ptr + OFF_ERROR,
+                ((int)  x1_fixed_biased) >>> 1);
 
         // inlined scalb(slope, 32):
         final long slope_fixed = (long) (POWER_2_TO_32 * slope);
 
-        _edges[ptr + OFF_BUMP_X]      = (int) (slope_fixed >> 32L);
-        _edges[ptr + OFF_BUMP_ERR]    = ((int)  slope_fixed) >>> 1;
+        setEdge(_edges, _edgesAddr, ptr + OFF_BUMP_X,
+                (int) (slope_fixed >> 32L));
+        setEdge(_edges, _edgesAddr, ptr + OFF_BUMP_ERR,
+                ((int)  slope_fixed) >>> 1);
 
         // copy members:
         final int[] _edgeBuckets      = edgeBuckets;
@@ -452,9 +603,10 @@ final class Renderer implements PathConsumer2D, MarlinConst {
         final int bucketIdx = firstCrossing - _boundsMinY;
 
         // pointer from bucket
-        _edges[ptr + OFF_NEXT ]       = _edgeBuckets[bucketIdx];
+        setEdge(_edges, _edgesAddr, ptr + OFF_NEXT, _edgeBuckets[bucketIdx]);
         // last bit corresponds to the orientation
-        _edges[ptr + OFF_YMAX_OR]     = (lastCrossing << 1) | or;
+        setEdge(_edges, _edgesAddr, ptr + OFF_YMAX_OR,
+                (lastCrossing << 1) | or);
 
         // Update buckets:
         // directly the edge struct "pointer"
@@ -476,9 +628,16 @@ final class Renderer implements PathConsumer2D, MarlinConst {
 
     // Cache to store RLE-encoded coverage mask of the current primitive
     final MarlinCache cache;
+    // Cache holding the current tile line (band cache in parallel mode)
+    MarlinCache lineCache;
+
+    // parallel tile line rasterization (null if disabled)
+    private ParallelRenderer parallel = null;
+    // lazily created parallel renderer
+    private ParallelRenderer parallelInstance = null;
 
     // Bounds of the drawing region, at subpixel precision.
-    private int boundsMinX, boundsMinY, boundsMaxX, boundsMaxY;
+    int boundsMinX, boundsMinY, boundsMaxX, boundsMaxY;
 
     // Current winding rule
     private int windingRule;
@@ -499,13 +658,24 @@ final class Renderer implements PathConsumer2D, MarlinConst {
 
         this.curve = rdrCtx.curve;
 
-        edges = edges_initial;
+        if (USE_OFF_HEAP_EDGES) {
+            edges_offHeap = new OffHeapArray(rdrCtx,
+                ((long) INITIAL_EDGES_CAPACITY) * OffHeapArray.SIZE_INT);
+            edgesAddr = edges_offHeap.address;
+            edgesLen  = INITIAL_EDGES_CAPACITY;
+        } else {
+            edges_offHeap = null;
+            edges    = edges_initial;
+            edgesLen = edges.length;
+        }
         edgeBuckets = edgeBuckets_initial;
         edgeBucketCounts = edgeBucketCounts_initial;
 
         alphaLine  = alphaLine_initial;
+        blkFlags   = blkFlags_initial;
 
         this.cache = rdrCtx.cache;
+        this.lineCache = cache;
 
         // ScanLine:
         crossings     = crossings_initial;
@@ -561,19 +731,63 @@ final class Renderer implements PathConsumer2D, MarlinConst {
         edgeCount = 0;
         activeEdgeMaxUsed = 0;
         edgesPos = 0;
+        shapeEdgesPos = 0;
+        shapeArea = 0.0;
+        batch = false;
 
         return this; // fluent API
     }
 
+    /**
+     * Start a new shape in a batch fill (see endShape())
+     */
+    void beginShape() {
+        batch = true;
+        shapeEdgesPos = edgesPos;
+        shapeArea = 0.0;
+    }
+
+    /**
+     * End the current shape in a batch fill: reverse the orientation of
+     * its edges if its signed area is negative so that all shapes have the
+     * same orientation and overlapping shapes accumulate their winding
+     * (union with the non-zero winding rule)
+     */
+    void endShape() {
+        if (shapeArea < 0.0) {
+            final int[] _edges = edges;
+            final long _edgesAddr = edgesAddr;
+            final int end = edgesPos;
+
+            for (int i = shapeEdgesPos + OFF_YMAX_OR; i < end;
+                    i += SIZEOF_EDGE)
+            {
+                setEdge(_edges, _edgesAddr, i,
+                        getEdge(_edges, _edgesAddr, i) ^ 1);
+            }
+        }
+        shapeEdgesPos = edgesPos;
+        shapeArea = 0.0;
+    }
+
     /**
      * Disposes this renderer and recycle it clean up before reusing this instance
      */
     void dispose() {
+        if (DO_METRICS && (crossingCount != 0L)) {
+            RendererContext.metrics.ctr_crossings.add(crossingCount);
+            crossingCount = 0L;
+        }
+        if (parallel != null) {
+            parallel.dispose();
+            parallel = null;
+            lineCache = cache;
+        }
         if (DO_STATS) {
             RendererContext.stats.stat_rdr_activeEdges.add(activeEdgeMaxUsed);
             RendererContext.stats.stat_rdr_edges.add(edgesPos);
             RendererContext.stats.stat_rdr_edges_count
-                .add(edges.length / SIZEOF_EDGE);
+                .add(edgesLen / SIZEOF_EDGE);
         }
         if (DO_CLEAN_DIRTY) {
             // Force zero-fill dirty arrays:
@@ -603,6 +817,10 @@ final class Renderer implements PathConsumer2D, MarlinConst {
             rdrCtx.putIntArray(alphaLine, 0, 0); // already zero filled
             alphaLine = alphaLine_initial;
         }
+        if (blkFlags != blkFlags_initial) {
+            rdrCtx.putIntArray(blkFlags, 0, 0); // already zero filled
+            blkFlags = blkFlags_initial;
+        }
 
         if (edgeMinY != Float.POSITIVE_INFINITY) {
             // clear used part
@@ -630,15 +848,69 @@ final class Renderer implements PathConsumer2D, MarlinConst {
             rdrCtx.putIntArray(edgeBucketCounts, 0, 0);
             edgeBucketCounts = edgeBucketCounts_initial;
         }
-        if (edges != edges_initial) {
+        if (USE_OFF_HEAP_EDGES) {
+            if (edgesLen != INITIAL_EDGES_CAPACITY) {
+                // shrink off-heap edges to the initial capacity:
+                edges_offHeap.resize(
+                    ((long) INITIAL_EDGES_CAPACITY) * OffHeapArray.SIZE_INT);
+                edgesAddr = edges_offHeap.address;
+                edgesLen  = INITIAL_EDGES_CAPACITY;
+            }
+        } else if (edges != edges_initial) {
             rdrCtx.putDirtyIntArray(edges);
-            edges = edges_initial;
+            edges    = edges_initial;
+            edgesLen = edges.length;
         }
         if (DO_MONITORS) {
             RendererContext.stats.mon_rdr_endRendering.stop();
         }
     }
 
+    private void growEdges(final int ptr) {
+        // double size:
+        growEdges(ptr, edgesLen << 1);
+    }
+
+    private void growEdges(final int ptr, final int edgeNewSize) {
+        if (DO_STATS) {
+            RendererContext.stats.stat_rdr_edges_resizes.add(edgeNewSize);
+        }
+        if (USE_OFF_HEAP_EDGES) {
+            // note: may throw OOME:
+            edges_offHeap.resize(((long) edgeNewSize) * OffHeapArray.SIZE_INT);
+            edgesAddr = edges_offHeap.address;
+            edgesLen  = edgeNewSize;
+        } else {
+            edges    = rdrCtx.widenDirtyIntArray(edges, ptr, edgeNewSize);
+            edgesLen = edges.length;
+        }
+    }
+
+    /**
+     * Get the edge field at the given index (off-heap or int[] storage)
+     */
+    static int getEdge(final int[] edges, final long addr, final int i) {
+        if (USE_OFF_HEAP_EDGES) {
+            return OffHeapArray.UNSAFE.getInt(
+                       addr + ((long) i) * OffHeapArray.SIZE_INT);
+        }
+        return edges[i];
+    }
+
+    /**
+     * Set the edge field at the given index (off-heap or int[] storage)
+     */
+    static void setEdge(final int[] edges, final long addr, final int i,
+                        final int val)
+    {
+        if (USE_OFF_HEAP_EDGES) {
+            OffHeapArray.UNSAFE.putInt(
+                addr + ((long) i) * OffHeapArray.SIZE_INT, val);
+        } else {
+            edges[i] = val;
+        }
+    }
+
     private static float tosubpixx(final float pix_x) {
         return f_SUBPIXEL_POSITIONS_X * pix_x;
     }
@@ -675,7 +947,11 @@ final class Renderer implements PathConsumer2D, MarlinConst {
         final float ye = tosubpixy(y3);
         curve.set(x0, y0, tosubpixx(x1), tosubpixy(y1),
                           tosubpixx(x2), tosubpixy(y2), xe, ye);
-        curveBreakIntoLinesAndAdd(x0, y0, curve, xe, ye);
+        if (ENABLE_FLATNESS) {
+            curveFlattenAndAdd(x0, y0, curve, xe, ye);
+        } else {
+            curveBreakIntoLinesAndAdd(x0, y0, curve, xe, ye);
+        }
         x0 = xe;
         y0 = ye;
     }
@@ -685,7 +961,11 @@ final class Renderer implements PathConsumer2D, MarlinConst {
         final float xe = tosubpixx(x2);
         final float ye = tosubpixy(y2);
         curve.set(x0, y0, tosubpixx(x1), tosubpixy(y1), xe, ye);
-        quadBreakIntoLinesAndAdd(x0, y0, curve, xe, ye);
+        if (ENABLE_FLATNESS) {
+            quadFlattenAndAdd(x0, y0, curve, xe, ye);
+        } else {
+            quadBreakIntoLinesAndAdd(x0, y0, curve, xe, ye);
+        }
         x0 = xe;
         y0 = ye;
     }
@@ -711,6 +991,12 @@ final class Renderer implements PathConsumer2D, MarlinConst {
     // 2048 (pixelsize) pixel large
     private final int[] alphaLine_initial = new int[INITIAL_AA_ARRAY]; // 8K
 
+    // clean block flags (zero filled): 1 if the alpha block was modified
+    private int[] blkFlags;
+    // +1 as alpha line may have 2 more pixels
+    private final int[] blkFlags_initial
+        = new int[(INITIAL_AA_ARRAY >> BLOCK_SIZE_LG) + 1]; // 256 bytes
+
     private void _endRendering(final int ymin, final int ymax) {
         if (DISABLE_RENDER) {
             return;
@@ -725,9 +1011,15 @@ final class Renderer implements PathConsumer2D, MarlinConst {
         // Useful when processing tile line by tile line
         final int[] _alpha = alphaLine;
 
+        // block flags (touched alpha blocks):
+        final boolean _enableBlkFlags = ENABLE_BLOCK_FLAGS;
+        final int[] _blkFlags = blkFlags;
+        final int _BLK_SIZE_LG = BLOCK_SIZE_LG;
+
         // local vars (performance):
         final MarlinCache _cache = cache;
         final int[] _edges       = edges;
+        final long _edgesAddr    = edgesAddr;
         final int[] _edgeBuckets = edgeBuckets;
         final int[] _edgeBucketCounts = edgeBucketCounts;
 
@@ -783,8 +1075,28 @@ final class Renderer implements PathConsumer2D, MarlinConst {
         int low, high, mid, prevNumCrossings;
         boolean useBinarySearch;
 
+        // radix sort:
+        int minCross, maxCross;
+        boolean sorted;
+        final int[] _radixCounts = radixCounts;
+
         int lastY = -1; // last emited row
 
+        // RLE heuristics: crossings in the current pixel row
+        final boolean _enableRLE = ENABLE_RLE;
+        final int _RLE_MIN_WIDTH = RLE_MIN_WIDTH;
+        int rowCrossings = 0;
+
+        // RLE: touched alpha positions in the current pixel row
+        // (overflow falls back to the per-pixel encoding)
+        // RLE rows have less than (width / 8) crossings ie less than
+        // (width / 4) touched positions (4 per span, 1 span per 2 crossings)
+        final int[] _rowTouched = rowTouched;
+        final int _TOUCHED_MAX = Math.min(_rowTouched.length,
+            ((bboxx1 - bboxx0) >> (_SUBPIXEL_LG_POSITIONS_X + 2)) + 4) - 4;
+        final int _TOUCHED_OVF = _rowTouched.length + 1;
+        int nTouched = 0, nextTouched;
+
 
         // Iteration on scanlines
         for (; y < ymax; y++, bucket++) {
@@ -811,11 +1123,13 @@ final class Renderer implements PathConsumer2D, MarlinConst {
                     for (i = 0, newCount = 0; i < numCrossings; i++) {
                         // get the pointer to the edge
                         ecur = _edgePtrs[i];
-                        assert (ecur + _OFF_YMAX_OR) < _edges.length;
+                        assert (ecur + _OFF_YMAX_OR) < edgesLen;
 
                         /* note: ymax is multiplied by 2
                            (1 bit shift to store orientation) */
-                        if (_edges[ecur + _OFF_YMAX_OR] > yLim) {
+                        if (getEdge(_edges, _edgesAddr, ecur + _OFF_YMAX_OR)
+                                > yLim)
+                        {
                             _edgePtrs[newCount++] = ecur;
                         }
                     }
@@ -866,12 +1180,12 @@ final class Renderer implements PathConsumer2D, MarlinConst {
                     for (ecur = _edgeBuckets[bucket];
                          numCrossings < ptrEnd; numCrossings++)
                     {
-                        assert (ecur + _OFF_NEXT) < _edges.length;
+                        assert (ecur + _OFF_NEXT) < edgesLen;
 
                         // store the pointer to the edge
                         _edgePtrs[numCrossings] = ecur;
 
-                        ecur = _edges[ecur + _OFF_NEXT];
+                        ecur = getEdge(_edges, _edgesAddr, ecur + _OFF_NEXT);
                     }
 
                     if (crossingsLen < numCrossings) {
@@ -911,10 +1225,76 @@ final class Renderer implements PathConsumer2D, MarlinConst {
 
             if (numCrossings != 0) {
                 /*
-                 * thresholds to switch to optimized merge sort
-                 * for newly added edges + final merge pass.
+                 * thresholds to switch to radix sort for many active edges
+                 * when many edges were added (linear time).
                  */
-                if ((ptrLen < 10) || (numCrossings < 40)) {
+                if ((numCrossings >= RADIX_SORT_THRESHOLD)
+                    && (ptrLen >= (numCrossings >> RADIX_SORT_ADDS_LG)))
+                {
+                    if (DO_STATS) {
+                        RendererContext.stats.stat_rdr_crossings_rsorts
+                            .add(numCrossings);
+                        RendererContext.stats.hist_rdr_crossings_rsorts
+                            .add(numCrossings);
+                    }
+
+                    // store crossings (unsorted) and compute their range:
+                    lastCross = _MIN_VALUE;
+                    minCross = _MAX_VALUE;
+                    maxCross = _MIN_VALUE;
+                    sorted = true;
+
+                    for (i = 0; i < numCrossings; i++) {
+                        // get the pointer to the edge
+                        ecur = _edgePtrs[i];
+                        assert (ecur + _OFF_YMAX_OR) < edgesLen;
+
+                        // get current crossing:
+                        curx = getEdge(_edges, _edgesAddr, ecur /* + OFF_CURX */);
+
+                        // update crossing with orientation at last bit:
+                        cross = (curx << 1)
+                                | getEdge(_edges, _edgesAddr, ecur + _OFF_YMAX_OR) & 0x1;
+
+                        // Increment x using DDA (fixed point):
+                        curx += getEdge(_edges, _edgesAddr, ecur + _OFF_BUMP_X);
+                        // Increment error:
+                        err  =  getEdge(_edges, _edgesAddr, ecur + _OFF_ERROR)
+                              + getEdge(_edges, _edgesAddr, ecur + _OFF_BUMP_ERR);
+
+                        // Manual carry handling:
+                        setEdge(_edges, _edgesAddr, ecur /* + OFF_CURX */,
+                                curx - (err >> 31));
+                        setEdge(_edges, _edgesAddr, ecur + _OFF_ERROR,
+                                (err & _ERR_STEP_MAX));
+
+                        if (DO_STATS) {
+                            RendererContext.stats.stat_rdr_crossings_updates
+                                .add(numCrossings);
+                        }
+
+                        _crossings[i] = cross;
+
+                        if (cross < lastCross) {
+                            sorted = false;
+                        }
+                        lastCross = cross;
+
+                        if (cross < minCross) {
+                            minCross = cross;
+                        }
+                        if (cross > maxCross) {
+                            maxCross = cross;
+                        }
+                    }
+                    if (!sorted) {
+                        // use radix sort using auxiliary arrays:
+                        RadixSort.sort(_crossings,     _edgePtrs,
+                                       _aux_crossings, _aux_edgePtrs,
+                                       numCrossings,   minCross, maxCross,
+                                       _radixCounts);
+                    }
+                } else if ((ptrLen < 10) || (numCrossings < 40)) {
                     if (DO_STATS) {
                         RendererContext.stats.hist_rdr_crossings
                             .add(numCrossings);
@@ -934,7 +1314,7 @@ final class Renderer implements PathConsumer2D, MarlinConst {
                     for (i = 0; i < numCrossings; i++) {
                         // get the pointer to the edge
                         ecur = _edgePtrs[i];
-                        assert (ecur + _OFF_YMAX_OR) < _edges.length;
+                        assert (ecur + _OFF_YMAX_OR) < edgesLen;
 
                         /* convert subpixel coordinates (float) into pixel
                             positions (int) for coming scanline */
@@ -942,20 +1322,23 @@ final class Renderer implements PathConsumer2D, MarlinConst {
                            if it is removed from AEL for coming or last scanline */
 
                         // get current crossing:
-                        curx = _edges[ecur /* + OFF_CURX */];
+                        curx = getEdge(_edges, _edgesAddr, ecur /* + OFF_CURX */);
 
                         // update crossing with orientation at last bit:
-                        cross = (curx << 1) | _edges[ecur + _OFF_YMAX_OR] & 0x1;
+                        cross = (curx << 1)
+                                | getEdge(_edges, _edgesAddr, ecur + _OFF_YMAX_OR) & 0x1;
 
                         // Increment x using DDA (fixed point):
-                        curx += _edges[ecur + _OFF_BUMP_X];
+                        curx += getEdge(_edges, _edgesAddr, ecur + _OFF_BUMP_X);
                         // Increment error:
-                        err  =  _edges[ecur + _OFF_ERROR]
-                              + _edges[ecur + _OFF_BUMP_ERR];
+                        err  =  getEdge(_edges, _edgesAddr, ecur + _OFF_ERROR)
+                              + getEdge(_edges, _edgesAddr, ecur + _OFF_BUMP_ERR);
 
                         // Manual carry handling:
-                        _edges[ecur /* + OFF_CURX */] = curx - (err >> 31);
-                        _edges[ecur + _OFF_ERROR]     = (err & _ERR_STEP_MAX);
+                        setEdge(_edges, _edgesAddr, ecur /* + OFF_CURX */,
+                                curx - (err >> 31));
+                        setEdge(_edges, _edgesAddr, ecur + _OFF_ERROR,
+                                (err & _ERR_STEP_MAX));
 
                         if (DO_STATS) {
                             RendererContext.stats.stat_rdr_crossings_updates
@@ -1036,7 +1419,7 @@ final class Renderer implements PathConsumer2D, MarlinConst {
                     for (i = 0; i < numCrossings; i++) {
                         // get the pointer to the edge
                         ecur = _edgePtrs[i];
-                        assert (ecur + _OFF_YMAX_OR) < _edges.length;
+                        assert (ecur + _OFF_YMAX_OR) < edgesLen;
 
                         /* convert subpixel coordinates (float) into pixel
                             positions (int) for coming scanline */
@@ -1044,20 +1427,23 @@ final class Renderer implements PathConsumer2D, MarlinConst {
                            if it is removed from AEL for coming or last scanline */
 
                         // get current crossing:
-                        curx = _edges[ecur /* + OFF_CURX */];
+                        curx = getEdge(_edges, _edgesAddr, ecur /* + OFF_CURX */);
 
                         // update crossing with orientation at last bit:
-                        cross = (curx << 1) | _edges[ecur + _OFF_YMAX_OR] & 0x1;
+                        cross = (curx << 1)
+                                | getEdge(_edges, _edgesAddr, ecur + _OFF_YMAX_OR) & 0x1;
 
                         // Increment x using DDA (fixed point):
-                        curx += _edges[ecur + _OFF_BUMP_X];
+                        curx += getEdge(_edges, _edgesAddr, ecur + _OFF_BUMP_X);
                         // Increment error:
-                        err  =  _edges[ecur + _OFF_ERROR]
-                              + _edges[ecur + _OFF_BUMP_ERR];
+                        err  =  getEdge(_edges, _edgesAddr, ecur + _OFF_ERROR)
+                              + getEdge(_edges, _edgesAddr, ecur + _OFF_BUMP_ERR);
 
                         // Manual carry handling:
-                        _edges[ecur /* + OFF_CURX */] = curx - (err >> 31);
-                        _edges[ecur + _OFF_ERROR]     = (err & _ERR_STEP_MAX);
+                        setEdge(_edges, _edgesAddr, ecur /* + OFF_CURX */,
+                                curx - (err >> 31));
+                        setEdge(_edges, _edgesAddr, ecur + _OFF_ERROR,
+                                (err & _ERR_STEP_MAX));
 
                         if (DO_STATS) {
                             RendererContext.stats.stat_rdr_crossings_updates
@@ -1102,6 +1488,8 @@ final class Renderer implements PathConsumer2D, MarlinConst {
 
                 // reset ptrLen
                 ptrLen = 0;
+
+                rowCrossings += numCrossings;
                 // --- from former ScanLineIterator.next()
 
                 // right shift on crossings to get the x-coordinate:
@@ -1152,24 +1540,71 @@ final class Renderer implements PathConsumer2D, MarlinConst {
                                 pix_xmaxm1 = (x1 - 1) >> _SUBPIXEL_LG_POSITIONS_X;
 
                                 if (pix_x == pix_xmaxm1) {
+                                    if (_enableRLE) {
+                                        // record touched positions once:
+                                        if (nTouched <= _TOUCHED_MAX) {
+                                            if (_alpha[pix_x] == 0) {
+                                                _rowTouched[nTouched++] = pix_x;
+                                            }
+                                            if (_alpha[pix_x + 1] == 0) {
+                                                _rowTouched[nTouched++] = pix_x + 1;
+                                            }
+                                        } else {
+                                            nTouched = _TOUCHED_OVF;
+                                        }
+                                    }
                                     // Start and end in same pixel
                                     tmp = (x1 - x0); // number of subpixels
                                     _alpha[pix_x    ] += tmp;
                                     _alpha[pix_x + 1] -= tmp;
+
+                                    if (_enableBlkFlags) {
+                                        // flag used blocks:
+                                        _blkFlags[ pix_x      >> _BLK_SIZE_LG] = 1;
+                                        _blkFlags[(pix_x + 1) >> _BLK_SIZE_LG] = 1;
+                                    }
                                 } else {
+                                    pix_xmax = x1 >> _SUBPIXEL_LG_POSITIONS_X;
+
+                                    if (_enableRLE) {
+                                        // record touched positions once:
+                                        if (nTouched <= _TOUCHED_MAX) {
+                                            if (_alpha[pix_x] == 0) {
+                                                _rowTouched[nTouched++] = pix_x;
+                                            }
+                                            if (_alpha[pix_x + 1] == 0) {
+                                                _rowTouched[nTouched++] = pix_x + 1;
+                                            }
+                                            if (_alpha[pix_xmax] == 0) {
+                                                _rowTouched[nTouched++] = pix_xmax;
+                                            }
+                                            if (_alpha[pix_xmax + 1] == 0) {
+                                                _rowTouched[nTouched++] = pix_xmax + 1;
+                                            }
+                                        } else {
+                                            nTouched = _TOUCHED_OVF;
+                                        }
+                                    }
                                     tmp = (x0 & _SUBPIXEL_MASK_X);
                                     _alpha[pix_x    ]
                                         += (_SUBPIXEL_POSITIONS_X - tmp);
                                     _alpha[pix_x + 1]
                                         += tmp;
 
-                                    pix_xmax = x1 >> _SUBPIXEL_LG_POSITIONS_X;
 
                                     tmp = (x1 & _SUBPIXEL_MASK_X);
                                     _alpha[pix_xmax    ]
                                         -= (_SUBPIXEL_POSITIONS_X - tmp);
                                     _alpha[pix_xmax + 1]
                                         -= tmp;
+
+                                    if (_enableBlkFlags) {
+                                        // flag used blocks:
+                                        _blkFlags[ pix_x         >> _BLK_SIZE_LG] = 1;
+                                        _blkFlags[(pix_x + 1)    >> _BLK_SIZE_LG] = 1;
+                                        _blkFlags[ pix_xmax      >> _BLK_SIZE_LG] = 1;
+                                        _blkFlags[(pix_xmax + 1) >> _BLK_SIZE_LG] = 1;
+                                    }
                                 }
                             }
                         }
@@ -1200,24 +1635,71 @@ final class Renderer implements PathConsumer2D, MarlinConst {
                                 pix_xmaxm1 = (x1 - 1) >> _SUBPIXEL_LG_POSITIONS_X;
 
                                 if (pix_x == pix_xmaxm1) {
+                                    if (_enableRLE) {
+                                        // record touched positions once:
+                                        if (nTouched <= _TOUCHED_MAX) {
+                                            if (_alpha[pix_x] == 0) {
+                                                _rowTouched[nTouched++] = pix_x;
+                                            }
+                                            if (_alpha[pix_x + 1] == 0) {
+                                                _rowTouched[nTouched++] = pix_x + 1;
+                                            }
+                                        } else {
+                                            nTouched = _TOUCHED_OVF;
+                                        }
+                                    }
                                     // Start and end in same pixel
                                     tmp = (x1 - x0); // number of subpixels
                                     _alpha[pix_x    ] += tmp;
                                     _alpha[pix_x + 1] -= tmp;
+
+                                    if (_enableBlkFlags) {
+                                        // flag used blocks:
+                                        _blkFlags[ pix_x      >> _BLK_SIZE_LG] = 1;
+                                        _blkFlags[(pix_x + 1) >> _BLK_SIZE_LG] = 1;
+                                    }
                                 } else {
+                                    pix_xmax = x1 >> _SUBPIXEL_LG_POSITIONS_X;
+
+                                    if (_enableRLE) {
+                                        // record touched positions once:
+                                        if (nTouched <= _TOUCHED_MAX) {
+                                            if (_alpha[pix_x] == 0) {
+                                                _rowTouched[nTouched++] = pix_x;
+                                            }
+                                            if (_alpha[pix_x + 1] == 0) {
+                                                _rowTouched[nTouched++] = pix_x + 1;
+                                            }
+                                            if (_alpha[pix_xmax] == 0) {
+                                                _rowTouched[nTouched++] = pix_xmax;
+                                            }
+                                            if (_alpha[pix_xmax + 1] == 0) {
+                                                _rowTouched[nTouched++] = pix_xmax + 1;
+                                            }
+                                        } else {
+                                            nTouched = _TOUCHED_OVF;
+                                        }
+                                    }
                                     tmp = (x0 & _SUBPIXEL_MASK_X);
                                     _alpha[pix_x    ]
                                         += (_SUBPIXEL_POSITIONS_X - tmp);
                                     _alpha[pix_x + 1]
                                         += tmp;
 
-                                    pix_xmax = x1 >> _SUBPIXEL_LG_POSITIONS_X;
 
                                     tmp = (x1 & _SUBPIXEL_MASK_X);
                                     _alpha[pix_xmax    ]
                                         -= (_SUBPIXEL_POSITIONS_X - tmp);
                                     _alpha[pix_xmax + 1]
                                         -= tmp;
+
+                                    if (_enableBlkFlags) {
+                                        // flag used blocks:
+                                        _blkFlags[ pix_x         >> _BLK_SIZE_LG] = 1;
+                                        _blkFlags[(pix_x + 1)    >> _BLK_SIZE_LG] = 1;
+                                        _blkFlags[ pix_xmax      >> _BLK_SIZE_LG] = 1;
+                                        _blkFlags[(pix_xmax + 1) >> _BLK_SIZE_LG] = 1;
+                                    }
                                 }
                             }
                             prev = _MAX_VALUE;
@@ -1241,16 +1723,50 @@ final class Renderer implements PathConsumer2D, MarlinConst {
             // maxX < minX, so no row will be emitted to the MarlinCache.
             if ((y & _SUBPIXEL_MASK_Y) == _SUBPIXEL_MASK_Y) {
                 lastY = y >> _SUBPIXEL_LG_POSITIONS_Y;
+                // record touched positions in the next row only if this row
+                // is encoded as runs (or empty):
+                nextTouched = _TOUCHED_OVF;
                 if (pix_maxX >= pix_minX) {
                     // note: alpha array will be zeroed by copyAARow()
                     // +2 because alpha [pix_minX; pix_maxX+1]
                     // fix range [x0; x1[
-                    _cache.copyAARow(_alpha, lastY, pix_minX, pix_maxX + 2);
+                    tmp = pix_maxX - pix_minX;
+
+                    /* each crossing changes the coverage of 2 pixels at most
+                       so use RLE (1 int per run) if the row is mostly solid
+                       ie runs (<= 2 x crossings) need less than 1 byte per pixel */
+                    if (_enableRLE && (tmp >= _RLE_MIN_WIDTH)
+                            && ((rowCrossings << 3) < tmp))
+                    {
+                        nextTouched = 0;
+                        if (nTouched <= _rowTouched.length) {
+                            _cache.copyAARowRLE_Touched(_blkFlags, _alpha,
+                                                   _rowTouched, nTouched,
+                                                   lastY, pix_minX, pix_maxX + 2);
+                        } else if (_enableBlkFlags) {
+                            _cache.copyAARowRLE_WithBlockFlags(_blkFlags, _alpha,
+                                                   lastY, pix_minX, pix_maxX + 2);
+                        } else {
+                            _cache.copyAARowRLE(_alpha, lastY,
+                                                pix_minX, pix_maxX + 2);
+                        }
+                    } else if (_enableBlkFlags) {
+                        _cache.copyAARow_WithBlockFlags(_blkFlags, _alpha,
+                                                   lastY, pix_minX, pix_maxX + 2);
+                    } else {
+                        _cache.copyAARow(_alpha, lastY, pix_minX, pix_maxX + 2);
+                    }
                 } else {
                     _cache.clearAARow(lastY);
+                    nextTouched = 0;
                 }
                 pix_minX = _MAX_VALUE;
                 pix_maxX = _MIN_VALUE;
+                if (DO_METRICS) {
+                    crossingCount += rowCrossings;
+                }
+                rowCrossings = 0;
+                nTouched = nextTouched;
             }
         } // scan line iterator
 
@@ -1262,7 +1778,27 @@ final class Renderer implements PathConsumer2D, MarlinConst {
             // note: alpha array will be zeroed by copyAARow()
             // +2 because alpha [pix_minX; pix_maxX+1]
             // fix range [x0; x1[
-            _cache.copyAARow(_alpha, y, pix_minX, pix_maxX + 2);
+            tmp = pix_maxX - pix_minX;
+
+            if (_enableRLE && (tmp >= _RLE_MIN_WIDTH)
+                    && ((rowCrossings << 3) < tmp))
+            {
+                if (nTouched <= _rowTouched.length) {
+                    _cache.copyAARowRLE_Touched(_blkFlags, _alpha,
+                                                _rowTouched, nTouched,
+                                                y, pix_minX, pix_maxX + 2);
+                } else if (_enableBlkFlags) {
+                    _cache.copyAARowRLE_WithBlockFlags(_blkFlags, _alpha,
+                                                       y, pix_minX, pix_maxX + 2);
+                } else {
+                    _cache.copyAARowRLE(_alpha, y, pix_minX, pix_maxX + 2);
+                }
+            } else if (_enableBlkFlags) {
+                _cache.copyAARow_WithBlockFlags(_blkFlags, _alpha,
+                                                y, pix_minX, pix_maxX + 2);
+            } else {
+                _cache.copyAARow(_alpha, y, pix_minX, pix_maxX + 2);
+            }
         } else if (y != lastY) {
             _cache.clearAARow(y);
         }
@@ -1270,13 +1806,32 @@ final class Renderer implements PathConsumer2D, MarlinConst {
         // update member:
         edgeCount = numCrossings;
 
+        if (DO_METRICS) {
+            crossingCount += rowCrossings;
+        }
+
         if (DO_STATS) {
             // update max used mark
             activeEdgeMaxUsed = _arrayMaxUsed;
         }
     }
 
+    /**
+     * Return the number of edges added since init()
+     * @return edge count
+     */
+    int getEdgesAdded() {
+        return edgesPos / SIZEOF_EDGE;
+    }
+
+    int getWindingRule() {
+        return windingRule;
+    }
+
     boolean endRendering() {
+        if (DO_METRICS) {
+            RendererContext.metrics.ctr_edges.add(edgesPos / SIZEOF_EDGE);
+        }
         if (edgeMinY == Float.POSITIVE_INFINITY) {
             return false; // undefined edges bounds
         }
@@ -1361,19 +1916,44 @@ final class Renderer implements PathConsumer2D, MarlinConst {
             alphaLine = rdrCtx.getIntArray(width);
         }
 
+        if (ENABLE_BLOCK_FLAGS) {
+            final int nBlocks = (width >> BLOCK_SIZE_LG) + 1;
+
+            if (nBlocks > blkFlags_initial.length) {
+                if (DO_STATS) {
+                    RendererContext.stats.stat_array_renderer_blkFlags
+                        .add(nBlocks);
+                }
+                blkFlags = rdrCtx.getIntArray(nBlocks);
+            }
+        }
+
         if (DO_MONITORS) {
             RendererContext.stats.mon_rdr_endRendering.start();
         }
 
+        // rasterize tile lines in parallel for very large shapes:
+        if (ENABLE_PARALLEL && (pmaxY - pminY) >= PARALLEL_MIN_HEIGHT) {
+            if (parallelInstance == null) {
+                parallelInstance = new ParallelRenderer(rdrCtx);
+            }
+            parallel = parallelInstance.init(this);
+        }
+
         // process first tile line:
         endRendering(pminY);
 
         return true;
     }
 
-    private int bbox_spminX, bbox_spmaxX, bbox_spminY, bbox_spmaxY;
+    int bbox_spminX, bbox_spmaxX, bbox_spminY, bbox_spmaxY;
 
     void endRendering(final int pminY) {
+        if (parallel != null) {
+            // get the band cache (rasterized in parallel):
+            lineCache = parallel.endRendering(pminY);
+            return;
+        }
         final int spminY       = pminY << SUBPIXEL_LG_POSITIONS_Y;
         final int fixed_spminY = Math.max(bbox_spminY, spminY);
 
@@ -1397,4 +1977,235 @@ final class Renderer implements PathConsumer2D, MarlinConst {
             }
         }
     }
+
+    /**
+     * Rasterizes the given tile line of the source renderer (parallel mode)
+     * into this renderer's cache.
+     * Source edges are only read: edges active at the tile line start are
+     * copied and moved to the first scanline (DDA), new edges are copied
+     * from the source buckets into local buckets starting at this scanline.
+     * @param src source renderer (edge list already built)
+     * @param active active edges as (edge pointer, first crossing) pairs
+     * @param activeLen number of used ints in active
+     * @param pminY first pixel row of the tile line
+     */
+    void endRenderingBand(final Renderer src, final int[] active,
+                          final int activeLen, final int pminY)
+    {
+        final int spminY       = pminY << SUBPIXEL_LG_POSITIONS_Y;
+        final int fixed_spminY = Math.max(src.bbox_spminY, spminY);
+        final int spmaxY       = Math.min(src.bbox_spmaxY, spminY + SUBPIXEL_TILE);
+
+        this.windingRule = src.windingRule;
+
+        bbox_spminX = src.bbox_spminX;
+        bbox_spmaxX = src.bbox_spmaxX;
+        bbox_spminY = src.bbox_spminY;
+        bbox_spmaxY = src.bbox_spmaxY;
+
+        // local buckets start at the first scanline:
+        this.boundsMinY = fixed_spminY;
+
+        final int nRows = spmaxY - fixed_spminY;
+
+        if (edgeBuckets.length <= nRows) {
+            edgeBuckets = rdrCtx.getIntArray(nRows + 1);
+            edgeBucketCounts = rdrCtx.getIntArray(nRows + 1);
+        }
+
+        final MarlinCache srcCache = src.cache;
+        final int width = (srcCache.bboxX1 - srcCache.bboxX0) + 2;
+
+        if (width > alphaLine.length) {
+            if (alphaLine != alphaLine_initial) {
+                rdrCtx.putIntArray(alphaLine, 0, 0); // already zero filled
+            }
+            alphaLine = rdrCtx.getIntArray(width);
+        }
+        if (ENABLE_BLOCK_FLAGS) {
+            final int nBlocks = (width >> BLOCK_SIZE_LG) + 1;
+
+            if (nBlocks > blkFlags.length) {
+                if (blkFlags != blkFlags_initial) {
+                    rdrCtx.putIntArray(blkFlags, 0, 0); // already zero filled
+                }
+                blkFlags = rdrCtx.getIntArray(nBlocks);
+            }
+        }
+
+        cache.init(srcCache.bboxX0, pminY, srcCache.bboxX1, srcCache.bboxY1);
+
+        // copy edges:
+        edgesPos = 0;
+        edgeCount = 0;
+
+        final int[] srcEdges = src.edges;
+        final long srcAddr = src.edgesAddr;
+
+        for (int i = 0; i < activeLen; i += 2) {
+            addBandEdge(srcEdges, srcAddr, active[i], fixed_spminY - active[i + 1],
+                        0, nRows);
+        }
+
+        final int[] srcBuckets = src.edgeBuckets;
+        final int[] srcBucketCounts = src.edgeBucketCounts;
+
+        for (int y = fixed_spminY, b = y - src.boundsMinY; y < spmaxY; y++, b++) {
+            int ecur = srcBuckets[b];
+            for (int n = srcBucketCounts[b] >> 1; n > 0; n--) {
+                addBandEdge(srcEdges, srcAddr, ecur, 0, y - fixed_spminY, nRows);
+                ecur = getEdge(srcEdges, srcAddr, ecur + OFF_NEXT);
+            }
+        }
+
+        // Process only one tile line:
+        endRendering(pminY);
+
+        // clear local buckets:
+        if (edgeBuckets == edgeBuckets_initial) {
+            IntArrayCache.fill(edgeBuckets,      0, nRows,     0);
+            IntArrayCache.fill(edgeBucketCounts, 0, nRows + 1, 0);
+        } else {
+            rdrCtx.putIntArray(edgeBuckets,      0, nRows);
+            edgeBuckets = edgeBuckets_initial;
+
+            rdrCtx.putIntArray(edgeBucketCounts, 0, nRows + 1);
+            edgeBucketCounts = edgeBucketCounts_initial;
+        }
+        edgeCount = 0;
+    }
+
+    /**
+     * Append the edges of the given renderer (same bounds, not rendered) to
+     * this edge list: edges are copied as-is and linked into the same
+     * buckets, so the source renderer can be disposed afterwards
+     * @param src renderer with the edges of a piece of the shape
+     */
+    void addEdges(final Renderer src) {
+        if (src.edgeMinY == Float.POSITIVE_INFINITY) {
+            return; // no edges
+        }
+        final int _boundsMinY = boundsMinY;
+
+        // used buckets (see endRendering):
+        final int bmin = Math.max(FloatMath.ceil_int(src.edgeMinY), _boundsMinY)
+                         - _boundsMinY;
+        final int bmax = Math.min(FloatMath.ceil_int(src.edgeMaxY), boundsMaxY)
+                         - _boundsMinY;
+        // src.dispose() clears the used part of its buckets:
+        src.buckets_minY = bmin;
+        src.buckets_maxY = bmax;
+
+        if (src.edgeMinY < edgeMinY) {
+            edgeMinY = src.edgeMinY;
+        }
+        if (src.edgeMaxY > edgeMaxY) {
+            edgeMaxY = src.edgeMaxY;
+        }
+        if (src.edgeMinX < edgeMinX) {
+            edgeMinX = src.edgeMinX;
+        }
+        if (src.edgeMaxX > edgeMaxX) {
+            edgeMaxX = src.edgeMaxX;
+        }
+
+        if (edgesLen < edgesPos + src.edgesPos) {
+            growEdges(edgesPos, Math.max(edgesLen << 1,
+                                         edgesPos + src.edgesPos));
+        }
+        final int[] _edges = edges;
+        final long _edgesAddr = edgesAddr;
+        final int[] srcEdges = src.edges;
+        final long srcAddr = src.edgesAddr;
+        final int[] _edgeBuckets = edgeBuckets;
+        final int[] _edgeBucketCounts = edgeBucketCounts;
+        final int[] srcBuckets = src.edgeBuckets;
+        final int[] srcBucketCounts = src.edgeBucketCounts;
+
+        int ptr = edgesPos;
+
+        for (int b = bmin; b <= bmax; b++) {
+            final int count = srcBucketCounts[b];
+            if (count == 0) {
+                continue;
+            }
+            int ecur = srcBuckets[b];
+            for (int n = count >> 1; n > 0; n--) {
+                setEdge(_edges, _edgesAddr, ptr /* + OFF_CURX */,
+                        getEdge(srcEdges, srcAddr, ecur /* + OFF_CURX */));
+                setEdge(_edges, _edgesAddr, ptr + OFF_ERROR,
+                        getEdge(srcEdges, srcAddr, ecur + OFF_ERROR));
+                setEdge(_edges, _edgesAddr, ptr + OFF_BUMP_X,
+                        getEdge(srcEdges, srcAddr, ecur + OFF_BUMP_X));
+                setEdge(_edges, _edgesAddr, ptr + OFF_BUMP_ERR,
+                        getEdge(srcEdges, srcAddr, ecur + OFF_BUMP_ERR));
+                setEdge(_edges, _edgesAddr, ptr + OFF_YMAX_OR,
+                        getEdge(srcEdges, srcAddr, ecur + OFF_YMAX_OR));
+
+                // each bucket is a linked list:
+                setEdge(_edges, _edgesAddr, ptr + OFF_NEXT, _edgeBuckets[b]);
+                _edgeBuckets[b] = ptr;
+
+                ecur = getEdge(srcEdges, srcAddr, ecur + OFF_NEXT);
+                ptr += SIZEOF_EDGE;
+            }
+            // edge count (<< 1) and edge end bit:
+            _edgeBucketCounts[b] = (_edgeBucketCounts[b] + (count & ~0x1))
+                                   | (count & 0x1);
+        }
+        edgesPos = ptr;
+    }
+
+    private void addBandEdge(final int[] srcEdges, final long srcAddr,
+                             final int srcPtr,
+                             final int steps, final int bucketIdx,
+                             final int nRows)
+    {
+        final int ptr = edgesPos;
+
+        if (edgesLen < ptr + SIZEOF_EDGE) {
+            growEdges(ptr);
+        }
+        final int[] _edges = edges;
+        final long _edgesAddr = edgesAddr;
+
+        final int bumpX   = getEdge(srcEdges, srcAddr, srcPtr + OFF_BUMP_X);
+        final int bumpErr = getEdge(srcEdges, srcAddr, srcPtr + OFF_BUMP_ERR);
+        final int ymax_or = getEdge(srcEdges, srcAddr, srcPtr + OFF_YMAX_OR);
+
+        if (steps == 0) {
+            setEdge(_edges, _edgesAddr, ptr /* + OFF_CURX */,
+                    getEdge(srcEdges, srcAddr, srcPtr /* + OFF_CURX */));
+            setEdge(_edges, _edgesAddr, ptr + OFF_ERROR,
+                    getEdge(srcEdges, srcAddr, srcPtr + OFF_ERROR));
+        } else {
+            // move the DDA by the given steps (exact as error < 2^31):
+            final long err = getEdge(srcEdges, srcAddr, srcPtr + OFF_ERROR)
+                             + ((long) steps) * bumpErr;
+
+            setEdge(_edges, _edgesAddr, ptr /* + OFF_CURX */,
+                    getEdge(srcEdges, srcAddr, srcPtr /* + OFF_CURX */)
+                    + steps * bumpX + (int) (err >> 31L));
+            setEdge(_edges, _edgesAddr, ptr + OFF_ERROR,
+                    (int) (err & ERR_STEP_MAX));
+        }
+        setEdge(_edges, _edgesAddr, ptr + OFF_BUMP_X, bumpX);
+        setEdge(_edges, _edgesAddr, ptr + OFF_BUMP_ERR, bumpErr);
+
+        // each bucket is a linked list:
+        setEdge(_edges, _edgesAddr, ptr + OFF_NEXT, edgeBuckets[bucketIdx]);
+        setEdge(_edges, _edgesAddr, ptr + OFF_YMAX_OR, ymax_or);
+
+        edgeBuckets[bucketIdx]       = ptr;
+        edgeBucketCounts[bucketIdx] += 2; // 1 << 1
+
+        // last bit means edge end (only within this tile line):
+        final int lastIdx = (ymax_or >> 1) - boundsMinY;
+        if (lastIdx < nRows) {
+            edgeBucketCounts[lastIdx] |= 0x1;
+        }
+
+        // update free pointer (ie length in ints)
+        edgesPos += SIZEOF_EDGE;
+    }
 }
@@ -26,12 +26,18 @@ package org.marlin.pisces;
 
 import java.lang.ref.SoftReference;
 import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import org.marlin.geom.Path2D;
 import static org.marlin.pisces.ArrayCache.*;
 import org.marlin.pisces.MarlinRenderingEngine.NormalizingPathIterator;
 import static org.marlin.pisces.MarlinUtils.getCallerInfo;
 import static org.marlin.pisces.MarlinUtils.logInfo;
+import sun.misc.Cleaner;
 
 /**
  * This class is a renderer context dedicated to a single thread
@@ -44,6 +50,23 @@ final class RendererContext implements MarlinConst {
     // RendererContext statistics
     static final RendererStats stats = (DO_STATS || DO_MONITORS)
                                        ? RendererStats.getInstance(): null;
+    // RendererContext production metrics
+    static final RendererMetrics metrics = (DO_METRICS)
+                                           ? RendererMetrics.getInstance() : null;
+
+    // live RendererContext instances (weak keys, monitoring only)
+    private static final Map<RendererContext, Boolean> liveContexts
+        = Collections.synchronizedMap(
+              new WeakHashMap<RendererContext, Boolean>());
+
+    // bytes held by the array caches of all contexts (global budget)
+    private static final AtomicLong cachedBytes = new AtomicLong();
+    // bytes and arrays released by the cache budgets and trim policy
+    private static final AtomicLong trimmedBytes = new AtomicLong();
+    private static final AtomicLong trimmedArrays = new AtomicLong();
+    // last idle cache sweep timestamp (nanoseconds, CACHE_TRIM_IDLE_NS)
+    private static final AtomicLong lastIdleSweep
+        = new AtomicLong(System.nanoTime());
 
     private static final boolean USE_CACHE_HARD_REF = DO_STATS
         || (MarlinRenderingEngine.REF_TYPE == MarlinRenderingEngine.REF_WEAK);
@@ -54,14 +77,97 @@ final class RendererContext implements MarlinConst {
      * @return new RendererContext instance
      */
     static RendererContext createContext() {
-        final RendererContext newCtx = new RendererContext("ctx"
+        return createContext(false);
+    }
+
+    /**
+     * Create a new renderer context
+     *
+     * @param band true to create a band context (ParallelRenderer) not
+     * reported as a live context
+     * @return new RendererContext instance
+     */
+    static RendererContext createContext(final boolean band) {
+        final RendererContext newCtx = new RendererContext(
+                    ((band) ? "band" : "ctx")
                     + Integer.toString(contextCount.getAndIncrement()));
         if (RendererContext.stats != null) {
             RendererContext.stats.allContexts.add(newCtx);
         }
+        liveContexts.put(newCtx, (band) ? Boolean.FALSE : Boolean.TRUE);
         return newCtx;
     }
 
+    /**
+     * Return the number of created renderer contexts
+     * @return created context count
+     */
+    static int getCreatedContextCount() {
+        return contextCount.get() - 1;
+    }
+
+    /**
+     * Return the renderer contexts not yet garbage collected
+     * @return new array of live contexts
+     */
+    static RendererContext[] getLiveContexts() {
+        return getLiveContexts(false);
+    }
+
+    /**
+     * Return the renderer contexts not yet garbage collected
+     * @param all true to include band contexts (ParallelRenderer)
+     * @return new array of live contexts
+     */
+    static RendererContext[] getLiveContexts(final boolean all) {
+        synchronized (liveContexts) {
+            final RendererContext[] ctxs
+                = new RendererContext[liveContexts.size()];
+            int n = 0;
+            for (Map.Entry<RendererContext, Boolean> e
+                    : liveContexts.entrySet())
+            {
+                // weak keys may be collected during the iteration:
+                if ((all || e.getValue().booleanValue())
+                        && (e.getKey() != null) && (n < ctxs.length))
+                {
+                    ctxs[n++] = e.getKey();
+                }
+            }
+            return (n == ctxs.length) ? ctxs : Arrays.copyOf(ctxs, n);
+        }
+    }
+
+    /**
+     * Return the bytes held by array caches of all contexts
+     * (only maintained if the global cache budget is enabled)
+     * @return cached bytes
+     */
+    static long getCachedBytes() {
+        return cachedBytes.get();
+    }
+
+    /**
+     * Return the bytes released by the cache budgets and trim policy
+     * @return trimmed bytes
+     */
+    static long getTrimmedBytes() {
+        return trimmedBytes.get();
+    }
+
+    /**
+     * Return the arrays released by the cache budgets and trim policy
+     * @return trimmed array count
+     */
+    static long getTrimmedArrays() {
+        return trimmedArrays.get();
+    }
+
+    static void resetTrimStats() {
+        trimmedBytes.set(0L);
+        trimmedArrays.set(0L);
+    }
+
     // context name (debugging purposes)
     final String name;
     /*
@@ -71,12 +177,40 @@ final class RendererContext implements MarlinConst {
     final Object reference;
     // dirty flag indicating an exception occured during pipeline in pathTo()
     boolean dirty = false;
+    // false if this context is a temporary context (RendererContextPool)
+    boolean pooled = true;
+    // true if this context is borrowed from the shared pool (ThreadLocal mode)
+    boolean borrowed = false;
+    // last release timestamp in nanoseconds (RendererContextPool)
+    // (read by other threads in RendererContextPool.trim)
+    volatile long lastUsed = 0L;
     // dynamic array caches kept using weak reference (low memory footprint)
     WeakReference<ArrayCachesHolder> refArrayCaches = null;
     // hard reference to array caches (for statistics)
     ArrayCachesHolder hardRefArrayCaches = null;
+    // current JFR event (MarlinEvents) or null
+    Object jfrEvent = null;
+    // number of path segments of the current shape (JFR events)
+    int segments = 0;
+    // cache trim policy (USE_CACHE_BUDGET):
+    // true if the array caches were needed since the last dispose
+    boolean cacheNeeded = false;
+    // renderings since the array caches were last needed
+    int cacheIdleRenders = 0;
+    // last time (ns) the array caches were needed
+    // (read by other threads in sweepIdleCaches)
+    volatile long cacheLastNeeded = 0L;
+    // flag indicating to cull path segments outside clipRect
+    boolean doClip = false;
+    // clip rectangle (ymin, ymax, xmin, xmax) including the stroke margin
+    final float[] clipRect = new float[4];
     // shared data
     final float[] float6 = new float[6];
+    // direct blending into rasters (AAShapePipe)
+    final RasterBlender blender = new RasterBlender();
+    // mask rendering (MarlinMask): tile bounds and tile (lazily created)
+    final int[] maskBbox = new int[4];
+    private byte[] maskTile = null;
     // shared curve (dirty) (Renderer / Stroker)
     final Curve curve = new Curve();
     // MarlinRenderingEngine NormalizingPathIterator NearestPixelCenter:
@@ -94,6 +228,11 @@ final class RendererContext implements MarlinConst {
     final Dasher dasher;
     final MarlinTileGenerator ptg;
     final MarlinCache cache;
+    // stroke cache probe key and outline recorder (null if disabled)
+    final StrokeCache.Key strokeKey;
+    final StrokeCache.Recorder strokeRecorder;
+    // parallel polyline stroker (null if disabled)
+    final ParallelStroker parallelStroker;
 
     /**
      * Constructor
@@ -122,6 +261,16 @@ final class RendererContext implements MarlinConst {
         stroker = new Stroker(this);
         dasher = new Dasher(this);
 
+        if (USE_STROKE_CACHE) {
+            strokeKey = new StrokeCache.Key(this);
+            strokeRecorder = new StrokeCache.Recorder(this);
+        } else {
+            strokeKey = null;
+            strokeRecorder = null;
+        }
+        parallelStroker = (ENABLE_PARALLEL_STROKE)
+                          ? new ParallelStroker(this) : null;
+
         // Create the reference to this instance (hard, soft or weak):
         switch (MarlinRenderingEngine.REF_TYPE) {
             default:
@@ -142,10 +291,15 @@ final class RendererContext implements MarlinConst {
      * clean up before reusing this context
      */
     void dispose() {
+        doClip = false;
+        jfrEvent = null;
         // reset hard reference to array caches if needed:
         if (!USE_CACHE_HARD_REF) {
             hardRefArrayCaches = null;
         }
+        if (USE_CACHE_BUDGET) {
+            applyCacheBudget();
+        }
         // if context is maked as DIRTY:
         if (dirty) {
             // may happen if an exception if thrown in the pipeline processing:
@@ -164,8 +318,127 @@ final class RendererContext implements MarlinConst {
         }
     }
 
+    /**
+     * Apply the array cache budgets and trim policy: cached arrays are
+     * released (largest first) if the per-context or global budget is
+     * exceeded, or all at once if they were not needed during the last
+     * CACHE_TRIM_RENDERS renderings or CACHE_TRIM_IDLE_NS nanoseconds
+     */
+    private void applyCacheBudget() {
+        final long now = (CACHE_TRIM_IDLE_NS != 0L) ? System.nanoTime() : 0L;
+
+        if (CACHE_TRIM_IDLE_NS != 0L) {
+            // idle contexts (not rendering anymore) are trimmed by others:
+            final long last = lastIdleSweep.get();
+            if ((now - last > (CACHE_TRIM_IDLE_NS >> 1))
+                    && lastIdleSweep.compareAndSet(last, now))
+            {
+                dropArrayCaches(now - CACHE_TRIM_IDLE_NS);
+            }
+        }
+        final ArrayCachesHolder holder = peekArrayCachesHolder();
+        if (holder == null) {
+            cacheNeeded = false;
+            return;
+        }
+        final long bytes = holder.getCachedBytes();
+        long maxBytes = bytes;
+
+        if (cacheNeeded) {
+            cacheNeeded = false;
+            cacheIdleRenders = 0;
+            if (CACHE_TRIM_IDLE_NS != 0L) {
+                cacheLastNeeded = now;
+            }
+        } else if (bytes != 0L) {
+            if (((CACHE_TRIM_RENDERS != 0)
+                    && (++cacheIdleRenders >= CACHE_TRIM_RENDERS))
+                || ((CACHE_TRIM_IDLE_NS != 0L)
+                    && (now - cacheLastNeeded >= CACHE_TRIM_IDLE_NS)))
+            {
+                // idle caches: release all
+                maxBytes = 0L;
+            }
+        }
+        if ((CACHE_CONTEXT_BUDGET != 0L) && (maxBytes > CACHE_CONTEXT_BUDGET)) {
+            maxBytes = CACHE_CONTEXT_BUDGET;
+        }
+        if ((CACHE_GLOBAL_BUDGET != 0L) && (maxBytes != 0L)) {
+            // budget left by other contexts:
+            final long available = CACHE_GLOBAL_BUDGET
+                - (cachedBytes.get() - holder.usedBytes.get());
+            if (maxBytes > available) {
+                maxBytes = (available > 0L) ? available : 0L;
+            }
+        }
+        if (bytes > maxBytes) {
+            holder.trim(maxBytes);
+        } else if (CACHE_GLOBAL_BUDGET != 0L) {
+            holder.setUsedBytes(bytes);
+        }
+    }
+
+    /**
+     * Drop the array caches of all live contexts (including band contexts)
+     * whose caches were not needed since the given time.
+     * Caches are only unreferenced (never modified) as their owner thread may
+     * be rendering: it will simply create new caches if needed.
+     * @param minTime minimum timestamp (nanoseconds) to keep array caches
+     * or Long.MAX_VALUE to drop all array caches
+     * @return number of contexts whose array caches were dropped
+     */
+    static int dropArrayCaches(final long minTime) {
+        int count = 0;
+        for (RendererContext rdrCtx : getLiveContexts(true)) {
+            if ((minTime == Long.MAX_VALUE)
+                    || (!rdrCtx.cacheNeeded
+                        && (rdrCtx.cacheLastNeeded - minTime < 0L)))
+            {
+                final ArrayCachesHolder holder = rdrCtx.peekArrayCachesHolder();
+                if (holder != null) {
+                    rdrCtx.hardRefArrayCaches = null;
+                    rdrCtx.refArrayCaches = null;
+                    holder.drop();
+                    count++;
+                }
+            }
+        }
+        if (LOG_CREATE_CONTEXT && (count != 0)) {
+            logInfo("RendererContext: dropped array caches of " + count
+                    + " contexts");
+        }
+        return count;
+    }
+
+    /**
+     * Return the tile used to copy coverage into native masks
+     * @return byte array of TILE_SIZE x TILE_SIZE
+     */
+    byte[] getMaskTile() {
+        if (maskTile == null) {
+            maskTile = new byte[TILE_SIZE * TILE_SIZE];
+        }
+        return maskTile;
+    }
+
+    /**
+     * Return the current array caches without creating them
+     * @return ArrayCachesHolder instance or null
+     */
+    ArrayCachesHolder peekArrayCachesHolder() {
+        final ArrayCachesHolder holder = hardRefArrayCaches;
+        if (holder != null) {
+            return holder;
+        }
+        final WeakReference<ArrayCachesHolder> ref = refArrayCaches;
+        return (ref != null) ? ref.get() : null;
+    }
+
     // Array caches
     ArrayCachesHolder getArrayCachesHolder() {
+        if (USE_CACHE_BUDGET) {
+            cacheNeeded = true;
+        }
         // Use hard reference first (cached resolved weak reference):
         ArrayCachesHolder holder = hardRefArrayCaches;
         if (holder == null) {
@@ -182,6 +455,12 @@ final class RendererContext implements MarlinConst {
 
                 holder = new ArrayCachesHolder();
 
+                if (CACHE_GLOBAL_BUDGET != 0L) {
+                    // release global budget once the holder is collected:
+                    Cleaner.create(holder,
+                                   new CacheBudgetDisposer(holder.usedBytes));
+                }
+
                 if (USE_CACHE_HARD_REF) {
                     // update hard reference:
                     hardRefArrayCaches = holder;
@@ -208,6 +487,9 @@ final class RendererContext implements MarlinConst {
         if (DO_STATS) {
             incOversize();
         }
+        if (DO_METRICS) {
+            metrics.ctr_cache_misses.increment();
+        }
 
         if (DO_LOG_OVER_SIZE) {
             logInfo("getDirtyByteArray[oversize]: length=\t" + length
@@ -269,6 +551,9 @@ final class RendererContext implements MarlinConst {
         if (DO_STATS) {
             incOversize();
         }
+        if (DO_METRICS) {
+            metrics.ctr_cache_misses.increment();
+        }
 
         if (DO_LOG_OVER_SIZE) {
             logInfo("getIntArray[oversize]: length=\t" + length + "\tfrom=\t"
@@ -332,6 +617,9 @@ final class RendererContext implements MarlinConst {
         if (DO_STATS) {
             incOversize();
         }
+        if (DO_METRICS) {
+            metrics.ctr_cache_misses.increment();
+        }
 
         if (DO_LOG_OVER_SIZE) {
             logInfo("getDirtyIntArray[oversize]: length=\t" + length
@@ -393,6 +681,9 @@ final class RendererContext implements MarlinConst {
         if (DO_STATS) {
             incOversize();
         }
+        if (DO_METRICS) {
+            metrics.ctr_cache_misses.increment();
+        }
 
         if (DO_LOG_OVER_SIZE) {
             logInfo("getDirtyFloatArray[oversize]: length=\t" + length
@@ -449,19 +740,127 @@ final class RendererContext implements MarlinConst {
         final FloatArrayCache[] dirtyFloatArrayCaches;
         final ByteArrayCache[] dirtyByteArrayCaches;
 
+        // bytes held by these caches at the last dispose (global budget)
+        final AtomicLong usedBytes = new AtomicLong();
+
         ArrayCachesHolder() {
             intArrayCaches = new IntArrayCache[BUCKETS];
             dirtyIntArrayCaches = new IntArrayCache[BUCKETS];
             dirtyFloatArrayCaches = new FloatArrayCache[BUCKETS];
             dirtyByteArrayCaches = new ByteArrayCache[BUCKETS];
 
+            // shared cache for the largest buckets (optional):
+            final SharedArrayCache sc = SharedArrayCache.INSTANCE;
+
             for (int i = 0; i < BUCKETS; i++) {
-                intArrayCaches[i] = new IntArrayCache(ARRAY_SIZES[i]);
+                final boolean useShared = (sc != null)
+                                          && (i >= SharedArrayCache.MIN_BUCKET);
+
+                intArrayCaches[i] = new IntArrayCache(ARRAY_SIZES[i],
+                    (useShared) ? sc.intBuckets[i] : null);
                 // dirty array caches:
-                dirtyIntArrayCaches[i] = new IntArrayCache(ARRAY_SIZES[i]);
-                dirtyFloatArrayCaches[i] = new FloatArrayCache(ARRAY_SIZES[i]);
-                dirtyByteArrayCaches[i] = new ByteArrayCache(DIRTY_BYTE_ARRAY_SIZES[i]);
+                dirtyIntArrayCaches[i] = new IntArrayCache(ARRAY_SIZES[i],
+                    (useShared) ? sc.dirtyIntBuckets[i] : null);
+                dirtyFloatArrayCaches[i] = new FloatArrayCache(ARRAY_SIZES[i],
+                    (useShared) ? sc.dirtyFloatBuckets[i] : null);
+                dirtyByteArrayCaches[i] = new ByteArrayCache(DIRTY_BYTE_ARRAY_SIZES[i],
+                    (useShared) ? sc.dirtyByteBuckets[i] : null);
+            }
+        }
+
+        /**
+         * Return the bytes held by these array caches
+         * @return cached bytes
+         */
+        long getCachedBytes() {
+            long bytes = 0L;
+            for (int i = 0; i < BUCKETS; i++) {
+                // int and float arrays: 4 bytes per element
+                bytes += 4L * ARRAY_SIZES[i] * (intArrayCaches[i].size()
+                    + dirtyIntArrayCaches[i].size()
+                    + dirtyFloatArrayCaches[i].size());
+                bytes += ((long) DIRTY_BYTE_ARRAY_SIZES[i])
+                    * dirtyByteArrayCaches[i].size();
+            }
+            return bytes;
+        }
+
+        /**
+         * Release cached arrays (largest buckets first) until at most the
+         * given number of bytes remain cached
+         * @param maxBytes maximum bytes to keep
+         */
+        void trim(final long maxBytes) {
+            long bytes = getCachedBytes();
+            final long initial = bytes;
+            int arrays = 0;
+
+            for (int i = BUCKETS - 1; (i >= 0) && (bytes > maxBytes); i--) {
+                int n = dirtyByteArrayCaches[i].clear();
+                arrays += n;
+                bytes -= ((long) DIRTY_BYTE_ARRAY_SIZES[i]) * n;
+
+                n = dirtyFloatArrayCaches[i].clear();
+                n += dirtyIntArrayCaches[i].clear();
+                n += intArrayCaches[i].clear();
+                arrays += n;
+                bytes -= 4L * ARRAY_SIZES[i] * n;
+            }
+            if (arrays != 0) {
+                trimmedBytes.addAndGet(initial - bytes);
+                trimmedArrays.addAndGet(arrays);
+
+                if (LOG_CREATE_CONTEXT) {
+                    logInfo("ArrayCachesHolder: trimmed " + (initial - bytes)
+                            + " bytes (" + arrays + " arrays)");
+                }
+            }
+            if (CACHE_GLOBAL_BUDGET != 0L) {
+                setUsedBytes(bytes);
+            }
+        }
+
+        /**
+         * Account the cached arrays as trimmed once unreferenced by their
+         * context (called from any thread: the caches are not modified)
+         */
+        void drop() {
+            long bytes = 0L;
+            int arrays = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                final int n = intArrayCaches[i].size()
+                    + dirtyIntArrayCaches[i].size()
+                    + dirtyFloatArrayCaches[i].size();
+                final int nb = dirtyByteArrayCaches[i].size();
+                arrays += n + nb;
+                bytes += 4L * ARRAY_SIZES[i] * n
+                         + ((long) DIRTY_BYTE_ARRAY_SIZES[i]) * nb;
+            }
+            if (arrays != 0) {
+                trimmedBytes.addAndGet(bytes);
+                trimmedArrays.addAndGet(arrays);
             }
+            if (CACHE_GLOBAL_BUDGET != 0L) {
+                setUsedBytes(0L);
+            }
+        }
+
+        void setUsedBytes(final long bytes) {
+            cachedBytes.addAndGet(bytes - usedBytes.getAndSet(bytes));
+        }
+    }
+
+    /* release the global cache budget of collected array caches */
+    private static final class CacheBudgetDisposer implements Runnable {
+        private final AtomicLong usedBytes;
+
+        CacheBudgetDisposer(final AtomicLong usedBytes) {
+            this.usedBytes = usedBytes;
+        }
+
+        @Override
+        public void run() {
+            cachedBytes.addAndGet(-usedBytes.getAndSet(0L));
         }
     }
 }
@@ -0,0 +1,429 @@
+/*
+ * Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.marlin.pisces;
+
+import java.lang.ref.Reference;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import static org.marlin.pisces.MarlinUtils.logInfo;
+
+/**
+ * Bounded RendererContext pool striped by thread: contexts are stored in
+ * padded slots (sun.java2d.renderer.pool.maxContexts) acquired and released
+ * using lock-free CAS operations starting at a slot derived from the thread
+ * id. The number of pooled contexts is bounded (by the number of processors
+ * by default) whatever the number of rendering threads: when all pooled
+ * contexts are in use, the caller parks (sun.java2d.renderer.pool.maxWait)
+ * until a released context is handed off to it (first come, first served)
+ * then uses a temporary context. Released
+ * temporary contexts are kept for reuse (at most maxContexts) and others are
+ * dropped. Contexts idle for more than sun.java2d.renderer.pool.idleTimeout
+ * are trimmed. Waits and temporary contexts are counted (pool metrics).
+ * This pool is also shared by short-lived or virtual threads in ThreadLocal
+ * mode.
+ */
+final class RendererContextPool implements MarlinConst {
+
+    // slot padding (64 bytes / 4 bytes per reference) to avoid false sharing
+    private static final int PAD_LG = 4;
+
+    // number of slots
+    private final int nSlots;
+    // slots storing idle context references (hard, soft or weak)
+    private final AtomicReferenceArray<Object> slots;
+    // number of pooled contexts (idle or in use)
+    private final AtomicInteger pooled = new AtomicInteger(0);
+    // idle temporary context references (bounded by nSlots)
+    private final ConcurrentLinkedQueue<Object> spares
+        = new ConcurrentLinkedQueue<Object>();
+    // number of idle temporary contexts
+    private final AtomicInteger spareCount = new AtomicInteger(0);
+    // threads waiting for a released context (pool full, FIFO handoff)
+    private final ConcurrentLinkedQueue<Waiter> waiters
+        = new ConcurrentLinkedQueue<Waiter>();
+    // idle timeout in nanoseconds (0 means disabled)
+    private final long idleTimeout;
+    // maximum wait in nanoseconds for a context when the pool is full
+    private final long maxWait;
+    // last trim timestamp (nanoseconds)
+    private final AtomicLong lastTrim = new AtomicLong(System.nanoTime());
+    // pool metrics (updated on the slow path only):
+    // number of acquisitions waiting for a released context
+    private final AtomicLong waitCount = new AtomicLong();
+    // total wait time in nanoseconds
+    private final AtomicLong waitTime = new AtomicLong();
+    // number of temporary contexts created (pool full)
+    private final AtomicLong tempCount = new AtomicLong();
+
+    RendererContextPool(final int maxContexts, final long idleTimeoutMillis,
+                        final long maxWaitMillis)
+    {
+        this.nSlots = maxContexts;
+        this.slots = new AtomicReferenceArray<Object>(maxContexts << PAD_LG);
+        this.idleTimeout = idleTimeoutMillis * 1000000L;
+        this.maxWait = maxWaitMillis * 1000000L;
+    }
+
+    /**
+     * Acquire an idle context or create a new one
+     * @return RendererContext instance
+     */
+    RendererContext acquire() {
+        RendererContext rdrCtx = poll();
+        if (rdrCtx != null) {
+            return rdrCtx;
+        }
+        final int n = nSlots;
+
+        if (pooled.get() >= n) {
+            // pool is full: reuse an idle temporary context if any
+            rdrCtx = pollSpare();
+            if (rdrCtx != null) {
+                return rdrCtx;
+            }
+            if (maxWait != 0L) {
+                rdrCtx = await(n);
+                if (rdrCtx != null) {
+                    return rdrCtx;
+                }
+            }
+        }
+
+        // create a new RendererContext:
+        rdrCtx = RendererContext.createContext();
+
+        if (pooled.incrementAndGet() <= n) {
+            rdrCtx.pooled = true;
+        } else {
+            // pool is full: use a temporary context
+            pooled.decrementAndGet();
+            rdrCtx.pooled = false;
+            tempCount.incrementAndGet();
+
+            if (LOG_CREATE_CONTEXT) {
+                logInfo("RendererContextPool: full (" + n
+                        + " contexts), temporary context = " + rdrCtx.name);
+            }
+        }
+        return rdrCtx;
+    }
+
+    /**
+     * Park the current thread until a context is handed off by release()
+     * (bounded wait)
+     * @param n number of slots
+     * @return released context or null if timed out
+     */
+    private RendererContext await(final int n) {
+        final Waiter w = new Waiter(Thread.currentThread());
+        final long start = System.nanoTime();
+        final long deadline = start + maxWait;
+        RendererContext rdrCtx;
+        long now;
+
+        waiters.offer(w);
+
+        // check again once registered (release before registration):
+        rdrCtx = poll();
+        if (rdrCtx == null) {
+            rdrCtx = pollSpare();
+        }
+        if (rdrCtx != null) {
+            if (!waiters.remove(w)) {
+                // a context is being handed off too: give it back
+                release(awaitHandoff(w));
+            }
+            return rdrCtx;
+        }
+        for (;;) {
+            rdrCtx = w.rdrCtx;
+            if (rdrCtx != null) {
+                break;
+            }
+            now = System.nanoTime();
+            if (now - deadline >= 0L) {
+                if (!waiters.remove(w)) {
+                    // handoff in progress:
+                    rdrCtx = awaitHandoff(w);
+                }
+                break;
+            }
+            LockSupport.parkNanos(this, deadline - now);
+        }
+        now = System.nanoTime();
+        waitCount.incrementAndGet();
+        waitTime.addAndGet(now - start);
+
+        if (DO_METRICS) {
+            RendererContext.metrics.ctr_pool_waits.increment();
+            RendererContext.metrics.hist_pool_wait_ns.add(now - start);
+        }
+        return rdrCtx;
+    }
+
+    // wait for the context handed off to the given (dequeued) waiter
+    private static RendererContext awaitHandoff(final Waiter w) {
+        RendererContext rdrCtx;
+        while ((rdrCtx = w.rdrCtx) == null) {
+            Thread.yield();
+        }
+        return rdrCtx;
+    }
+
+    /**
+     * Hand off the given context to the first waiting thread if any
+     * @param rdrCtx released context
+     * @return true if the context was handed off
+     */
+    private boolean handoff(final RendererContext rdrCtx) {
+        final Waiter w = waiters.poll();
+        if (w == null) {
+            return false;
+        }
+        w.rdrCtx = rdrCtx;
+        LockSupport.unpark(w.thread);
+        return true;
+    }
+
+    @SuppressWarnings({"unchecked"})
+    private RendererContext pollSpare() {
+        Object ref;
+        while ((ref = spares.poll()) != null) {
+            spareCount.decrementAndGet();
+            // resolve reference:
+            final RendererContext rdrCtx
+                = (MarlinRenderingEngine.REF_TYPE
+                   == MarlinRenderingEngine.REF_HARD)
+                  ? ((RendererContext) ref)
+                  : ((Reference<RendererContext>) ref).get();
+
+            if (rdrCtx != null) {
+                return rdrCtx;
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings({"unchecked"})
+    private RendererContext poll() {
+        final AtomicReferenceArray<Object> _slots = slots;
+        final int n = nSlots;
+
+        for (int i = 0, s = probe(n); i < n; i++) {
+            final int idx = s << PAD_LG;
+            final Object ref = _slots.get(idx);
+
+            if ((ref != null) && _slots.compareAndSet(idx, ref, null)) {
+                // resolve reference:
+                final RendererContext rdrCtx
+                    = (MarlinRenderingEngine.REF_TYPE
+                       == MarlinRenderingEngine.REF_HARD)
+                      ? ((RendererContext) ref)
+                      : ((Reference<RendererContext>) ref).get();
+
+                if (rdrCtx != null) {
+                    return rdrCtx;
+                }
+                // context collected by the GC:
+                pooled.decrementAndGet();
+            }
+            if (++s == n) {
+                s = 0;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Release the given context (already disposed) to the pool
+     * @param rdrCtx RendererContext instance
+     */
+    void release(final RendererContext rdrCtx) {
+        final long now = System.nanoTime();
+        rdrCtx.lastUsed = now;
+
+        if (handoff(rdrCtx)) {
+            return;
+        }
+        if (!rdrCtx.pooled) {
+            // keep temporary context for reuse (bounded) or drop it:
+            if (spareCount.incrementAndGet() <= nSlots) {
+                spares.offer(rdrCtx.reference);
+            } else {
+                spareCount.decrementAndGet();
+            }
+            return;
+        }
+
+        final AtomicReferenceArray<Object> _slots = slots;
+        final int n = nSlots;
+        final int start = probe(n);
+
+        boolean stored = false;
+
+        for (int i = 0, s = start; i < n; i++) {
+            final int idx = s << PAD_LG;
+
+            if ((_slots.get(idx) == null)
+                    && _slots.compareAndSet(idx, null, rdrCtx.reference))
+            {
+                stored = true;
+                break;
+            }
+            if (++s == n) {
+                s = 0;
+            }
+        }
+        if (!stored) {
+            // should not happen (pooled contexts <= slots):
+            pooled.decrementAndGet();
+        }
+
+        if (idleTimeout != 0L) {
+            final long last = lastTrim.get();
+            if ((now - last > (idleTimeout >> 1))
+                    && lastTrim.compareAndSet(last, now))
+            {
+                trim(now - idleTimeout);
+            }
+        }
+    }
+
+    /**
+     * Drop idle contexts released before the given timestamp
+     * @param minTime minimum timestamp (nanoseconds) to keep idle contexts
+     * @return number of dropped contexts
+     */
+    @SuppressWarnings({"unchecked"})
+    int trim(final long minTime) {
+        final AtomicReferenceArray<Object> _slots = slots;
+        int count = 0;
+
+        for (int s = 0; s < nSlots; s++) {
+            final int idx = s << PAD_LG;
+            final Object ref = _slots.get(idx);
+
+            if (ref != null) {
+                final RendererContext rdrCtx
+                    = (MarlinRenderingEngine.REF_TYPE
+                       == MarlinRenderingEngine.REF_HARD)
+                      ? ((RendererContext) ref)
+                      : ((Reference<RendererContext>) ref).get();
+
+                if (((rdrCtx == null) || (rdrCtx.lastUsed - minTime < 0L))
+                        && _slots.compareAndSet(idx, ref, null))
+                {
+                    pooled.decrementAndGet();
+                    count++;
+                }
+            }
+        }
+        // idle temporary contexts:
+        for (Iterator<Object> it = spares.iterator(); it.hasNext();) {
+            final Object ref = it.next();
+            final RendererContext rdrCtx
+                = (MarlinRenderingEngine.REF_TYPE
+                   == MarlinRenderingEngine.REF_HARD)
+                  ? ((RendererContext) ref)
+                  : ((Reference<RendererContext>) ref).get();
+
+            if (((rdrCtx == null) || (rdrCtx.lastUsed - minTime < 0L))
+                    && spares.remove(ref))
+            {
+                spareCount.decrementAndGet();
+                count++;
+            }
+        }
+        if (LOG_CREATE_CONTEXT && (count != 0)) {
+            logInfo("RendererContextPool: trimmed " + count
+                    + " idle contexts");
+        }
+        return count;
+    }
+
+    /**
+     * Return the number of pooled contexts (idle or in use)
+     * @return number of pooled contexts
+     */
+    int getPooledCount() {
+        return pooled.get();
+    }
+
+    /**
+     * Log pool metrics: pooled contexts, waits (count and total time in ms)
+     * and temporary contexts
+     * @param name pool name
+     */
+    void dumpStats(final String name) {
+        final long waits = waitCount.get();
+        logInfo(name + ": pooled = " + pooled.get() + " / " + nSlots
+                + " waits = " + waits + " wait time = "
+                + (waitTime.get() / 1000000L) + " ms (avg = "
+                + ((waits != 0L) ? (waitTime.get() / (1000L * waits)) : 0L)
+                + " us) temporary contexts = " + tempCount.get());
+    }
+
+    long getWaitCount() {
+        return waitCount.get();
+    }
+
+    long getWaitTime() {
+        return waitTime.get();
+    }
+
+    long getTemporaryCount() {
+        return tempCount.get();
+    }
+
+    /**
+     * Reset pool metrics (waits and temporary contexts)
+     */
+    void resetStats() {
+        waitCount.set(0L);
+        waitTime.set(0L);
+        tempCount.set(0L);
+    }
+
+    // thread waiting for a context (handoff)
+    static final class Waiter {
+        final Thread thread;
+        volatile RendererContext rdrCtx = null;
+
+        Waiter(final Thread thread) {
+            this.thread = thread;
+        }
+    }
+
+    private static int probe(final int n) {
+        // mix the thread id bits (striping):
+        final long id = Thread.currentThread().getId();
+        final int h = (int) (id ^ (id >>> 16)) * 0x9E3779B9;
+        return (h >>> 1) % n;
+    }
+}
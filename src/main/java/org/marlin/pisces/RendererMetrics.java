@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.marlin.pisces;
+
+import static org.marlin.pisces.MarlinUtils.logInfo;
+import org.marlin.pisces.stats.StripedCounter;
+import org.marlin.pisces.stats.StripedHistogram;
+
+/**
+ * This class gathers global rendering metrics for production use:
+ * unlike RendererStats, all counters and histograms are thread-safe and
+ * only updated once per shape, tile batch or array allocation so they
+ * are cheap enough to be left enabled (sun.java2d.renderer.doMetrics).
+ */
+public final class RendererMetrics {
+
+    // singleton
+    private static volatile RendererMetrics singleton = null;
+
+    static synchronized RendererMetrics getInstance() {
+        if (singleton == null) {
+            singleton = new RendererMetrics();
+        }
+        return singleton;
+    }
+
+    public static void dumpMetrics() {
+        if (singleton != null) {
+            singleton.dump();
+        }
+    }
+
+    // counters
+    final StripedCounter ctr_shapes
+        = new StripedCounter("shapes");
+    final StripedCounter ctr_shapes_empty
+        = new StripedCounter("shapes.empty");
+    final StripedCounter ctr_edges
+        = new StripedCounter("renderer.edges");
+    final StripedCounter ctr_crossings
+        = new StripedCounter("renderer.crossings");
+    final StripedCounter ctr_tiles_empty
+        = new StripedCounter("tiles.empty");
+    final StripedCounter ctr_tiles_full
+        = new StripedCounter("tiles.full");
+    final StripedCounter ctr_tiles_partial
+        = new StripedCounter("tiles.partial");
+    final StripedCounter ctr_cache_misses
+        = new StripedCounter("array.cache.misses");
+    final StripedCounter ctr_pool_waits
+        = new StripedCounter("pool.waits");
+    // all counters
+    final StripedCounter[] counters = new StripedCounter[]{
+        ctr_shapes,
+        ctr_shapes_empty,
+        ctr_edges,
+        ctr_crossings,
+        ctr_tiles_empty,
+        ctr_tiles_full,
+        ctr_tiles_partial,
+        ctr_cache_misses,
+        ctr_pool_waits
+    };
+    // latency histograms (ns)
+    final StripedHistogram hist_path_ns
+        = new StripedHistogram("latency.path.ns");
+    final StripedHistogram hist_tiles_ns
+        = new StripedHistogram("latency.tiles.ns");
+    final StripedHistogram hist_pool_wait_ns
+        = new StripedHistogram("latency.pool.wait.ns");
+    // all histograms
+    final StripedHistogram[] histograms = new StripedHistogram[]{
+        hist_path_ns,
+        hist_tiles_ns,
+        hist_pool_wait_ns
+    };
+
+    private RendererMetrics() {
+        super();
+    }
+
+    /**
+     * Record a processed shape (path stage)
+     * @param empty true if nothing to render
+     * @param elapsed path stage duration (ns)
+     */
+    void shapeDone(final boolean empty, final long elapsed) {
+        ctr_shapes.increment();
+        if (empty) {
+            ctr_shapes_empty.increment();
+        }
+        hist_path_ns.add(elapsed);
+    }
+
+    /**
+     * Record the tiles emitted by a tile generator (tile stage)
+     * @param empty empty tile count
+     * @param full fully covered tile count
+     * @param partial partially covered tile count
+     * @param elapsed tile stage duration (ns)
+     */
+    void tilesDone(final int empty, final int full, final int partial,
+                   final long elapsed)
+    {
+        ctr_tiles_empty.add(empty);
+        ctr_tiles_full.add(full);
+        ctr_tiles_partial.add(partial);
+        hist_tiles_ns.add(elapsed);
+    }
+
+    void reset() {
+        for (StripedCounter ctr : counters) {
+            ctr.reset();
+        }
+        for (StripedHistogram hist : histograms) {
+            hist.reset();
+        }
+    }
+
+    void dump() {
+        logInfo("RendererMetrics:");
+        for (StripedCounter ctr : counters) {
+            logInfo(ctr.toString());
+        }
+        for (StripedHistogram hist : histograms) {
+            if (hist.count() != 0L) {
+                logInfo(hist.toString());
+            }
+        }
+    }
+}
@@ -64,6 +64,8 @@ public final class RendererStats implements MarlinConst {
         = new StatLong("cache.rowAAChunk");
     final StatLong stat_cache_tiles
         = new StatLong("cache.tiles");
+    final StatLong stat_cache_rowAARLE
+        = new StatLong("cache.rowAARLE");
     final StatLong stat_rdr_poly_stack_curves
         = new StatLong("renderer.poly.stack.curves");
     final StatLong stat_rdr_poly_stack_types
@@ -72,6 +74,10 @@ public final class RendererStats implements MarlinConst {
         = new StatLong("renderer.addLine");
     final StatLong stat_rdr_addLine_skip
         = new StatLong("renderer.addLine.skip");
+    final StatLong stat_pathclip_skip
+        = new StatLong("pathclipfilter.skip");
+    final StatLong stat_dasher_clip_skip
+        = new StatLong("dasher.clip.skip");
     final StatLong stat_rdr_curveBreak
         = new StatLong("renderer.curveBreakIntoLinesAndAdd");
     final StatLong stat_rdr_curveBreak_dec
@@ -88,6 +94,8 @@ public final class RendererStats implements MarlinConst {
         = new StatLong("renderer.edges.count");
     final StatLong stat_rdr_edges_resizes
         = new StatLong("renderer.edges.resize");
+    final StatLong stat_rdr_parallel
+        = new StatLong("renderer.parallel");
     final StatLong stat_rdr_activeEdges
         = new StatLong("renderer.activeEdges");
     final StatLong stat_rdr_activeEdges_updates
@@ -102,6 +110,8 @@ public final class RendererStats implements MarlinConst {
         = new StatLong("renderer.crossings.sorts");
     final StatLong stat_rdr_crossings_bsearch
         = new StatLong("renderer.crossings.bsearch");
+    final StatLong stat_rdr_crossings_rsorts
+        = new StatLong("renderer.crossings.rsorts");
     final StatLong stat_rdr_crossings_msorts
         = new StatLong("renderer.crossings.msorts");
     // growable arrays
@@ -113,10 +123,14 @@ public final class RendererStats implements MarlinConst {
         = new StatLong("array.stroker.polystack.curveTypes.d_byte");
     final StatLong stat_array_marlincache_rowAAChunk
         = new StatLong("array.marlincache.rowAAChunk.d_byte");
+    final StatLong stat_array_marlincache_rowAARLE
+        = new StatLong("array.marlincache.rowAARLE.d_int");
     final StatLong stat_array_marlincache_touchedTile
         = new StatLong("array.marlincache.touchedTile.int");
     final StatLong stat_array_renderer_alphaline
         = new StatLong("array.renderer.alphaline.int");
+    final StatLong stat_array_renderer_blkFlags
+        = new StatLong("array.renderer.blkFlags.int");
     final StatLong stat_array_renderer_crossings
         = new StatLong("array.renderer.crossings.int");
     final StatLong stat_array_renderer_aux_crossings
@@ -136,10 +150,16 @@ public final class RendererStats implements MarlinConst {
         = new Histogram("renderer.crossings.ratio");
     final Histogram hist_rdr_crossings_adds
         = new Histogram("renderer.crossings.adds");
+    final Histogram hist_rdr_crossings_rsorts
+        = new Histogram("renderer.crossings.rsorts");
     final Histogram hist_rdr_crossings_msorts
         = new Histogram("renderer.crossings.msorts");
     final Histogram hist_rdr_crossings_msorts_adds
         = new Histogram("renderer.crossings.msorts.adds");
+    final Histogram hist_rdr_parallel_bands
+        = new Histogram("renderer.parallel.bands");
+    final Histogram hist_str_parallel_pieces
+        = new Histogram("stroker.parallel.pieces");
     final Histogram hist_tile_generator_alpha
         = new Histogram("tile_generator.alpha");
     // all stats
@@ -147,10 +167,13 @@ public final class RendererStats implements MarlinConst {
         stat_cache_rowAA,
         stat_cache_rowAAChunk,
         stat_cache_tiles,
+        stat_cache_rowAARLE,
         stat_rdr_poly_stack_types,
         stat_rdr_poly_stack_curves,
         stat_rdr_addLine,
         stat_rdr_addLine_skip,
+        stat_pathclip_skip,
+        stat_dasher_clip_skip,
         stat_rdr_curveBreak,
         stat_rdr_curveBreak_dec,
         stat_rdr_curveBreak_inc,
@@ -159,6 +182,7 @@ public final class RendererStats implements MarlinConst {
         stat_rdr_edges,
         stat_rdr_edges_count,
         stat_rdr_edges_resizes,
+        stat_rdr_parallel,
         stat_rdr_activeEdges,
         stat_rdr_activeEdges_updates,
         stat_rdr_activeEdges_adds,
@@ -166,19 +190,25 @@ public final class RendererStats implements MarlinConst {
         stat_rdr_crossings_updates,
         stat_rdr_crossings_sorts,
         stat_rdr_crossings_bsearch,
+        stat_rdr_crossings_rsorts,
         stat_rdr_crossings_msorts,
         hist_rdr_crossings,
         hist_rdr_crossings_ratio,
         hist_rdr_crossings_adds,
+        hist_rdr_crossings_rsorts,
         hist_rdr_crossings_msorts,
         hist_rdr_crossings_msorts_adds,
+        hist_rdr_parallel_bands,
+        hist_str_parallel_pieces,
         hist_tile_generator_alpha,
         stat_array_dasher_firstSegmentsBuffer,
         stat_array_stroker_polystack_curves,
         stat_array_stroker_polystack_curveTypes,
         stat_array_marlincache_rowAAChunk,
+        stat_array_marlincache_rowAARLE,
         stat_array_marlincache_touchedTile,
         stat_array_renderer_alphaline,
+        stat_array_renderer_blkFlags,
         stat_array_renderer_crossings,
         stat_array_renderer_aux_crossings,
         stat_array_renderer_edgeBuckets,
@@ -243,6 +273,10 @@ public final class RendererStats implements MarlinConst {
         if (DO_STATS) {
             ArrayCache.dumpStats();
         }
+        MarlinRenderingEngine.dumpPoolStats();
+        if (DO_METRICS) {
+            RendererMetrics.dumpMetrics();
+        }
         final RendererContext[] all = allContexts.toArray(
                                           new RendererContext[allContexts.size()]);
         for (RendererContext rdrCtx : all) {
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.marlin.pisces;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import static org.marlin.pisces.ArrayCache.ARRAY_SIZES;
+import static org.marlin.pisces.ArrayCache.BUCKETS;
+import static org.marlin.pisces.ArrayCache.DIRTY_BYTE_ARRAY_SIZES;
+
+/**
+ * Second-level array cache shared by all RendererContext instances for the
+ * largest buckets (lock-free): arrays returned by one thread can be reused
+ * by others instead of being dropped with their ArrayCachesHolder.
+ * The total size of cached arrays is bounded by a byte budget
+ * (sun.java2d.renderer.sharedCache.maxMB).
+ */
+final class SharedArrayCache implements MarlinConst {
+
+    // first (smallest) bucket using the shared cache
+    static final int MIN_BUCKET = 2;
+    // max slots per bucket
+    static final int MAX_SLOTS = 64;
+
+    // shared cache or null if disabled
+    static final SharedArrayCache INSTANCE = (USE_SHARED_CACHE)
+        ? new SharedArrayCache(
+              ((long) MarlinProperties.getSharedCacheMaxMB()) << 20L)
+        : null;
+
+    // byte budget
+    private final long maxBytes;
+    // size of cached arrays in bytes
+    private final AtomicLong usedBytes = new AtomicLong(0L);
+    // buckets (null below MIN_BUCKET):
+    final Bucket[] intBuckets = new Bucket[BUCKETS];
+    final Bucket[] dirtyIntBuckets = new Bucket[BUCKETS];
+    final Bucket[] dirtyFloatBuckets = new Bucket[BUCKETS];
+    final Bucket[] dirtyByteBuckets = new Bucket[BUCKETS];
+
+    private SharedArrayCache(final long maxBytes) {
+        this.maxBytes = maxBytes;
+
+        for (int i = MIN_BUCKET; i < BUCKETS; i++) {
+            // 4 bytes per int or float:
+            intBuckets[i] = new Bucket(ARRAY_SIZES[i], 4L);
+            dirtyIntBuckets[i] = new Bucket(ARRAY_SIZES[i], 4L);
+            dirtyFloatBuckets[i] = new Bucket(ARRAY_SIZES[i], 4L);
+            dirtyByteBuckets[i] = new Bucket(DIRTY_BYTE_ARRAY_SIZES[i], 1L);
+        }
+    }
+
+    /**
+     * Return the size of cached arrays
+     * @return size in bytes
+     */
+    long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    /**
+     * Drop all cached arrays
+     */
+    void clear() {
+        for (int i = MIN_BUCKET; i < BUCKETS; i++) {
+            intBuckets[i].clear();
+            dirtyIntBuckets[i].clear();
+            dirtyFloatBuckets[i].clear();
+            dirtyByteBuckets[i].clear();
+        }
+    }
+
+    /**
+     * Bounded lock-free array stack (slots updated using CAS)
+     */
+    final class Bucket {
+
+        final int arraySize;
+        private final long arrayBytes;
+        private final int nSlots;
+        private final AtomicReferenceArray<Object> slots;
+
+        Bucket(final int arraySize, final long elementBytes) {
+            this.arraySize = arraySize;
+            this.arrayBytes = elementBytes * arraySize;
+            this.nSlots = (int) Math.max(1L,
+                              Math.min(MAX_SLOTS, maxBytes / arrayBytes));
+            this.slots = new AtomicReferenceArray<Object>(nSlots);
+        }
+
+        /**
+         * Take a cached array
+         * @return array or null if none is available
+         */
+        Object poll() {
+            final int n = nSlots;
+            for (int i = 0, s = probe(n); i < n; i++) {
+                final Object array = slots.get(s);
+                if ((array != null) && slots.compareAndSet(s, array, null)) {
+                    usedBytes.addAndGet(-arrayBytes);
+                    return array;
+                }
+                if (++s == n) {
+                    s = 0;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Cache the given array if the byte budget allows it
+         * @param array array to cache (cleared if needed)
+         * @return true if cached, false if the caller should keep it
+         */
+        boolean offer(final Object array) {
+            // reserve the budget first:
+            if (usedBytes.addAndGet(arrayBytes) > maxBytes) {
+                usedBytes.addAndGet(-arrayBytes);
+                return false;
+            }
+            final int n = nSlots;
+            for (int i = 0, s = probe(n); i < n; i++) {
+                if ((slots.get(s) == null)
+                        && slots.compareAndSet(s, null, array))
+                {
+                    return true;
+                }
+                if (++s == n) {
+                    s = 0;
+                }
+            }
+            usedBytes.addAndGet(-arrayBytes);
+            return false;
+        }
+
+        /**
+         * Return the number of cached arrays
+         * @return cached array count
+         */
+        int size() {
+            int count = 0;
+            for (int s = 0; s < nSlots; s++) {
+                if (slots.get(s) != null) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        void clear() {
+            for (int s = 0; s < nSlots; s++) {
+                if (slots.getAndSet(s, null) != null) {
+                    usedBytes.addAndGet(-arrayBytes);
+                }
+            }
+        }
+    }
+
+    private static int probe(final int n) {
+        // mix the thread id bits (striping):
+        final long id = Thread.currentThread().getId();
+        final int h = (int) (id ^ (id >>> 16)) * 0x9E3779B9;
+        return (h >>> 1) % n;
+    }
+}
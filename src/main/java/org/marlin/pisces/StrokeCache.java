@@ -0,0 +1,755 @@
+/*
+ * Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.marlin.pisces;
+
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.PathIterator;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import sun.awt.geom.PathConsumer2D;
+
+/**
+ * Bounded LRU cache of stroked outlines (Stroker and Dasher output in device
+ * space) shared by all RendererContext instances: redrawing the same path
+ * with the same stroke and the same transform (except its integer
+ * translation) replays the cached outline instead of stroking it again
+ * (map tiles drawing the same long polylines).
+ * The key holds the source path content (float precision), the stroke
+ * attributes, the linear part of the transform and the fractional part of
+ * its translation; the integer translation is added when replaying.
+ */
+final class StrokeCache implements MarlinConst {
+
+    // approximated object overhead (bytes) per cache entry
+    private static final long ENTRY_OVERHEAD = 200L;
+
+    // stroke cache or null if disabled
+    static final StrokeCache INSTANCE = (USE_STROKE_CACHE)
+        ? new StrokeCache(MarlinProperties.getStrokeCacheMaxEntries(),
+              ((long) MarlinProperties.getStrokeCacheMaxMB()) << 20L)
+        : null;
+
+    // bounds
+    private final int maxEntries;
+    private final long maxBytes;
+    // LRU map (access order) guarded by this
+    private final LinkedHashMap<Key, Outline> map
+        = new LinkedHashMap<Key, Outline>(64, 0.75f, true);
+    // size of cached entries in bytes (guarded by this)
+    private long usedBytes = 0L;
+    // counters
+    private final AtomicLong hits = new AtomicLong(0L);
+    private final AtomicLong misses = new AtomicLong(0L);
+    private final AtomicLong evictions = new AtomicLong(0L);
+
+    private StrokeCache(final int maxEntries, final long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Return the cached outline matching the given key
+     * @param key probe key
+     * @return outline or null if not cached
+     */
+    Outline get(final Key key) {
+        final Outline outline;
+        synchronized (this) {
+            outline = map.get(key);
+        }
+        if (outline != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return outline;
+    }
+
+    /**
+     * Cache the recorded outline (copies) and evict the least recently used
+     * entries to stay within bounds
+     * @param key probe key
+     * @param rec recorded outline
+     * @return cached outline or an uncached outline (possibly using the
+     *         recorder arrays) if it is too large to be cached
+     */
+    Outline put(final Key key, final Recorder rec) {
+        final long keyBytes = ENTRY_OVERHEAD + key.getBytes();
+        if (keyBytes + rec.getBytes() > maxBytes) {
+            return new Outline(rec.types, rec.numTypes, rec.coords);
+        }
+        final Outline outline = rec.toOutline(keyBytes);
+        final long bytes = outline.bytes;
+        if (bytes > maxBytes) {
+            return outline;
+        }
+        final Key copy = key.copy();
+
+        synchronized (this) {
+            final Outline prev = map.put(copy, outline);
+            if (prev != null) {
+                usedBytes -= prev.bytes;
+            }
+            usedBytes += bytes;
+
+            final Iterator<Outline> it = map.values().iterator();
+            while (((usedBytes > maxBytes) || (map.size() > maxEntries))
+                    && it.hasNext())
+            {
+                final Outline eldest = it.next();
+                if (eldest == outline) {
+                    break;
+                }
+                usedBytes -= eldest.bytes;
+                it.remove();
+                evictions.incrementAndGet();
+            }
+        }
+        return outline;
+    }
+
+    /**
+     * Drop all cached outlines
+     */
+    synchronized void clear() {
+        map.clear();
+        usedBytes = 0L;
+    }
+
+    synchronized int size() {
+        return map.size();
+    }
+
+    synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    void collectStats(final Map<String, Long> counters) {
+        counters.put("stroke.cache.hits", hits.get());
+        counters.put("stroke.cache.misses", misses.get());
+        counters.put("stroke.cache.evictions", evictions.get());
+        counters.put("stroke.cache.entries", (long) size());
+        counters.put("stroke.cache.bytes", getUsedBytes());
+    }
+
+    void resetStats() {
+        hits.set(0L);
+        misses.set(0L);
+        evictions.set(0L);
+    }
+
+    /**
+     * Stroked outline (immutable once cached) split into chunks of at most
+     * CHUNK_SIZE drawing segments with their bounds (control polygon and
+     * start point) to skip invisible chunks when replaying
+     */
+    static final class Outline {
+
+        // max drawing segments per chunk
+        static final int CHUNK_SIZE = 32;
+
+        final byte[] types;
+        final int numTypes;
+        final float[] coords;
+        // chunk ends (type index, coord index) or null (no culling)
+        private final int[] chunkEnds;
+        // chunk bounds (xmin, ymin, xmax, ymax)
+        private final float[] chunkBounds;
+        private final int numChunks;
+        // entry size in bytes (key included)
+        final long bytes;
+
+        Outline(final byte[] types, final int numTypes, final float[] coords) {
+            this.types = types;
+            this.numTypes = numTypes;
+            this.coords = coords;
+            this.chunkEnds = null;
+            this.chunkBounds = null;
+            this.numChunks = 0;
+            this.bytes = 0L;
+        }
+
+        Outline(final byte[] types, final float[] coords, final long keyBytes) {
+            this.types = types;
+            this.numTypes = types.length;
+            this.coords = coords;
+
+            // upper bound: one chunk per segment:
+            int[] ends = new int[2 * numTypes];
+            float[] bounds = new float[4 * numTypes];
+            int nc = 0, count = 0, off = 0;
+            float cx = 0f, cy = 0f;
+            float xmin = 0f, ymin = 0f, xmax = 0f, ymax = 0f;
+
+            for (int i = 0; i < numTypes; i++) {
+                final int type = types[i];
+                if ((type == PathIterator.SEG_MOVETO)
+                        || (type == PathIterator.SEG_CLOSE))
+                {
+                    if (count != 0) {
+                        nc = addChunk(ends, bounds, nc, i, off,
+                                      xmin, ymin, xmax, ymax);
+                        count = 0;
+                    }
+                    if (type == PathIterator.SEG_MOVETO) {
+                        cx = coords[off];
+                        cy = coords[off + 1];
+                        off += 2;
+                    }
+                    // never skipped:
+                    nc = addChunk(ends, bounds, nc, i + 1, off,
+                                  Float.NEGATIVE_INFINITY,
+                                  Float.NEGATIVE_INFINITY,
+                                  Float.POSITIVE_INFINITY,
+                                  Float.POSITIVE_INFINITY);
+                    continue;
+                }
+                if (count == 0) {
+                    // the chunk starts at the current point:
+                    xmin = xmax = cx;
+                    ymin = ymax = cy;
+                }
+                final int n = (type == PathIterator.SEG_LINETO) ? 2
+                              : (type == PathIterator.SEG_QUADTO) ? 4 : 6;
+                for (final int e = off + n; off < e; off += 2) {
+                    final float x = coords[off];
+                    final float y = coords[off + 1];
+                    if (x < xmin) { xmin = x; }
+                    if (x > xmax) { xmax = x; }
+                    if (y < ymin) { ymin = y; }
+                    if (y > ymax) { ymax = y; }
+                }
+                cx = coords[off - 2];
+                cy = coords[off - 1];
+
+                if (++count == CHUNK_SIZE) {
+                    nc = addChunk(ends, bounds, nc, i + 1, off,
+                                  xmin, ymin, xmax, ymax);
+                    count = 0;
+                }
+            }
+            if (count != 0) {
+                nc = addChunk(ends, bounds, nc, numTypes, off,
+                              xmin, ymin, xmax, ymax);
+            }
+            this.chunkEnds = Arrays.copyOf(ends, 2 * nc);
+            this.chunkBounds = Arrays.copyOf(bounds, 4 * nc);
+            this.numChunks = nc;
+            this.bytes = keyBytes + numTypes + 4L * coords.length + 24L * nc;
+        }
+
+        private static int addChunk(final int[] ends, final float[] bounds,
+                                    final int nc, final int typeEnd,
+                                    final int coordEnd,
+                                    final float xmin, final float ymin,
+                                    final float xmax, final float ymax)
+        {
+            ends[2 * nc    ] = typeEnd;
+            ends[2 * nc + 1] = coordEnd;
+            bounds[4 * nc    ] = xmin;
+            bounds[4 * nc + 1] = ymin;
+            bounds[4 * nc + 2] = xmax;
+            bounds[4 * nc + 3] = ymax;
+            return nc + 1;
+        }
+
+        /**
+         * Send this outline translated by (dx, dy) to the given consumer
+         * (pathDone excluded). Chunks lying on the outer side of one edge of
+         * the given clip rectangle are replaced by a line to their last
+         * point: the chord and the chunk lie in the same outer half-plane so
+         * the coverage inside the clip is unchanged.
+         * @param out consumer
+         * @param dx integer translation along x
+         * @param dy integer translation along y
+         * @param clipRect clip rectangle (ymin, ymax, xmin, xmax) or null
+         */
+        void replay(final PathConsumer2D out, final float dx, final float dy,
+                    final float[] clipRect)
+        {
+            if ((clipRect == null) || (chunkEnds == null)) {
+                replay(out, dx, dy, 0, numTypes, 0);
+                return;
+            }
+            // clip rectangle in outline coordinates:
+            final float cymin = clipRect[0] - dy;
+            final float cymax = clipRect[1] - dy;
+            final float cxmin = clipRect[2] - dx;
+            final float cxmax = clipRect[3] - dx;
+
+            final int[] _ends = chunkEnds;
+            final float[] _bounds = chunkBounds;
+            int start = 0, off = 0;
+
+            for (int c = 0, b = 0; c < numChunks; c++, b += 4) {
+                final int end = _ends[2 * c];
+                final int offEnd = _ends[2 * c + 1];
+
+                if ((_bounds[b + 2] < cxmin) || (_bounds[b] >= cxmax)
+                        || (_bounds[b + 3] < cymin) || (_bounds[b + 1] >= cymax))
+                {
+                    // invisible chunk:
+                    out.lineTo(coords[offEnd - 2] + dx, coords[offEnd - 1] + dy);
+                } else {
+                    replay(out, dx, dy, start, end, off);
+                }
+                start = end;
+                off = offEnd;
+            }
+        }
+
+        private void replay(final PathConsumer2D out,
+                            final float dx, final float dy,
+                            final int start, final int end, int off)
+        {
+            final byte[] _types = types;
+            final float[] _coords = coords;
+
+            for (int i = start; i < end; i++) {
+                switch (_types[i]) {
+                    case PathIterator.SEG_MOVETO:
+                        out.moveTo(_coords[off] + dx, _coords[off + 1] + dy);
+                        off += 2;
+                        continue;
+                    case PathIterator.SEG_LINETO:
+                        out.lineTo(_coords[off] + dx, _coords[off + 1] + dy);
+                        off += 2;
+                        continue;
+                    case PathIterator.SEG_QUADTO:
+                        out.quadTo(_coords[off    ] + dx, _coords[off + 1] + dy,
+                                   _coords[off + 2] + dx, _coords[off + 3] + dy);
+                        off += 4;
+                        continue;
+                    case PathIterator.SEG_CUBICTO:
+                        out.curveTo(_coords[off    ] + dx, _coords[off + 1] + dy,
+                                    _coords[off + 2] + dx, _coords[off + 3] + dy,
+                                    _coords[off + 4] + dx, _coords[off + 5] + dy);
+                        off += 6;
+                        continue;
+                    case PathIterator.SEG_CLOSE:
+                        out.closePath();
+                        continue;
+                    default:
+                }
+            }
+        }
+    }
+
+    /**
+     * Cache key: source path content, stroke attributes and transform
+     * (per-thread probe instance in RendererContext, copied when cached)
+     */
+    static final class Key {
+
+        // per-thread renderer context (probe key only)
+        private final RendererContext rdrCtx;
+        // per-thread initial arrays (probe key only)
+        // +1 to avoid recycling in widenDirty*Array()
+        private final byte[] types_initial;
+        private final float[] coords_initial;
+
+        // source path (float precision):
+        byte[] types;
+        int numTypes;
+        float[] coords;
+        int numCoords;
+        // stroke attributes:
+        private float width;
+        private int caps;
+        private int join;
+        private float miterlimit;
+        private float[] dashes;
+        private float dashphase;
+        private int normalize;
+        // linear part and fractional translation of the transform:
+        private double mxx, mxy, myx, myy, mxt, myt;
+        private int hash;
+
+        // integer translation (not part of the key)
+        float offX, offY;
+
+        Key(final RendererContext rdrCtx) {
+            this.rdrCtx = rdrCtx;
+            this.types_initial = new byte[INITIAL_ARRAY + 1];
+            this.coords_initial = new float[INITIAL_SMALL_ARRAY + 1];
+            this.types = types_initial;
+            this.coords = coords_initial;
+        }
+
+        private Key(final Key key) {
+            this.rdrCtx = null;
+            this.types_initial = null;
+            this.coords_initial = null;
+            this.numTypes = key.numTypes;
+            this.types = Arrays.copyOf(key.types, key.numTypes);
+            this.numCoords = key.numCoords;
+            this.coords = Arrays.copyOf(key.coords, key.numCoords);
+            this.width = key.width;
+            this.caps = key.caps;
+            this.join = key.join;
+            this.miterlimit = key.miterlimit;
+            this.dashes = (key.dashes != null) ? key.dashes.clone() : null;
+            this.dashphase = key.dashphase;
+            this.normalize = key.normalize;
+            this.mxx = key.mxx;
+            this.mxy = key.mxy;
+            this.myx = key.myx;
+            this.myy = key.myy;
+            this.mxt = key.mxt;
+            this.myt = key.myt;
+            this.hash = key.hash;
+        }
+
+        Key copy() {
+            return new Key(this);
+        }
+
+        /**
+         * Initialize this probe key
+         * @return false if the path has less than minSegments segments
+         *         (not worth caching)
+         */
+        boolean init(final Shape src, final AffineTransform at,
+                     final float width, final int normalize,
+                     final int caps, final int join, final float miterlimit,
+                     final float[] dashes, final float dashphase)
+        {
+            final float[] c6 = rdrCtx.float6;
+            int nt = 0, nc = 0;
+            int h = 1;
+
+            for (final PathIterator pi = src.getPathIterator(null);
+                    !pi.isDone(); pi.next())
+            {
+                final int type = pi.currentSegment(c6);
+                final int n;
+                switch (type) {
+                    case PathIterator.SEG_MOVETO:
+                    case PathIterator.SEG_LINETO:
+                        n = 2;
+                        break;
+                    case PathIterator.SEG_QUADTO:
+                        n = 4;
+                        break;
+                    case PathIterator.SEG_CUBICTO:
+                        n = 6;
+                        break;
+                    default:
+                        n = 0;
+                }
+                if (nt + 1 > types.length) {
+                    types = rdrCtx.widenDirtyByteArray(types, nt, nt + 1);
+                }
+                if (nc + n > coords.length) {
+                    coords = rdrCtx.widenDirtyFloatArray(coords, nc, nc + n);
+                }
+                types[nt++] = (byte) type;
+                h = 31 * h + type;
+                for (int i = 0; i < n; i++) {
+                    final float c = c6[i];
+                    coords[nc++] = c;
+                    h = 31 * h + Float.floatToIntBits(c);
+                }
+            }
+            this.numTypes = nt;
+            this.numCoords = nc;
+
+            if (nt < STROKE_CACHE_MIN_SEGMENTS) {
+                return false;
+            }
+
+            this.width = width;
+            this.caps = caps;
+            this.join = join;
+            this.miterlimit = miterlimit;
+            this.dashes = dashes;
+            this.dashphase = dashphase;
+            this.normalize = normalize;
+
+            if (at != null) {
+                mxx = at.getScaleX();
+                mxy = at.getShearX();
+                myx = at.getShearY();
+                myy = at.getScaleY();
+                final double tx = at.getTranslateX();
+                final double ty = at.getTranslateY();
+                final double ox = Math.floor(tx);
+                final double oy = Math.floor(ty);
+                mxt = tx - ox;
+                myt = ty - oy;
+                offX = (float) ox;
+                offY = (float) oy;
+            } else {
+                mxx = myy = 1.0d;
+                mxy = myx = mxt = myt = 0.0d;
+                offX = offY = 0f;
+            }
+
+            h = 31 * h + Float.floatToIntBits(width);
+            h = 31 * h + caps;
+            h = 31 * h + join;
+            h = 31 * h + Float.floatToIntBits(miterlimit);
+            h = 31 * h + Arrays.hashCode(dashes);
+            h = 31 * h + Float.floatToIntBits(dashphase);
+            h = 31 * h + normalize;
+            h = 31 * h + hashDouble(mxx);
+            h = 31 * h + hashDouble(mxy);
+            h = 31 * h + hashDouble(myx);
+            h = 31 * h + hashDouble(myy);
+            h = 31 * h + hashDouble(mxt);
+            h = 31 * h + hashDouble(myt);
+            this.hash = h;
+            return true;
+        }
+
+        /**
+         * Return the transform to stroke the path with: the given transform
+         * without its integer translation
+         */
+        AffineTransform getStrokeTransform(final AffineTransform at) {
+            if (at == null) {
+                return null;
+            }
+            final AffineTransform sat
+                = new AffineTransform(mxx, myx, mxy, myy, mxt, myt);
+            return (sat.isIdentity()) ? null : sat;
+        }
+
+        long getBytes() {
+            return numTypes + 4L * numCoords
+                   + ((dashes != null) ? 4L * dashes.length : 0L);
+        }
+
+        /**
+         * Disposes this probe key:
+         * clean up before reusing this instance
+         */
+        void dispose() {
+            dashes = null;
+            // Return arrays (dirty):
+            if (types != types_initial) {
+                rdrCtx.putDirtyByteArray(types);
+                types = types_initial;
+            }
+            if (coords != coords_initial) {
+                rdrCtx.putDirtyFloatArray(coords);
+                coords = coords_initial;
+            }
+        }
+
+        private static int hashDouble(final double v) {
+            final long bits = Double.doubleToLongBits(v);
+            return (int) (bits ^ (bits >>> 32));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key k = (Key) obj;
+            if ((hash != k.hash) || (numTypes != k.numTypes)
+                    || (numCoords != k.numCoords)
+                    || (Float.floatToIntBits(width)
+                        != Float.floatToIntBits(k.width))
+                    || (caps != k.caps) || (join != k.join)
+                    || (Float.floatToIntBits(miterlimit)
+                        != Float.floatToIntBits(k.miterlimit))
+                    || (Float.floatToIntBits(dashphase)
+                        != Float.floatToIntBits(k.dashphase))
+                    || (normalize != k.normalize)
+                    || (Double.compare(mxx, k.mxx) != 0)
+                    || (Double.compare(mxy, k.mxy) != 0)
+                    || (Double.compare(myx, k.myx) != 0)
+                    || (Double.compare(myy, k.myy) != 0)
+                    || (Double.compare(mxt, k.mxt) != 0)
+                    || (Double.compare(myt, k.myt) != 0)
+                    || !Arrays.equals(dashes, k.dashes))
+            {
+                return false;
+            }
+            final byte[] t1 = types, t2 = k.types;
+            for (int i = 0, n = numTypes; i < n; i++) {
+                if (t1[i] != t2[i]) {
+                    return false;
+                }
+            }
+            final float[] c1 = coords, c2 = k.coords;
+            for (int i = 0, n = numCoords; i < n; i++) {
+                if (Float.floatToIntBits(c1[i])
+                        != Float.floatToIntBits(c2[i]))
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * PathConsumer2D recording the stroked outline
+     * (per-thread instance in RendererContext)
+     */
+    static final class Recorder implements PathConsumer2D {
+
+        // per-thread renderer context
+        private final RendererContext rdrCtx;
+        // per-thread initial arrays
+        // +1 to avoid recycling in widenDirty*Array()
+        private final byte[] types_initial = new byte[INITIAL_SMALL_ARRAY + 1];
+        private final float[] coords_initial
+            = new float[INITIAL_MEDIUM_ARRAY + 1];
+
+        byte[] types;
+        int numTypes;
+        float[] coords;
+        int numCoords;
+
+        Recorder(final RendererContext rdrCtx) {
+            this.rdrCtx = rdrCtx;
+            this.types = types_initial;
+            this.coords = coords_initial;
+        }
+
+        Recorder init() {
+            numTypes = 0;
+            numCoords = 0;
+            return this; // fluent API
+        }
+
+        /**
+         * Disposes this recorder:
+         * clean up before reusing this instance
+         */
+        void dispose() {
+            numTypes = 0;
+            numCoords = 0;
+            // Return arrays (dirty):
+            if (types != types_initial) {
+                rdrCtx.putDirtyByteArray(types);
+                types = types_initial;
+            }
+            if (coords != coords_initial) {
+                rdrCtx.putDirtyFloatArray(coords);
+                coords = coords_initial;
+            }
+        }
+
+        long getBytes() {
+            return numTypes + 4L * numCoords;
+        }
+
+        Outline toOutline(final long keyBytes) {
+            return new Outline(Arrays.copyOf(types, numTypes),
+                               Arrays.copyOf(coords, numCoords), keyBytes);
+        }
+
+        private int add(final int type, final int n) {
+            if (numTypes + 1 > types.length) {
+                types = rdrCtx.widenDirtyByteArray(types, numTypes,
+                                                   numTypes + 1);
+            }
+            if (numCoords + n > coords.length) {
+                coords = rdrCtx.widenDirtyFloatArray(coords, numCoords,
+                                                     numCoords + n);
+            }
+            types[numTypes++] = (byte) type;
+            final int off = numCoords;
+            numCoords += n;
+            return off;
+        }
+
+        @Override
+        public void moveTo(final float x0, final float y0) {
+            final int off = add(PathIterator.SEG_MOVETO, 2);
+            final float[] _coords = coords;
+            _coords[off    ] = x0;
+            _coords[off + 1] = y0;
+        }
+
+        @Override
+        public void lineTo(final float x1, final float y1) {
+            final int off = add(PathIterator.SEG_LINETO, 2);
+            final float[] _coords = coords;
+            _coords[off    ] = x1;
+            _coords[off + 1] = y1;
+        }
+
+        @Override
+        public void quadTo(final float x1, final float y1,
+                           final float x2, final float y2)
+        {
+            final int off = add(PathIterator.SEG_QUADTO, 4);
+            final float[] _coords = coords;
+            _coords[off    ] = x1;
+            _coords[off + 1] = y1;
+            _coords[off + 2] = x2;
+            _coords[off + 3] = y2;
+        }
+
+        @Override
+        public void curveTo(final float x1, final float y1,
+                            final float x2, final float y2,
+                            final float x3, final float y3)
+        {
+            final int off = add(PathIterator.SEG_CUBICTO, 6);
+            final float[] _coords = coords;
+            _coords[off    ] = x1;
+            _coords[off + 1] = y1;
+            _coords[off + 2] = x2;
+            _coords[off + 3] = y2;
+            _coords[off + 4] = x3;
+            _coords[off + 5] = y3;
+        }
+
+        @Override
+        public void closePath() {
+            add(PathIterator.SEG_CLOSE, 0);
+        }
+
+        @Override
+        public void pathDone() {
+            // outline replayed later
+        }
+
+        @Override
+        public long getNativeConsumer() {
+            return 0;
+        }
+    }
+}
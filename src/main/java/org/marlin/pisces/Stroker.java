@@ -81,12 +81,35 @@ final class Stroker implements PathConsumer2D, MarlinConst {
 
     private static final int MAX_N_CURVES = 11;
 
+    // round arcs (<= 90 degrees): cv = sqrt(0.5 - c) * g(c) where
+    // c = cos(ext) / 2 in [0; 0.5] and g(c) = (4/3) / (1 + sqrt(c + 0.5)).
+    // g is smooth (|g''| < 0.6) so it is linearly interpolated in a table of
+    // ARC_TABLE_SIZE intervals: error < h^2/8 * 0.6 with h = 0.5 / 64, i.e.
+    // cv error < ARC_MAX_ERROR (control points within ARC_MAX_ERROR * lineWidth2)
+    private static final int ARC_TABLE_SIZE = 64;
+    private static final float ARC_TABLE_SCALE = 2f * ARC_TABLE_SIZE;
+    static final float ARC_MAX_ERROR = 4e-6f;
+    // +1 for the last entry (c = 0.5) and +1 to interpolate at c = 0.5
+    private static final float[] ARC_G = new float[ARC_TABLE_SIZE + 2];
+
+    static {
+        for (int i = 0; i < ARC_G.length; i++) {
+            ARC_G[i] = (float) ((4.0 / 3.0)
+                                / (1.0 + sqrt(i / (double) ARC_TABLE_SCALE
+                                              + 0.5)));
+        }
+    }
+
     private PathConsumer2D out;
 
     private int capStyle;
+    // cap style at the start of subpaths (capStyle by default)
+    private int startCapStyle;
     private int joinStyle;
 
     private float lineWidth2;
+    // 2 * lineWidth2^2 (arc cosine normalization)
+    private float arcNorm;
 
     private final float[] offset0 = new float[2];
     private final float[] offset1 = new float[2];
@@ -158,7 +181,9 @@ final class Stroker implements PathConsumer2D, MarlinConst {
         this.out = pc2d;
 
         this.lineWidth2 = lineWidth / 2f;
+        this.arcNorm = 2f * lineWidth2 * lineWidth2;
         this.capStyle = capStyle;
+        this.startCapStyle = capStyle;
         this.joinStyle = joinStyle;
 
         float limit = miterLimit * lineWidth2;
@@ -169,6 +194,19 @@ final class Stroker implements PathConsumer2D, MarlinConst {
         return this; // fluent API
     }
 
+    /**
+     * Set different cap styles at the start and at the end of subpaths
+     * (butt caps to stroke a polyline by pieces, see ParallelStroker)
+     * @param startCapStyle cap style at the start of subpaths
+     * @param endCapStyle cap style at the end of subpaths
+     * @return this instance
+     */
+    Stroker caps(final int startCapStyle, final int endCapStyle) {
+        this.startCapStyle = startCapStyle;
+        this.capStyle = endCapStyle;
+        return this; // fluent API
+    }
+
     /**
      * Disposes this stroker:
      * clean up before reusing this instance
@@ -300,14 +338,13 @@ final class Stroker implements PathConsumer2D, MarlinConst {
                                      final float mx, final float my,
                                      boolean rev)
     {
-        float cosext2 = (omx * mx + omy * my) / (2f * lineWidth2 * lineWidth2);
+        final float cosext2 = (omx * mx + omy * my) / arcNorm;
         // cv is the length of P1-P0 and P2-P3 divided by the radius of the arc
         // (so, cv assumes the arc has radius 1). P0, P1, P2, P3 are the points that
         // define the bezier curve we're computing.
         // It is computed using the constraints that P1-P0 and P3-P2 are parallel
         // to the arc tangents at the endpoints, and that |P1-P0|=|P3-P2|.
-        float cv = (float) ((4.0 / 3.0) * sqrt(0.5-cosext2) /
-                            (1.0 + sqrt(cosext2+0.5)));
+        float cv = arcCv(cosext2);
         // if clockwise, we need to negate cv.
         if (rev) { // rev is equivalent to isCW(omx, omy, mx, my)
             cv = -cv;
@@ -325,6 +362,26 @@ final class Stroker implements PathConsumer2D, MarlinConst {
         emitCurveTo(x1, y1, x2, y2, x3, y3, x4, y4, rev);
     }
 
+    /**
+     * Return the control factor cv = (4/3) * sqrt(0.5 - c) / (1 + sqrt(c + 0.5))
+     * of an arc of at most 90 degrees (within ARC_MAX_ERROR)
+     * @param cosext2 c = cosine of the arc angle / 2 (clamped to [0; 0.5])
+     * @return cv
+     */
+    static float arcCv(final float cosext2) {
+        float c = cosext2;
+        if (!(c > 0f)) {
+            c = 0f;
+        } else if (c > 0.5f) {
+            // rounding:
+            c = 0.5f;
+        }
+        final float t = c * ARC_TABLE_SCALE;
+        final int i = (int) t;
+        final float g = ARC_G[i] + (t - i) * (ARC_G[i + 1] - ARC_G[i]);
+        return (float) sqrt(0.5f - c) * g;
+    }
+
     private void drawRoundCap(float cx, float cy, float mx, float my) {
         // the first and second arguments of the following two calls
         // are really will be ignored by emitCurveTo (because of the false),
@@ -498,9 +555,9 @@ final class Stroker implements PathConsumer2D, MarlinConst {
 
         emitReverse();
 
-        if (capStyle == CAP_ROUND) {
+        if (startCapStyle == CAP_ROUND) {
             drawRoundCap(sx0, sy0, -smx, -smy);
-        } else if (capStyle == CAP_SQUARE) {
+        } else if (startCapStyle == CAP_SQUARE) {
             emitLineTo(sx0 + smy - smx, sy0 - smx - smy);
             emitLineTo(sx0 + smy + smx, sy0 - smx + smy);
         }
@@ -137,6 +137,13 @@ final class TransformingPathConsumer2D {
         }
     }
 
+    // recycled PathConsumer2D instance from pathClipper()
+    private final PathClipFilter       cl_PathClipFilter       = new PathClipFilter();
+
+    PathConsumer2D pathClipper(PathConsumer2D out, float[] clipRect) {
+        return cl_PathClipFilter.init(out, clipRect);
+    }
+
     private final static class TranslateFilter implements PathConsumer2D {
         private PathConsumer2D out;
         private float tx, ty;
@@ -503,4 +510,138 @@ final class TransformingPathConsumer2D {
             throw new InternalError("Not using a native peer");
         }
     }
+
+    /**
+     * Culls the path segments outside the clip rectangle (including the
+     * stroke margin): consecutive invisible segments lying on the same side
+     * of the clip rectangle are replaced by a single line to the last point.
+     * That chord and the removed segments lie in the same outer half-plane
+     * so the coverage (and winding) inside the clip is unchanged.
+     */
+    private final static class PathClipFilter implements PathConsumer2D {
+        private PathConsumer2D out;
+        private float[] clipRect;
+        // outcodes of the current point and of the subpath start point
+        private int cOutCode, sOutCode;
+        // pending invisible run (common outcode and last point)
+        private boolean pending;
+        private int runCode;
+        private float px, py;
+
+        PathClipFilter() {}
+
+        PathClipFilter init(PathConsumer2D out, float[] clipRect) {
+            this.out = out;
+            this.clipRect = clipRect;
+            this.cOutCode = 0;
+            this.sOutCode = 0;
+            this.pending = false;
+            return this; // fluent API
+        }
+
+        private void addRun(final int sideCode, final float x, final float y) {
+            if (MarlinConst.DO_STATS) {
+                RendererContext.stats.stat_pathclip_skip.add(1);
+            }
+            if (pending) {
+                final int code = runCode & sideCode;
+                if (code != 0) {
+                    // same side: extend the run
+                    runCode = code;
+                    px = x;
+                    py = y;
+                    return;
+                }
+                out.lineTo(px, py);
+            }
+            pending = true;
+            runCode = sideCode;
+            px = x;
+            py = y;
+        }
+
+        private void finishRun() {
+            if (pending) {
+                pending = false;
+                out.lineTo(px, py);
+            }
+        }
+
+        @Override
+        public void moveTo(float x0, float y0) {
+            finishRun();
+            out.moveTo(x0, y0);
+            cOutCode = sOutCode = Helpers.outcode(x0, y0, clipRect);
+        }
+
+        @Override
+        public void lineTo(float x1, float y1) {
+            final int outcode1 = Helpers.outcode(x1, y1, clipRect);
+            final int sideCode = cOutCode & outcode1;
+            cOutCode = outcode1;
+
+            if (sideCode != 0) {
+                addRun(sideCode, x1, y1);
+                return;
+            }
+            finishRun();
+            out.lineTo(x1, y1);
+        }
+
+        @Override
+        public void quadTo(float x1, float y1,
+                           float x2, float y2)
+        {
+            final int outcode2 = Helpers.outcode(x2, y2, clipRect);
+            // control polygon (convex hull):
+            final int sideCode = cOutCode & outcode2
+                                 & Helpers.outcode(x1, y1, clipRect);
+            cOutCode = outcode2;
+
+            if (sideCode != 0) {
+                addRun(sideCode, x2, y2);
+                return;
+            }
+            finishRun();
+            out.quadTo(x1, y1, x2, y2);
+        }
+
+        @Override
+        public void curveTo(float x1, float y1,
+                            float x2, float y2,
+                            float x3, float y3)
+        {
+            final int outcode3 = Helpers.outcode(x3, y3, clipRect);
+            // control polygon (convex hull):
+            final int sideCode = cOutCode & outcode3
+                                 & Helpers.outcode(x1, y1, clipRect)
+                                 & Helpers.outcode(x2, y2, clipRect);
+            cOutCode = outcode3;
+
+            if (sideCode != 0) {
+                addRun(sideCode, x3, y3);
+                return;
+            }
+            finishRun();
+            out.curveTo(x1, y1, x2, y2, x3, y3);
+        }
+
+        @Override
+        public void closePath() {
+            finishRun();
+            out.closePath();
+            cOutCode = sOutCode;
+        }
+
+        @Override
+        public void pathDone() {
+            finishRun();
+            out.pathDone();
+        }
+
+        @Override
+        public long getNativeConsumer() {
+            return 0;
+        }
+    }
 }
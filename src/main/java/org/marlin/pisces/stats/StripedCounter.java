@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.marlin.pisces.stats;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe counter striped over padded atomic cells (LongAdder-like):
+ * threads update the cell selected by their thread id so concurrent
+ * renderers rarely contend on the same cache line.
+ */
+public final class StripedCounter {
+
+    // 8 longs = 64 bytes (1 cache line) per stripe
+    static final int PAD_LG = 3;
+    // number of stripes (power of 2)
+    static final int STRIPES;
+    static final int STRIPE_MASK;
+
+    static {
+        int n = 1;
+        final int cpus = Runtime.getRuntime().availableProcessors();
+        while (n < cpus && n < 64) {
+            n <<= 1;
+        }
+        STRIPES = n;
+        STRIPE_MASK = n - 1;
+    }
+
+    /**
+     * Return the stripe index for the current thread
+     * @return stripe index in [0; STRIPES[
+     */
+    static int stripe() {
+        // mix thread id bits (Fibonacci hashing):
+        final long h = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+        return ((int) (h >>> 32)) & STRIPE_MASK;
+    }
+
+    public final String name;
+    private final AtomicLongArray cells
+        = new AtomicLongArray(STRIPES << PAD_LG);
+
+    public StripedCounter(final String name) {
+        this.name = name;
+    }
+
+    public void increment() {
+        cells.getAndIncrement(stripe() << PAD_LG);
+    }
+
+    public void add(final long val) {
+        cells.getAndAdd(stripe() << PAD_LG, val);
+    }
+
+    /**
+     * Return the current sum (not an atomic snapshot)
+     * @return sum of all stripes
+     */
+    public long sum() {
+        long sum = 0L;
+        for (int i = 0; i < STRIPES; i++) {
+            sum += cells.get(i << PAD_LG);
+        }
+        return sum;
+    }
+
+    public void reset() {
+        for (int i = 0; i < STRIPES; i++) {
+            cells.set(i << PAD_LG, 0L);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name + ": " + sum();
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.marlin.pisces.stats;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe histogram with fixed power-of-2 buckets
+ * [0], [1], [2..3], [4..7] ... [2^(MAX - 2)..~] striped over atomic cells:
+ * add() is lock-free and only touches the current thread's stripe.
+ */
+public final class StripedHistogram {
+
+    public static final int MAX = 40;
+    static final int LAST = MAX - 1;
+    // per stripe: MAX buckets + sum (+ padding to a cache line)
+    static final int OFF_SUM = MAX;
+    static final int STRIDE = ((MAX + 1 + 7) >> 3) << 3;
+
+    static int bucket(final long val) {
+        if (val <= 0L) {
+            return 0;
+        }
+        final int b = 64 - Long.numberOfLeadingZeros(val);
+        return (b < LAST) ? b : LAST;
+    }
+
+    /**
+     * Return the lower bound of the given bucket
+     * @param bucket bucket index
+     * @return lower bound (inclusive)
+     */
+    public static long lowerBound(final int bucket) {
+        return (bucket == 0) ? 0L : (1L << (bucket - 1));
+    }
+
+    public final String name;
+    private final AtomicLongArray cells
+        = new AtomicLongArray(StripedCounter.STRIPES * STRIDE);
+
+    public StripedHistogram(final String name) {
+        this.name = name;
+    }
+
+    public void add(final long val) {
+        final int off = StripedCounter.stripe() * STRIDE;
+        cells.getAndIncrement(off + bucket(val));
+        cells.getAndAdd(off + OFF_SUM, val);
+    }
+
+    private long sumOf(final int idx) {
+        long sum = 0L;
+        for (int i = 0, off = idx; i < StripedCounter.STRIPES;
+                i++, off += STRIDE)
+        {
+            sum += cells.get(off);
+        }
+        return sum;
+    }
+
+    public long count() {
+        long count = 0L;
+        for (int b = 0; b < MAX; b++) {
+            count += sumOf(b);
+        }
+        return count;
+    }
+
+    public long sum() {
+        return sumOf(OFF_SUM);
+    }
+
+    /**
+     * Return the bucket counts (not an atomic snapshot)
+     * @return new array of MAX bucket counts
+     */
+    public long[] buckets() {
+        final long[] res = new long[MAX];
+        for (int b = 0; b < MAX; b++) {
+            res[b] = sumOf(b);
+        }
+        return res;
+    }
+
+    /**
+     * Return the approximate value at the given quantile (bucket upper
+     * bound)
+     * @param q quantile in [0; 1]
+     * @return upper bound of the bucket containing the quantile
+     */
+    public long quantile(final double q) {
+        final long[] b = buckets();
+        long total = 0L;
+        for (int i = 0; i < MAX; i++) {
+            total += b[i];
+        }
+        if (total == 0L) {
+            return 0L;
+        }
+        final long rank = (long) Math.ceil(q * total);
+        long acc = 0L;
+        for (int i = 0; i < MAX; i++) {
+            acc += b[i];
+            if (acc >= rank) {
+                return (i == LAST) ? Long.MAX_VALUE : (1L << i) - 1L;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    public void reset() {
+        for (int i = 0, len = cells.length(); i < len; i++) {
+            cells.set(i, 0L);
+        }
+    }
+
+    @Override
+    public String toString() {
+        final long count = count();
+        final StringBuilder sb = new StringBuilder(512);
+        sb.append(name).append('[').append(count).append("] sum: ")
+          .append(sum()).append(" avg: ")
+          .append(StatLong.trimTo3Digits((count != 0L)
+                  ? ((double) sum()) / count : 0d))
+          .append(" p50: ").append(quantile(0.5d))
+          .append(" p99: ").append(quantile(0.99d)).append(" {");
+
+        final long[] b = buckets();
+        for (int i = 0; i < MAX; i++) {
+            if (b[i] != 0L) {
+                sb.append("\n        ").append(lowerBound(i)).append(" .. ")
+                  .append((i == LAST) ? "~" : String.valueOf(lowerBound(i + 1)))
+                  .append(": ").append(b[i]);
+            }
+        }
+        return sb.append(" }").toString();
+    }
+}
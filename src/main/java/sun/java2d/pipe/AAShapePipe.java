@@ -28,8 +28,13 @@ import java.awt.BasicStroke;
 import java.awt.Rectangle;
 import java.awt.Shape;
 import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import org.marlin.pisces.MarlinRenderingEngine;
 import sun.awt.SunHints;
+import sun.awt.image.BufImgSurfaceData;
 import sun.java2d.SunGraphics2D;
+import sun.java2d.SurfaceData;
+import sun.java2d.loops.CompositeType;
 
 /**
  * This class is used to convert raw geometry into 8-bit alpha tiles
@@ -52,6 +57,11 @@ public class AAShapePipe
         }
     };
 
+    // flag to blend coverage directly into buffered images (Marlin)
+    private static final boolean USE_DIRECT_BLEND
+        = (renderengine instanceof MarlinRenderingEngine)
+          && MarlinRenderingEngine.isDirectBlendEnabled();
+
     CompositePipe outpipe;
 
     public AAShapePipe(CompositePipe pipe) {
@@ -75,6 +85,70 @@ public class AAShapePipe
         renderPath(sg, s, null);
     }
 
+    /**
+     * Fill the union of the given shapes with the current paint in a single
+     * rendering pass (Marlin batch fill), or shape by shape if the
+     * rendering engine is not Marlin. Shapes that are not union-safe
+     * (even-odd or with opposite subpath orientations) are filled one by one.
+     * @param sg graphics
+     * @param shapes shapes to fill
+     */
+    public void fillShapes(SunGraphics2D sg, Shape[] shapes) {
+        if (!(renderengine instanceof MarlinRenderingEngine)) {
+            for (Shape s : shapes) {
+                renderPath(sg, s, null);
+            }
+            return;
+        }
+        // batch union-safe shapes only:
+        Shape[] batch = shapes;
+        int n = 0;
+        for (int i = 0; i < shapes.length; i++) {
+            final Shape s = shapes[i];
+            if (MarlinRenderingEngine.isUnionSafe(s)) {
+                if (batch != shapes) {
+                    batch[n] = s;
+                }
+                n++;
+            } else {
+                if (batch == shapes) {
+                    batch = new Shape[shapes.length - 1];
+                    System.arraycopy(shapes, 0, batch, 0, n);
+                }
+                renderPath(sg, s, null);
+            }
+        }
+        if (n == 0) {
+            return;
+        }
+        if (n != batch.length) {
+            batch = Arrays.copyOf(batch, n);
+        }
+        Region clip = sg.getCompClip();
+        final TileState ts = tileStateThreadLocal.get();
+        final int[] abox = ts.abox;
+
+        // no stroke control adjustment for fills (see renderPath):
+        AATileGenerator aatg =
+            ((MarlinRenderingEngine) renderengine).getAATileGenerator(batch,
+                sg.transform, clip, false, abox);
+        if (aatg == null) {
+            // Nothing to render
+            return;
+        }
+        if (USE_DIRECT_BLEND && blendDirect(sg, aatg)) {
+            return;
+        }
+
+        // user bounds of the batch (paint context):
+        final Rectangle2D bbox = batch[0].getBounds2D();
+        for (int i = 1; i < n; i++) {
+            Rectangle2D.union(bbox, batch[i].getBounds2D(), bbox);
+        }
+
+        renderTiles(sg, bbox, aatg, abox, ts);
+    }
+
     public void fillParallelogram(SunGraphics2D sg,
                                   double ux1, double uy1,
                                   double ux2, double uy2,
@@ -93,6 +167,9 @@ public class AAShapePipe
             // Nothing to render
             return;
         }
+        if (USE_DIRECT_BLEND && blendDirect(sg, aatg)) {
+            return;
+        }
 
         renderTiles(sg, ts.computeBBox(ux1, uy1, ux2, uy2), aatg, abox, ts);
     }
@@ -116,6 +193,9 @@ public class AAShapePipe
             // Nothing to render
             return;
         }
+        if (USE_DIRECT_BLEND && blendDirect(sg, aatg)) {
+            return;
+        }
 
         // Note that bbox is of the original shape, not the wide path.
         // This is appropriate for handing to Paint methods...
@@ -138,10 +218,41 @@ public class AAShapePipe
             // Nothing to render
             return;
         }
+        if (USE_DIRECT_BLEND && blendDirect(sg, aatg)) {
+            return;
+        }
 
         renderTiles(sg, s, aatg, abox, ts);
     }
 
+    /**
+     * Blend the coverage directly into the destination raster, without
+     * alpha tiles nor CompositePipe (opaque color, SrcOver, rectangular
+     * clip and IntArgb / IntRgb / 3ByteBgr buffered images)
+     * @return true if the tile generator was consumed and disposed
+     */
+    private static boolean blendDirect(SunGraphics2D sg,
+                                       AATileGenerator aatg)
+    {
+        if (sg.paintState != SunGraphics2D.PAINT_OPAQUECOLOR
+            || sg.imageComp != CompositeType.SrcOverNoEa
+            || sg.clipState == SunGraphics2D.CLIP_SHAPE)
+        {
+            return false;
+        }
+        final SurfaceData sd = sg.getSurfaceData();
+        if (!(sd instanceof BufImgSurfaceData)) {
+            return false;
+        }
+        if (MarlinRenderingEngine.blendOpaqueColor(aatg, sd.getSurfaceType(),
+                sd.getRaster(0, 0, 0, 0), sg.eargb))
+        {
+            sd.markDirty();
+            return true;
+        }
+        return false;
+    }
+
     public void renderTiles(SunGraphics2D sg, Shape s,
                             AATileGenerator aatg, int[] abox, TileState ts)
     {
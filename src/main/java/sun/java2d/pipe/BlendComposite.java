@@ -12,6 +12,7 @@ import java.awt.image.DataBuffer;
 import java.awt.image.Raster;
 import java.awt.image.WritableRaster;
 import java.util.Arrays;
+import sun.awt.image.IntegerComponentRaster;
 
 public final class BlendComposite implements Composite {
 
@@ -191,6 +192,9 @@ public final class BlendComposite implements Composite {
         final int[] _srcPixel = new int[4];
         final int[] _dstPixel = new int[4];
         final int[] _result = new int[4];
+        final float[] _src = new float[4];
+        final float[] _dst = new float[4];
+        final float[] _mix = new float[4];
         int[] _srcPixels = new int[32];
         int[] _dstPixels = new int[32];
         int[] _maskPixels = new int[32];
@@ -251,118 +255,173 @@ public final class BlendComposite implements Composite {
             final int width = Math.min(srcIn.getWidth(), dstIn.getWidth());
             final int height = Math.min(srcIn.getHeight(), dstIn.getHeight());
 
-            final int[] gamma_dir = gamma_LUT.dir;
-            final int[] gamma_inv = gamma_LUT.inv;
-
-            final BlendComposite.Blender blender = _blender;
-
-            // use shared arrays:
-            final int[] srcPixel = _srcPixel;
-            final int[] dstPixel = _dstPixel;
-            final int[] result = _result;
+            if (isPackedInt(srcIn) && isPackedInt(dstIn) && isPackedInt(dstOut)) {
+                composeInts((IntegerComponentRaster) srcIn,
+                            (IntegerComponentRaster) dstIn,
+                            (IntegerComponentRaster) dstOut, width, height);
+                return;
+            }
 
             final int[] srcPixels = getSrcPixels(width);
             final int[] dstPixels = getDstPixels(width);
             final int[] maskPixels = getMaskPixels(width);
 
-            float[] src = new float[4];
-            float[] dst = new float[4];
-            float[] mix = new float[4];
-
-            int alpha, pixel;
-            float src_alpha;
+            int alpha;
 
             for (int y = 0; y < height; y++) {
-                // TODO: use directly BufferInt
                 srcIn.getDataElements(0, y, width, 1, srcPixels);
                 dstIn.getDataElements(0, y, width, 1, dstPixels);
                 dstOut.getDataElements(0, y, width, 1, maskPixels);
 
                 for (int x = 0; x < width; x++) {
                     // pixels are stored as INT_ARGB
-                    // our arrays are [R, G, B, A]
-                    pixel = maskPixels[x];
-                    alpha = /* ( */ pixel /* >> 24) & 0xFF */;
+                    // mask alpha is stored in dstOut:
+                    alpha = maskPixels[x];
 
                     if (alpha == 255) {
                         dstPixels[x] = srcPixels[x];
                     } else if (alpha != 0) {
-//                        System.out.println("alpha = " + alpha);
-
-                        if (USE_COLORSPACE) {
-                            src = (USE_LAB) ? sRGB_to_Lab(srcPixels[x], src) : sRGB_to_LCH(srcPixels[x], src);
-                            dst = (USE_LAB) ? sRGB_to_Lab(dstPixels[x], dst) : sRGB_to_LCH(dstPixels[x], dst);
-
-                            if (TRACE) {
-                                System.out.println("src: " + Arrays.toString(src));
-                                System.out.println("dst: " + Arrays.toString(dst));
-                            }
-
-                            src_alpha = (alpha / 255f);
-
-                            // src & dst are Lab or LCH:
-                            if (USE_MIX_L) {
-                                mix[0] = (dst[0] + src_alpha * (src[0] - dst[0]));
-                            } else {
-                                // L is luminance, use Y (brightness) instead:
-                                float Ysrc = L_to_Y(src[0]);
-                                float Ydst = L_to_Y(dst[0]);
-                                mix[0] = Y_to_L(Ydst + src_alpha * (Ysrc - Ydst));
-                            }
-
-                            // a(Lab) or C(LCH):
-                            mix[1] = (dst[1] + src_alpha * (src[1] - dst[1]));
-
-                            if (USE_LAB) {
-                                // b(Lab)
-                                mix[2] = (dst[2] + src_alpha * (src[2] - dst[2]));
-                            } else {
-                                // H(Lch) angle combination:
-                                float d = src[2] - dst[2];
-                                if (d > 180f) {
-                                    d -= 360f;
-                                } else if (d < -180f) {
-                                    d += 360d;
-                                }
-                                mix[2] = (dst[2] + src_alpha * d);
-                            }
-                            mix[3] = 1f;
-
-                            if (TRACE) {
-                                System.out.println("mixLCH: " + Arrays.toString(mix));
-                            }
-
-                            dstPixels[x] = (USE_LAB) ? Lab_to_sRGB(mix) : LCH_to_sRGB(mix);
-
-                        } else {
-
-                            // blend
-                            pixel = srcPixels[x];
-                            srcPixel[0] = gamma_dir[(pixel >> 16) & 0xFF];
-                            srcPixel[1] = gamma_dir[(pixel >> 8) & 0xFF];
-                            srcPixel[2] = gamma_dir[(pixel) & 0xFF];
-                            srcPixel[3] = (pixel >> 24) & 0xFF;
-
-                            pixel = dstPixels[x];
-                            dstPixel[0] = gamma_dir[(pixel >> 16) & 0xFF];
-                            dstPixel[1] = gamma_dir[(pixel >> 8) & 0xFF];
-                            dstPixel[2] = gamma_dir[(pixel) & 0xFF];
-                            dstPixel[3] = (pixel >> 24) & 0xFF;
-
-                            // recycle int[] instances:
-                            blender.blend(srcPixel, dstPixel, alpha, result);
-
-                            // mixes the result with the opacity
-                            dstPixels[x] = (/*result[3] & */0xFF) << 24
-                                    | gamma_inv[result[0] & 0xFF] << 16
-                                    | gamma_inv[result[1] & 0xFF] << 8
-                                    | gamma_inv[result[2] & 0xFF];
-                        }
+                        dstPixels[x] = blend(srcPixels[x], dstPixels[x], alpha);
                     }
                 }
                 dstOut.setDataElements(0, y, width, 1, dstPixels);
             }
         }
+
+        /**
+         * Fast path working directly on the int[] storage of the given rasters
+         * (no per-row copies)
+         */
+        private void composeInts(final IntegerComponentRaster srcIn,
+                                 final IntegerComponentRaster dstIn,
+                                 final IntegerComponentRaster dstOut,
+                                 final int width, final int height) {
+            final int[] srcData = srcIn.getDataStorage();
+            final int[] dstData = dstIn.getDataStorage();
+            final int[] outData = dstOut.getDataStorage();
+
+            final int srcStride = srcIn.getScanlineStride();
+            final int dstStride = dstIn.getScanlineStride();
+            final int outStride = dstOut.getScanlineStride();
+
+            // offsets of the raster origin (0, 0) as getDataElements(0, y):
+            int srcOff = dataOrigin(srcIn, srcStride);
+            int dstOff = dataOrigin(dstIn, dstStride);
+            int outOff = dataOrigin(dstOut, outStride);
+
+            int alpha, dstPixel;
+
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    // read dst before writing out (dstIn may be dstOut):
+                    dstPixel = dstData[dstOff + x];
+                    // mask alpha is stored in dstOut:
+                    alpha = outData[outOff + x];
+
+                    if (alpha == 255) {
+                        dstPixel = srcData[srcOff + x];
+                    } else if (alpha != 0) {
+                        dstPixel = blend(srcData[srcOff + x], dstPixel, alpha);
+                    }
+                    outData[outOff + x] = dstPixel;
+                }
+                srcOff += srcStride;
+                dstOff += dstStride;
+                outOff += outStride;
+            }
+            dstOut.markDirty();
+        }
+
+        private int blend(final int srcPixel, final int dstPixel, final int alpha) {
+            if (USE_COLORSPACE) {
+                // use shared arrays:
+                final float[] mix = _mix;
+                final float[] src = (USE_LAB) ? sRGB_to_Lab(srcPixel, _src) : sRGB_to_LCH(srcPixel, _src);
+                final float[] dst = (USE_LAB) ? sRGB_to_Lab(dstPixel, _dst) : sRGB_to_LCH(dstPixel, _dst);
+
+                if (TRACE) {
+                    System.out.println("src: " + Arrays.toString(src));
+                    System.out.println("dst: " + Arrays.toString(dst));
+                }
+
+                final float src_alpha = (alpha / 255f);
+
+                // src & dst are Lab or LCH:
+                if (USE_MIX_L) {
+                    mix[0] = (dst[0] + src_alpha * (src[0] - dst[0]));
+                } else {
+                    // L is luminance, use Y (brightness) instead:
+                    float Ysrc = L_to_Y(src[0]);
+                    float Ydst = L_to_Y(dst[0]);
+                    mix[0] = Y_to_L(Ydst + src_alpha * (Ysrc - Ydst));
+                }
+
+                // a(Lab) or C(LCH):
+                mix[1] = (dst[1] + src_alpha * (src[1] - dst[1]));
+
+                if (USE_LAB) {
+                    // b(Lab)
+                    mix[2] = (dst[2] + src_alpha * (src[2] - dst[2]));
+                } else {
+                    // H(Lch) angle combination:
+                    float d = src[2] - dst[2];
+                    if (d > 180f) {
+                        d -= 360f;
+                    } else if (d < -180f) {
+                        d += 360d;
+                    }
+                    mix[2] = (dst[2] + src_alpha * d);
+                }
+                mix[3] = 1f;
+
+                if (TRACE) {
+                    System.out.println("mixLCH: " + Arrays.toString(mix));
+                }
+
+                return (USE_LAB) ? Lab_to_sRGB(mix) : LCH_to_sRGB(mix);
+            }
+
+            final int[] gamma_dir = gamma_LUT.dir;
+            final int[] gamma_inv = gamma_LUT.inv;
+
+            // use shared arrays:
+            final int[] src = _srcPixel;
+            final int[] dst = _dstPixel;
+            final int[] result = _result;
+
+            // blend
+            src[0] = gamma_dir[(srcPixel >> 16) & 0xFF];
+            src[1] = gamma_dir[(srcPixel >> 8) & 0xFF];
+            src[2] = gamma_dir[(srcPixel) & 0xFF];
+            src[3] = (srcPixel >> 24) & 0xFF;
+
+            dst[0] = gamma_dir[(dstPixel >> 16) & 0xFF];
+            dst[1] = gamma_dir[(dstPixel >> 8) & 0xFF];
+            dst[2] = gamma_dir[(dstPixel) & 0xFF];
+            dst[3] = (dstPixel >> 24) & 0xFF;
+
+            // recycle int[] instances:
+            _blender.blend(src, dst, alpha, result);
+
+            // mixes the result with the opacity
+            return (/*result[3] & */0xFF) << 24
+                    | gamma_inv[result[0] & 0xFF] << 16
+                    | gamma_inv[result[1] & 0xFF] << 8
+                    | gamma_inv[result[2] & 0xFF];
+        }
+
+        private static boolean isPackedInt(final Raster raster) {
+            // one int per pixel (INT_ARGB / INT_RGB like layouts):
+            return (raster instanceof IntegerComponentRaster)
+                    && ((IntegerComponentRaster) raster).getPixelStride() == 1
+                    && raster.getNumDataElements() == 1;
+        }
+
+        private static int dataOrigin(final IntegerComponentRaster raster,
+                                      final int scanStride) {
+            return raster.getDataOffset(0)
+                    - raster.getMinY() * scanStride - raster.getMinX();
+        }
     }
 
     private static abstract class Blender {
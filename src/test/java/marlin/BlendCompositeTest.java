@@ -0,0 +1,218 @@
+package marlin;
+
+import java.awt.BasicStroke;
+import java.awt.CompositeContext;
+import java.awt.Point;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+import java.util.Random;
+import sun.java2d.pipe.BlendComposite;
+
+/**
+ * Checks that BlendComposite gives the same pixels on packed int rasters
+ * (direct int[] access) as on generic rasters (per-row copies), composing
+ * tile by tile as GeneralCompositePipe does
+ */
+public class BlendCompositeTest {
+
+    static final int W = 150;
+    static final int H = 110;
+    static final int TILE = 32;
+
+    // position of the destination / source in their parent images:
+    static final int DX = 13;
+    static final int DY = 7;
+    static final int SX = 5;
+    static final int SY = 21;
+
+    static byte[] fillMask() {
+        return MaskRendering.render(
+            new Ellipse2D.Float(10.3f, 8.6f, 120.5f, 90.25f),
+            null, null, false, false, W, H);
+    }
+
+    static byte[] strokeMask() {
+        final Random r = new Random(3);
+        final Path2D.Float p = new Path2D.Float();
+        p.moveTo(r.nextFloat() * W, r.nextFloat() * H);
+        for (int i = 0; i < 30; i++) {
+            p.lineTo(r.nextFloat() * W, r.nextFloat() * H);
+        }
+        return MaskRendering.render(p,
+            AffineTransform.getRotateInstance(0.2, W / 2.0, H / 2.0),
+            new BasicStroke(3.5f, BasicStroke.CAP_ROUND,
+                            BasicStroke.JOIN_ROUND), false, true, W, H);
+    }
+
+    static byte[] clippedFillMask() {
+        // star crossing the clip bounds:
+        final Path2D.Float p = new Path2D.Float(Path2D.WIND_EVEN_ODD);
+        for (int i = 0; i < 5; i++) {
+            final double a = i * (4.0 * Math.PI / 5.0);
+            final float x = (float) (W * 0.6 + 1.3 * W * Math.cos(a));
+            final float y = (float) (H * 0.4 + 1.3 * H * Math.sin(a));
+            if (i == 0) {
+                p.moveTo(x, y);
+            } else {
+                p.lineTo(x, y);
+            }
+        }
+        p.closePath();
+        return MaskRendering.render(p, null, null, false, false, W, H);
+    }
+
+    public void testFill() {
+        check("fill", fillMask());
+    }
+
+    public void testStroke() {
+        check("stroke", strokeMask());
+    }
+
+    public void testClippedFill() {
+        check("clipped fill", clippedFillMask());
+    }
+
+    public void testInPlace() {
+        // no coverage tile: dstIn == dstOut (full opacity)
+        check("in-place", null);
+    }
+
+    private static void check(final String name, final byte[] mask) {
+        // packed int rasters: children with a non-zero data offset
+        final BufferedImage srcImg = image(W + SX + 9, H + SY + 4, 1);
+        final BufferedImage dstImg = image(W + DX + 3, H + DY + 11, 2);
+
+        final Raster src = srcImg.getSubimage(SX, SY, W, H).getRaster();
+        final WritableRaster dst = dstImg.getSubimage(DX, DY, W, H)
+                                       .getRaster();
+
+        // generic rasters with the same pixels:
+        final WritableRaster srcRef = PlainRaster.copyOf(src);
+        final WritableRaster dstRef = PlainRaster.copyOf(dst);
+
+        compose(src, dst, mask, false);
+        compose(srcRef, dstRef, mask, true);
+
+        final int[] expected = new int[W];
+        final int[] actual = new int[W];
+        for (int y = 0; y < H; y++) {
+            dstRef.getDataElements(0, y, W, 1, expected);
+            dst.getDataElements(0, y, W, 1, actual);
+            for (int x = 0; x < W; x++) {
+                if (expected[x] != actual[x]) {
+                    throw new AssertionError(name + ": pixel (" + x + ", "
+                        + y + ") = " + Integer.toHexString(actual[x])
+                        + " != " + Integer.toHexString(expected[x]));
+                }
+            }
+        }
+        // pixels outside the subimage must be left untouched:
+        final BufferedImage orig = image(dstImg.getWidth(),
+                                         dstImg.getHeight(), 2);
+        for (int y = 0; y < dstImg.getHeight(); y++) {
+            for (int x = 0; x < dstImg.getWidth(); x++) {
+                if ((x < DX || x >= DX + W || y < DY || y >= DY + H)
+                        && dstImg.getRGB(x, y) != orig.getRGB(x, y))
+                {
+                    throw new AssertionError(name + ": pixel (" + x + ", "
+                        + y + ") outside the destination was modified");
+                }
+            }
+        }
+    }
+
+    /**
+     * Compose src over dst tile by tile like GeneralCompositePipe
+     * (mask alpha stored into dstOut; null mask means full opacity)
+     */
+    private static void compose(final Raster src, final WritableRaster dst,
+                                final byte[] mask, final boolean generic)
+    {
+        final ColorModel cm = ColorModel.getRGBdefault();
+        final CompositeContext ctx = BlendComposite.SrcOver.createContext(
+            cm, cm, null);
+        try {
+            final int[] maskPixels = new int[TILE];
+
+            for (int y = 0; y < H; y += TILE) {
+                final int h = Math.min(TILE, H - y);
+                for (int x = 0; x < W; x += TILE) {
+                    final int w = Math.min(TILE, W - x);
+                    final Raster srcTile = src.createChild(x, y, w, h, 0, 0,
+                                                           null);
+                    if (mask == null) {
+                        final WritableRaster dstOut
+                            = dst.createWritableChild(x, y, w, h, 0, 0, null);
+                        Arrays.fill(maskPixels, 0, w, 0xFF);
+                        for (int j = 0; j < h; j++) {
+                            dstOut.setDataElements(0, j, w, 1, maskPixels);
+                        }
+                        ctx.compose(srcTile, dstOut, dstOut);
+                        continue;
+                    }
+                    final Raster dstIn = dst.createChild(x, y, w, h, 0, 0,
+                                                         null);
+                    final WritableRaster dstOut = (generic)
+                        ? new PlainRaster(dstIn.getSampleModel()
+                              .createCompatibleSampleModel(w, h))
+                        : dstIn.createCompatibleWritableRaster();
+
+                    for (int j = 0; j < h; j++) {
+                        for (int i = 0; i < w; i++) {
+                            maskPixels[i] = mask[(y + j) * W + x + i] & 0xFF;
+                        }
+                        dstOut.setDataElements(0, j, w, 1, maskPixels);
+                    }
+                    ctx.compose(srcTile, dstIn, dstOut);
+                    dst.setDataElements(x, y, dstOut);
+                }
+            }
+        } finally {
+            ctx.dispose();
+        }
+    }
+
+    private static BufferedImage image(final int w, final int h,
+                                       final long seed)
+    {
+        final BufferedImage img = new BufferedImage(w, h,
+                                      BufferedImage.TYPE_INT_ARGB);
+        final Random r = new Random(seed);
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                img.setRGB(x, y, 0xFF000000 | r.nextInt(0x1000000));
+            }
+        }
+        return img;
+    }
+
+    /**
+     * Raster that is not an IntegerComponentRaster (generic code path)
+     */
+    static final class PlainRaster extends WritableRaster {
+
+        PlainRaster(final SampleModel sm) {
+            this(sm, sm.createDataBuffer());
+        }
+
+        private PlainRaster(final SampleModel sm, final DataBuffer db) {
+            super(sm, db, new Point(0, 0));
+        }
+
+        static PlainRaster copyOf(final Raster r) {
+            final PlainRaster copy = new PlainRaster(r.getSampleModel()
+                .createCompatibleSampleModel(r.getWidth(), r.getHeight()));
+            copy.setDataElements(0, 0, r);
+            return copy;
+        }
+    }
+}
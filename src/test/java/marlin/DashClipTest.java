@@ -0,0 +1,106 @@
+package marlin;
+
+import java.awt.BasicStroke;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that dashed strokes crossing the clip rectangle are rendered the
+ * same with and without clipping (sun.java2d.renderer.useClip): dashes
+ * skipped outside the clip must not shift the dash phase
+ */
+public class DashClipTest {
+
+    static final int W = 200;
+    static final int H = 150;
+
+    static final float[][] DASHES = {
+        {5f, 3f},
+        {1.5f, 2.5f, 7f, 0.75f},
+        {0.3f, 0.7f}
+    };
+
+    static List<Shape> shapes() {
+        final Random r = new Random(7);
+        final List<Shape> shapes = new ArrayList<Shape>();
+
+        // long lines crossing the clip:
+        shapes.add(new Line2D.Float(-5000.3f, -3000.6f, 5000.2f, 3000.7f));
+        shapes.add(new Line2D.Float(-20000f, 75.25f, 20000f, 75.25f));
+        shapes.add(new Line2D.Float(100.5f, -8000f, 100.5f, 8000f));
+
+        // polyline going in and out of the clip:
+        Path2D.Float p = new Path2D.Float();
+        p.moveTo(-1000f, -1000f);
+        for (int i = 0; i < 40; i++) {
+            p.lineTo(r.nextFloat() * 3000f - 1400f,
+                     r.nextFloat() * 3000f - 1400f);
+        }
+        shapes.add(p);
+
+        // closed polygon larger than the clip (closing join):
+        p = new Path2D.Float();
+        p.moveTo(-700.5f, -600.25f);
+        p.lineTo(900.75f, -500.5f);
+        p.lineTo(850.25f, 750.75f);
+        p.lineTo(-650.5f, 700.5f);
+        p.closePath();
+        shapes.add(p);
+
+        // segments outside the clip on one side then entering it:
+        p = new Path2D.Float();
+        p.moveTo(-3000f, 20.5f);
+        p.lineTo(-2000f, 140.5f);
+        p.lineTo(-1000f, 10.5f);
+        p.lineTo(150.25f, 60.75f);
+        p.lineTo(3000f, 100.5f);
+        shapes.add(p);
+        return shapes;
+    }
+
+    /**
+     * Child JVM: render all cases and write their masks into the given file
+     */
+    public static void main(String[] args) throws Exception {
+        // uniform scale and rotation (stroked in device space):
+        final AffineTransform at2 = new AffineTransform(1.1, 0.3, -0.3, 1.1,
+                                                        5.3, -7.1);
+        final AffineTransform[] transforms = {null, at2};
+        final List<byte[]> masks = new ArrayList<byte[]>();
+        for (Shape s : shapes()) {
+            for (float[] dash : DASHES) {
+                for (int cap = 0; cap < 3; cap++) {
+                    final BasicStroke bs = new BasicStroke(1.5f, cap,
+                        BasicStroke.JOIN_MITER, 10f, dash, 1.25f);
+                    for (AffineTransform at : transforms) {
+                        masks.add(MaskRendering.render(s, at, bs, false,
+                                      (at != null), W, H));
+                    }
+                }
+            }
+        }
+        MaskRendering.write(new File(args[0]), masks);
+    }
+
+    public void testClippedDashes() throws Exception {
+        final List<byte[]> unclipped = MaskRendering.renderForked(
+            DashClipTest.class, "-Dsun.java2d.renderer.useClip=false");
+        final List<byte[]> clipped = MaskRendering.renderForked(
+            DashClipTest.class, "-Dsun.java2d.renderer.useClip=true");
+
+        for (int i = 0; i < unclipped.size(); i++) {
+            final int diffs = MaskRendering.countDiffs(unclipped.get(i),
+                                                       clipped.get(i), 0);
+            if (diffs != 0) {
+                throw new AssertionError("case " + i + ": " + diffs
+                    + " pixels differ from the unclipped rendering");
+            }
+        }
+    }
+}
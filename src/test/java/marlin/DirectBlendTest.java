@@ -0,0 +1,158 @@
+package marlin;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.marlin.pisces.MarlinRenderingEngine;
+import sun.java2d.pipe.RenderingEngine;
+
+/**
+ * Checks that blending coverage directly into IntArgb, IntRgb and 3ByteBgr
+ * images (sun.java2d.renderer.useDirectBlend) gives the same pixels as the
+ * standard MaskFill loops, through the whole Java2D pipeline
+ */
+public class DirectBlendTest {
+
+    static final int W = 180;
+    static final int H = 140;
+
+    static final int[] TYPES = {
+        BufferedImage.TYPE_INT_ARGB,
+        BufferedImage.TYPE_INT_RGB,
+        BufferedImage.TYPE_3BYTE_BGR
+    };
+
+    static final Color[] COLORS = {
+        new Color(0xFF3366CC, true),
+        new Color(0xFFFFFFFF, true),
+        // translucent color (MaskFill in both cases):
+        new Color(0x80E0A020, true)
+    };
+
+    static List<Shape> shapes() {
+        final Random r = new Random(13);
+        final List<Shape> shapes = new ArrayList<Shape>();
+        shapes.add(new Ellipse2D.Float(10.3f, 8.6f, 150.5f, 110.25f));
+        shapes.add(new RoundRectangle2D.Float(-20.5f, 30.25f, 240.75f, 60.5f,
+                                              30f, 20f));
+        final Path2D.Float p = new Path2D.Float(Path2D.WIND_EVEN_ODD);
+        p.moveTo(r.nextFloat() * W, r.nextFloat() * H);
+        for (int i = 0; i < 25; i++) {
+            p.quadTo(r.nextFloat() * W, r.nextFloat() * H,
+                     r.nextFloat() * W, r.nextFloat() * H);
+        }
+        p.closePath();
+        shapes.add(p);
+        return shapes;
+    }
+
+    /**
+     * Child JVM: draw all cases into images and write their pixels into the
+     * given file
+     */
+    public static void main(String[] args) throws Exception {
+        if (!(RenderingEngine.getInstance() instanceof MarlinRenderingEngine)) {
+            throw new IllegalStateException("Marlin renderer not in use: "
+                + RenderingEngine.getInstance());
+        }
+        final BasicStroke bs = new BasicStroke(4.5f, BasicStroke.CAP_ROUND,
+                                               BasicStroke.JOIN_ROUND);
+        final List<byte[]> pixels = new ArrayList<byte[]>();
+        for (int type : TYPES) {
+            for (Color c : COLORS) {
+                for (int clip = 0; clip < 2; clip++) {
+                    // subimage: non-zero raster offsets
+                    final BufferedImage parent = background(type);
+                    final BufferedImage img = (clip == 0) ? parent
+                        : parent.getSubimage(7, 5, W - 20, H - 15);
+                    final Graphics2D g = img.createGraphics();
+                    try {
+                        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                                           RenderingHints.VALUE_ANTIALIAS_ON);
+                        g.setColor(c);
+                        if (clip != 0) {
+                            g.clipRect(11, 9, 130, 95);
+                        }
+                        for (Shape s : shapes()) {
+                            g.fill(s);
+                            g.setStroke(bs);
+                            g.draw(s);
+                        }
+                    } finally {
+                        g.dispose();
+                    }
+                    pixels.add(toBytes(parent));
+                }
+            }
+        }
+        MaskRendering.write(new File(args[0]), pixels);
+    }
+
+    private static BufferedImage background(final int type) {
+        final BufferedImage img = new BufferedImage(W, H, type);
+        final Random r = new Random(type);
+        for (int y = 0; y < H; y++) {
+            for (int x = 0; x < W; x++) {
+                // translucent pixels (IntArgb):
+                img.setRGB(x, y, r.nextInt());
+            }
+        }
+        return img;
+    }
+
+    private static byte[] toBytes(final BufferedImage img) {
+        final byte[] b = new byte[4 * W * H];
+        for (int y = 0, i = 0; y < H; y++) {
+            for (int x = 0; x < W; x++) {
+                final int argb = img.getRGB(x, y);
+                b[i++] = (byte) (argb >> 24);
+                b[i++] = (byte) (argb >> 16);
+                b[i++] = (byte) (argb >> 8);
+                b[i++] = (byte) argb;
+            }
+        }
+        return b;
+    }
+
+    public void testDirectBlend() throws Exception {
+        // Marlin classes before the JDK ones (AAShapePipe):
+        final String classes = new File(MarlinRenderingEngine.class
+            .getProtectionDomain().getCodeSource().getLocation().toURI())
+            .getPath();
+        final String boot = "-Xbootclasspath/p:" + classes;
+        final String engine
+            = "-Dsun.java2d.renderer=org.marlin.pisces.PiscesRenderingEngine";
+
+        final List<byte[]> maskFill = MaskRendering.renderForked(
+            DirectBlendTest.class, boot, engine,
+            "-Dsun.java2d.renderer.useDirectBlend=false");
+        final List<byte[]> direct = MaskRendering.renderForked(
+            DirectBlendTest.class, boot, engine,
+            "-Dsun.java2d.renderer.useDirectBlend=true");
+
+        int i = 0;
+        for (int type : TYPES) {
+            for (int c = 0; c < COLORS.length; c++) {
+                for (int clip = 0; clip < 2; clip++, i++) {
+                    final int diffs = MaskRendering.countDiffs(
+                        maskFill.get(i), direct.get(i), 0);
+                    if (diffs != 0) {
+                        throw new AssertionError("image type " + type
+                            + ", color " + c + ", clip " + clip + ": " + diffs
+                            + " components differ from MaskFill");
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package marlin;
+
+import java.awt.BasicStroke;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.marlin.pisces.MarlinRenderingEngine;
+import sun.java2d.pipe.AATileGenerator;
+import sun.java2d.pipe.Region;
+
+/**
+ * Test helper: renders coverage masks with the Marlin renderer and runs
+ * renderings in a child JVM with other renderer settings (system properties
+ * are read once by the renderer).
+ */
+final class MaskRendering {
+
+    static {
+        // initialize Java2D (headless) before using the rendering engine:
+        new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB)
+            .createGraphics().dispose();
+    }
+
+    private static final MarlinRenderingEngine ENGINE
+        = new MarlinRenderingEngine();
+
+    private MaskRendering() {
+        // no instance
+    }
+
+    /**
+     * Render the given shape (filled if bs is null) into a coverage mask
+     * @return mask of width x height alpha values (0 to 255)
+     */
+    static byte[] render(final Shape s, final AffineTransform at,
+                         final BasicStroke bs, final boolean thin,
+                         final boolean normalize,
+                         final int width, final int height)
+    {
+        final byte[] mask = new byte[width * height];
+        final int[] bbox = new int[4];
+        final AATileGenerator g = ENGINE.getAATileGenerator(s, at,
+            Region.getInstanceXYWH(0, 0, width, height), bs, thin, normalize,
+            bbox);
+        if (g != null) {
+            copyTiles(g, bbox, mask, width);
+        }
+        return mask;
+    }
+
+    /**
+     * Render the given shapes as a union (batch fill) into a coverage mask
+     * @return mask of width x height alpha values (0 to 255)
+     */
+    static byte[] renderUnion(final Shape[] shapes, final AffineTransform at,
+                              final int width, final int height)
+    {
+        final byte[] mask = new byte[width * height];
+        final int[] bbox = new int[4];
+        final AATileGenerator g = ENGINE.getAATileGenerator(shapes, at,
+            Region.getInstanceXYWH(0, 0, width, height), false, bbox);
+        if (g != null) {
+            copyTiles(g, bbox, mask, width);
+        }
+        return mask;
+    }
+
+    private static void copyTiles(final AATileGenerator g, final int[] bbox,
+                                  final byte[] mask, final int width)
+    {
+        try {
+            final int tw = g.getTileWidth();
+            final int th = g.getTileHeight();
+            final byte[] tile = new byte[tw * th];
+
+            for (int y = bbox[1]; y < bbox[3]; y += th) {
+                final int h = Math.min(th, bbox[3] - y);
+                for (int x = bbox[0]; x < bbox[2]; x += tw) {
+                    final int w = Math.min(tw, bbox[2] - x);
+                    final int alpha = g.getTypicalAlpha();
+                    if (alpha == 0x00) {
+                        g.nextTile();
+                    } else if (alpha == 0xff) {
+                        g.nextTile();
+                        for (int j = 0; j < h; j++) {
+                            Arrays.fill(mask, (y + j) * width + x,
+                                        (y + j) * width + x + w, (byte) 0xff);
+                        }
+                    } else {
+                        g.getAlpha(tile, 0, tw);
+                        for (int j = 0; j < h; j++) {
+                            System.arraycopy(tile, j * tw, mask,
+                                             (y + j) * width + x, w);
+                        }
+                    }
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+    }
+
+    /**
+     * Write the given masks into a file (child JVM)
+     */
+    static void write(final File file, final List<byte[]> masks)
+        throws IOException
+    {
+        final DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(file)));
+        try {
+            out.writeInt(masks.size());
+            for (byte[] mask : masks) {
+                out.writeInt(mask.length);
+                out.write(mask);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private static List<byte[]> read(final File file) throws IOException {
+        final DataInputStream in = new DataInputStream(
+            new BufferedInputStream(new FileInputStream(file)));
+        try {
+            final int n = in.readInt();
+            final List<byte[]> masks = new ArrayList<byte[]>(n);
+            for (int i = 0; i < n; i++) {
+                final byte[] mask = new byte[in.readInt()];
+                in.readFully(mask);
+                masks.add(mask);
+            }
+            return masks;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Run mainClass.main(outputFile) in a child JVM with the given renderer
+     * settings and return the masks it wrote
+     * @param mainClass class writing its masks with write()
+     * @param settings system properties (-Dname=value)
+     * @return masks rendered by the child JVM
+     */
+    static List<byte[]> renderForked(final Class<?> mainClass,
+                                     final String... settings)
+        throws IOException, InterruptedException
+    {
+        final File file = File.createTempFile("marlin-masks", ".bin");
+        try {
+            final List<String> cmd = new ArrayList<String>();
+            cmd.add(System.getProperty("java.home") + File.separator + "bin"
+                    + File.separator + "java");
+            cmd.add("-Djava.awt.headless=true");
+            cmd.addAll(Arrays.asList(settings));
+            cmd.add("-cp");
+            cmd.add(System.getProperty("surefire.test.class.path",
+                        System.getProperty("java.class.path")));
+            cmd.add(mainClass.getName());
+            cmd.add(file.getAbsolutePath());
+
+            final Process p = new ProcessBuilder(cmd)
+                                  .redirectErrorStream(true).start();
+            final String output = readAll(p.getInputStream());
+            if (p.waitFor() != 0) {
+                throw new IllegalStateException(mainClass.getName()
+                    + " failed " + Arrays.toString(settings) + ":\n" + output);
+            }
+            return read(file);
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static String readAll(final InputStream in) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buf = new byte[4096];
+        for (int n; (n = in.read(buf)) != -1;) {
+            out.write(buf, 0, n);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Return the number of pixels whose alpha differs by more than the
+     * given tolerance
+     */
+    static int countDiffs(final byte[] m1, final byte[] m2,
+                          final int tolerance)
+    {
+        int count = 0;
+        for (int i = 0; i < m1.length; i++) {
+            if (Math.abs((m1[i] & 0xff) - (m2[i] & 0xff)) > tolerance) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Return the sum of alpha values (ink) of the given mask
+     */
+    static long ink(final byte[] mask) {
+        long sum = 0L;
+        for (byte b : mask) {
+            sum += (b & 0xff);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,157 @@
+package marlin;
+
+import java.awt.BasicStroke;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that parallel stroking (sun.java2d.renderer.useParallelStroke) and
+ * parallel rendering (sun.java2d.renderer.useParallel) produce the same
+ * coverage as the sequential renderer
+ */
+public class ParallelStrokeTest {
+
+    static final int W = 400;
+    static final int H = 300;
+
+    // sequential settings (defaults)
+    static final String[] SEQUENTIAL = {};
+
+    // small thresholds to split the test shapes into pieces and bands:
+    static final String[] PARALLEL = {
+        "-Dsun.java2d.renderer.useParallelStroke=true",
+        "-Dsun.java2d.renderer.useParallel=true",
+        "-Dsun.java2d.renderer.parallel.threads=4",
+        "-Dsun.java2d.renderer.parallel.minHeight=64",
+        "-Dsun.java2d.renderer.parallelStroke.minSegments=8192"
+    };
+
+    static final String OFF_HEAP = "-Dsun.java2d.renderer.useOffHeap=true";
+
+    static List<Shape> shapes() {
+        final Random r = new Random(5);
+        final List<Shape> shapes = new ArrayList<Shape>();
+
+        // random walk (many short segments, sharp turns):
+        Path2D.Float p = new Path2D.Float();
+        float x = W / 2f, y = H / 2f;
+        p.moveTo(x, y);
+        for (int i = 0; i < 20000; i++) {
+            x += r.nextFloat() * 6f - 3f;
+            y += r.nextFloat() * 6f - 3f;
+            p.lineTo(x, y);
+        }
+        shapes.add(p);
+
+        // duplicate points (zero-length segments) on a grid walk:
+        p = new Path2D.Float();
+        x = W / 2f;
+        y = H / 2f;
+        p.moveTo(x, y);
+        for (int i = 0; i < 20000; i++) {
+            if (r.nextInt(3) != 0) {
+                x += r.nextInt(5) - 2;
+                y += r.nextInt(5) - 2;
+            }
+            p.lineTo(x, y);
+        }
+        shapes.add(p);
+
+        // wave crossing the clip bounds (clipped pieces):
+        p = new Path2D.Float();
+        p.moveTo(-W, H / 2f);
+        for (int i = 1; i < 10000; i++) {
+            p.lineTo(-W + i * (3f * W / 10000f),
+                     H / 2f + 1.5f * H * (float) Math.sin(i * 0.01));
+        }
+        shapes.add(p);
+
+        // open polylines of at least 8192 segments are stroked in parallel,
+        // other paths fall back to the sequential Stroker:
+
+        // closed smooth polygon (closing join):
+        p = new Path2D.Float();
+        p.moveTo(W / 2f + 120f, H / 2f);
+        for (int i = 1; i < 20000; i++) {
+            final double a = i * (2.0 * Math.PI / 20000);
+            p.lineTo(W / 2f + 120f * (float) Math.cos(a),
+                     H / 2f + 120f * (float) Math.sin(a));
+        }
+        p.closePath();
+        shapes.add(p);
+
+        // several subpaths:
+        p = new Path2D.Float();
+        for (int j = 0; j < 10; j++) {
+            p.moveTo(r.nextFloat() * W, r.nextFloat() * H);
+            for (int i = 0; i < 150; i++) {
+                p.lineTo(r.nextFloat() * W, r.nextFloat() * H);
+            }
+        }
+        shapes.add(p);
+        return shapes;
+    }
+
+    /**
+     * Child JVM: render all cases and write their masks into the given file
+     */
+    public static void main(String[] args) throws Exception {
+        // uniform scale and rotation (stroked in device space):
+        final AffineTransform at2 = new AffineTransform(1.1, 0.3, -0.3, 1.1,
+                                                        5.3, -7.1);
+        final AffineTransform[] transforms = {null, at2};
+        final List<byte[]> masks = new ArrayList<byte[]>();
+        for (Shape s : shapes()) {
+            for (int cap = 0; cap < 3; cap++) {
+                for (int join = 0; join < 3; join++) {
+                    final BasicStroke bs = new BasicStroke(2.5f, cap, join);
+                    for (AffineTransform at : transforms) {
+                        masks.add(MaskRendering.render(s, at, bs, false,
+                                      (at != null), W, H));
+                    }
+                }
+            }
+        }
+        MaskRendering.write(new File(args[0]), masks);
+    }
+
+    public void testParallelStroke() throws Exception {
+        compare(MaskRendering.renderForked(ParallelStrokeTest.class,
+                    SEQUENTIAL),
+                MaskRendering.renderForked(ParallelStrokeTest.class,
+                    PARALLEL));
+    }
+
+    public void testParallelStrokeOffHeap() throws Exception {
+        final String[] parallel = new String[PARALLEL.length + 1];
+        System.arraycopy(PARALLEL, 0, parallel, 0, PARALLEL.length);
+        parallel[PARALLEL.length] = OFF_HEAP;
+
+        compare(MaskRendering.renderForked(ParallelStrokeTest.class,
+                    OFF_HEAP),
+                MaskRendering.renderForked(ParallelStrokeTest.class,
+                    parallel));
+    }
+
+    private static void compare(final List<byte[]> expected,
+                                final List<byte[]> actual)
+    {
+        if (expected.size() != actual.size()) {
+            throw new AssertionError("mask count: " + actual.size()
+                                     + " != " + expected.size());
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            final int diffs = MaskRendering.countDiffs(expected.get(i),
+                                                       actual.get(i), 0);
+            if (diffs != 0) {
+                throw new AssertionError("case " + i + ": " + diffs
+                    + " pixels differ from the sequential rendering");
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package marlin;
+
+import java.awt.BasicStroke;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.CubicCurve2D;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.geom.RoundRectangle2D;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that the alpha tiles do not depend on the row encoding
+ * (sun.java2d.renderer.useRLE, sun.java2d.renderer.rle.minWidth) nor on
+ * the block flags (sun.java2d.renderer.useBlockFlags)
+ */
+public class RowEncodingTest {
+
+    static final int W = 400;
+    static final int H = 300;
+
+    static List<Shape> shapes() {
+        final Random r = new Random(5);
+        final List<Shape> shapes = new ArrayList<Shape>();
+
+        // wide and narrow fills:
+        shapes.add(new Rectangle2D.Float(3.3f, 5.6f, 390.2f, 280.7f));
+        shapes.add(new Rectangle2D.Float(100.25f, 50.5f, 3.5f, 200.75f));
+        shapes.add(new Ellipse2D.Float(-50.3f, 20.6f, 500.2f, 250.1f));
+        shapes.add(new RoundRectangle2D.Float(20.5f, 30.25f, 350.75f, 200.5f,
+                                              60f, 40f));
+        shapes.add(new CubicCurve2D.Float(0f, 290f, 100f, -200f, 300f, 500f,
+                                          400f, 10f));
+
+        // even-odd star crossing the clip:
+        Path2D.Float p = new Path2D.Float(Path2D.WIND_EVEN_ODD);
+        for (int i = 0; i < 7; i++) {
+            final double a = i * (6.0 * Math.PI / 7.0);
+            final float x = (float) (W * 0.5 + 0.7 * W * Math.cos(a));
+            final float y = (float) (H * 0.5 + 0.7 * H * Math.sin(a));
+            if (i == 0) {
+                p.moveTo(x, y);
+            } else {
+                p.lineTo(x, y);
+            }
+        }
+        p.closePath();
+        shapes.add(p);
+
+        // random polygon (many short runs):
+        p = new Path2D.Float();
+        p.moveTo(r.nextFloat() * W, r.nextFloat() * H);
+        for (int i = 0; i < 60; i++) {
+            p.lineTo(r.nextFloat() * W, r.nextFloat() * H);
+        }
+        p.closePath();
+        shapes.add(p);
+        return shapes;
+    }
+
+    /**
+     * Child JVM: render all cases and write their masks into the given file
+     */
+    public static void main(String[] args) throws Exception {
+        final AffineTransform at2 = new AffineTransform(0.9, 0.25, -0.3, 1.05,
+                                                        17.3, -9.1);
+        final AffineTransform[] transforms = {null, at2};
+        final BasicStroke[] strokes = {
+            null,
+            new BasicStroke(0.75f),
+            new BasicStroke(12.5f, BasicStroke.CAP_ROUND,
+                            BasicStroke.JOIN_ROUND),
+            new BasicStroke(3f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER,
+                            10f, new float[]{9f, 4f}, 0f)
+        };
+        final List<byte[]> masks = new ArrayList<byte[]>();
+        for (Shape s : shapes()) {
+            for (BasicStroke bs : strokes) {
+                for (AffineTransform at : transforms) {
+                    masks.add(MaskRendering.render(s, at, bs, false,
+                                                   (bs != null), W, H));
+                }
+            }
+        }
+        MaskRendering.write(new File(args[0]), masks);
+    }
+
+    public void testRLE() throws Exception {
+        final List<byte[]> dense = MaskRendering.renderForked(
+            RowEncodingTest.class, "-Dsun.java2d.renderer.useRLE=false");
+
+        check("RLE", dense, MaskRendering.renderForked(
+            RowEncodingTest.class, "-Dsun.java2d.renderer.useRLE=true"));
+        // RLE on every row:
+        check("RLE (minWidth=0)", dense, MaskRendering.renderForked(
+            RowEncodingTest.class, "-Dsun.java2d.renderer.useRLE=true",
+            "-Dsun.java2d.renderer.rle.minWidth=0"));
+    }
+
+    public void testBlockFlags() throws Exception {
+        final List<byte[]> dense = MaskRendering.renderForked(
+            RowEncodingTest.class, "-Dsun.java2d.renderer.useRLE=false",
+            "-Dsun.java2d.renderer.useBlockFlags=false");
+
+        check("block flags", dense, MaskRendering.renderForked(
+            RowEncodingTest.class, "-Dsun.java2d.renderer.useRLE=false",
+            "-Dsun.java2d.renderer.useBlockFlags=true"));
+        check("RLE + block flags", dense, MaskRendering.renderForked(
+            RowEncodingTest.class, "-Dsun.java2d.renderer.useRLE=true",
+            "-Dsun.java2d.renderer.rle.minWidth=0",
+            "-Dsun.java2d.renderer.useBlockFlags=true"));
+        check("RLE without block flags", dense, MaskRendering.renderForked(
+            RowEncodingTest.class, "-Dsun.java2d.renderer.useRLE=true",
+            "-Dsun.java2d.renderer.rle.minWidth=0",
+            "-Dsun.java2d.renderer.useBlockFlags=false"));
+    }
+
+    static void check(final String name, final List<byte[]> expected,
+                      final List<byte[]> actual)
+    {
+        if (expected.size() != actual.size()) {
+            throw new AssertionError(name + ": " + actual.size()
+                + " masks != " + expected.size());
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            final int diffs = MaskRendering.countDiffs(expected.get(i),
+                                                       actual.get(i), 0);
+            if (diffs != 0) {
+                throw new AssertionError(name + ": case " + i + ": " + diffs
+                    + " pixels differ");
+            }
+        }
+    }
+}
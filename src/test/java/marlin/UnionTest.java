@@ -0,0 +1,162 @@
+package marlin;
+
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import org.marlin.pisces.MarlinRenderingEngine;
+
+/**
+ * Checks that the batch fill (MarlinRenderingEngine.getAATileGenerator with
+ * a shape array) renders the union of union-safe shapes: overlapping
+ * shapes never cancel. Other shapes (even-odd or with opposite subpath
+ * orientations) are not union-safe.
+ */
+public class UnionTest {
+
+    static final int W = 200;
+    static final int H = 160;
+    // alpha rounding
+    static final int TOLERANCE = 2;
+
+    static final AffineTransform[] TRANSFORMS = {
+        null,
+        // mirror (negative determinant):
+        new AffineTransform(-1.0, 0.0, 0.0, 1.0, W, 0.0),
+        new AffineTransform(0.9, 0.2, -0.2, 0.9, 20.3, 5.6)
+    };
+
+    static Path2D.Float rect(final Path2D.Float p, final float x,
+                             final float y, final float w, final float h,
+                             final boolean clockwise)
+    {
+        p.moveTo(x, y);
+        if (clockwise) {
+            p.lineTo(x + w, y);
+            p.lineTo(x + w, y + h);
+            p.lineTo(x, y + h);
+        } else {
+            p.lineTo(x, y + h);
+            p.lineTo(x + w, y + h);
+            p.lineTo(x + w, y);
+        }
+        p.closePath();
+        return p;
+    }
+
+    public void testOverlappingShapes() {
+        // opposite orientations must not cancel:
+        check("overlapping", new Shape[]{
+            rect(new Path2D.Float(), 20.25f, 20.5f, 100f, 60f, true),
+            rect(new Path2D.Float(), 60.5f, 40.75f, 100f, 80f, false),
+            new Rectangle2D.Float(90.3f, 10.6f, 40f, 130f),
+            new Ellipse2D.Float(40.4f, 60.2f, 50f, 50f)
+        });
+    }
+
+    public void testSameOrientationSubpaths() {
+        // non-zero shape with disjoint subpaths of the same orientation
+        // (negative net area) overlapped by another shape:
+        final Path2D.Float p = new Path2D.Float(Path2D.WIND_NON_ZERO);
+        rect(p, 10.25f, 20.5f, 50f, 40f, false);
+        rect(p, 80.5f, 30.75f, 100f, 90f, false);
+
+        check("same orientations", new Shape[]{
+            p,
+            rect(new Path2D.Float(), 30.3f, 40.6f, 120f, 30f, true)
+        });
+    }
+
+    public void testCurves() {
+        // quad and cubic subpaths of the same orientation:
+        final Path2D.Float p = new Path2D.Float(Path2D.WIND_NON_ZERO);
+        p.moveTo(10f, 80f);
+        p.quadTo(50f, 0f, 90f, 80f);
+        p.closePath();
+        p.moveTo(110f, 80f);
+        p.lineTo(190f, 80f);
+        p.curveTo(170f, 160f, 130f, 160f, 110f, 80f);
+        p.closePath();
+
+        check("curves", new Shape[]{
+            p,
+            new Ellipse2D.Float(40.3f, 50.6f, 120f, 40f)
+        });
+    }
+
+    public void testUnionSafe() {
+        // even-odd shape with a hole of the same orientation:
+        final Path2D.Float evenOdd = new Path2D.Float(Path2D.WIND_EVEN_ODD);
+        rect(evenOdd, 20.25f, 20.5f, 120f, 100f, true);
+        rect(evenOdd, 50.5f, 45.75f, 60f, 50f, true);
+        checkUnionSafe("even-odd hole", evenOdd, false);
+
+        // non-zero shape with a hole of the opposite orientation:
+        final Path2D.Float hole = new Path2D.Float(Path2D.WIND_NON_ZERO);
+        rect(hole, 20.25f, 20.5f, 120f, 100f, true);
+        rect(hole, 50.5f, 45.75f, 60f, 50f, false);
+        checkUnionSafe("non-zero hole", hole, false);
+
+        // disjoint subpaths of opposite orientations (curves):
+        final Path2D.Float mixed = new Path2D.Float(Path2D.WIND_NON_ZERO);
+        mixed.moveTo(10f, 80f);
+        mixed.quadTo(50f, 0f, 90f, 80f);
+        mixed.closePath();
+        mixed.moveTo(110f, 80f);
+        mixed.curveTo(130f, 160f, 170f, 160f, 190f, 80f);
+        mixed.closePath();
+        checkUnionSafe("mixed orientations", mixed, false);
+
+        final Path2D.Float same = new Path2D.Float(Path2D.WIND_NON_ZERO);
+        rect(same, 10.25f, 20.5f, 50f, 40f, false);
+        rect(same, 80.5f, 30.75f, 100f, 90f, false);
+        checkUnionSafe("same orientations", same, true);
+
+        checkUnionSafe("clockwise", rect(new Path2D.Float(), 1f, 2f, 3f, 4f,
+                                         true), true);
+        checkUnionSafe("counter-clockwise", rect(new Path2D.Float(), 1f, 2f,
+                                                 3f, 4f, false), true);
+        checkUnionSafe("rectangle", new Rectangle2D.Float(1f, 2f, -3f, 4f),
+                       true);
+        checkUnionSafe("ellipse", new Ellipse2D.Float(1f, 2f, 3f, 4f), true);
+    }
+
+    private static void checkUnionSafe(final String name, final Shape s,
+                                       final boolean expected)
+    {
+        if (MarlinRenderingEngine.isUnionSafe(s) != expected) {
+            throw new AssertionError(name + ": isUnionSafe() != " + expected);
+        }
+    }
+
+    private static void check(final String name, final Shape[] shapes) {
+        for (int i = 0; i < TRANSFORMS.length; i++) {
+            final AffineTransform at = TRANSFORMS[i];
+            final byte[] actual = MaskRendering.renderUnion(shapes, at, W, H);
+
+            // union coverage is in [max(coverage); sum(coverage)]:
+            final int[] min = new int[W * H];
+            final int[] max = new int[W * H];
+            for (Shape s : shapes) {
+                final byte[] mask = MaskRendering.render(s, at, null, false,
+                                                         false, W, H);
+                for (int j = 0; j < mask.length; j++) {
+                    min[j] = Math.max(min[j], mask[j] & 0xff);
+                    max[j] = Math.min(255, max[j] + (mask[j] & 0xff));
+                }
+            }
+            int diffs = 0;
+            for (int j = 0; j < actual.length; j++) {
+                final int alpha = actual[j] & 0xff;
+                if (alpha < min[j] - TOLERANCE || alpha > max[j] + TOLERANCE) {
+                    diffs++;
+                }
+            }
+            if (diffs != 0) {
+                throw new AssertionError(name + " (transform " + i + "): "
+                    + diffs + " pixels out of the union coverage range");
+            }
+        }
+    }
+}
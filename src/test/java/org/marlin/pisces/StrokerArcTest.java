@@ -0,0 +1,53 @@
+package org.marlin.pisces;
+
+import java.util.Random;
+
+/**
+ * Checks the round arc control factors interpolated by Stroker.arcCv()
+ * against the exact formula (error bound Stroker.ARC_MAX_ERROR)
+ */
+public class StrokerArcTest {
+
+    static double exactCv(final double c) {
+        return (4.0 / 3.0) * Math.sqrt(0.5 - c) / (1.0 + Math.sqrt(c + 0.5));
+    }
+
+    private static void check(final float c) {
+        final double err = Math.abs(Stroker.arcCv(c) - exactCv(c));
+        if (!(err <= Stroker.ARC_MAX_ERROR)) {
+            throw new AssertionError("cv(" + c + "): error " + err + " > "
+                                     + Stroker.ARC_MAX_ERROR);
+        }
+    }
+
+    public void testArcCvBound() {
+        // dense sweep over [0; 0.5] (90 degrees to 0):
+        final int n = 1000000;
+        for (int i = 0; i <= n; i++) {
+            check(0.5f * i / n);
+        }
+        final Random r = new Random(11);
+        for (int i = 0; i < 100000; i++) {
+            check(0.5f * r.nextFloat());
+        }
+        // table nodes and their neighbours:
+        for (int i = 0; i <= 64; i++) {
+            final float c = i / 128f;
+            check(c);
+            check(Math.nextUp(c) <= 0.5f ? Math.nextUp(c) : 0.5f);
+            check(Math.nextAfter(c, 0.0) >= 0f ? Math.nextAfter(c, 0.0) : 0f);
+        }
+    }
+
+    public void testArcCvRounding() {
+        // cosines slightly out of range (rounding) are clamped, never NaN:
+        if (Stroker.arcCv(Math.nextUp(0.5f)) != 0f) {
+            throw new AssertionError("cv(0.5+) != 0");
+        }
+        if (Math.abs(Stroker.arcCv(-1e-7f) - exactCv(0.0))
+                > Stroker.ARC_MAX_ERROR)
+        {
+            throw new AssertionError("cv(0-) != cv(0)");
+        }
+    }
+}